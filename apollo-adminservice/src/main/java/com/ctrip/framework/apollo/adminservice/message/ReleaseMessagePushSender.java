@@ -0,0 +1,129 @@
+package com.ctrip.framework.apollo.adminservice.message;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.message.DatabaseMessageSender;
+import com.ctrip.framework.apollo.biz.message.MessageSender;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.core.ServiceNameConsts;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.netflix.eureka.EurekaDiscoveryClient.EurekaServiceInstance;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Saves the release message to database and then pushes it to all the config services, so that they could deliver
+ * it without waiting for the next database scan.
+ *
+ * <p>Only takes effect when apollo.release-message.push.enabled is true, and the database scan in config services
+ * is still the safety net if the push fails. The pushes carry apollo.release-message.push.access-token, which config
+ * services check before accepting them.</p>
+ */
+@Primary
+@Component
+public class ReleaseMessagePushSender implements MessageSender {
+  private static final Logger logger = LoggerFactory.getLogger(ReleaseMessagePushSender.class);
+  private static final String NOTIFY_PATH = "release-messages/notify?message={message}";
+  private static final int PUSH_TIMEOUT_IN_MILLI = 1000;
+  private final ExecutorService pushExecutorService;
+  private final RestTemplate restTemplate;
+
+  private final DatabaseMessageSender databaseMessageSender;
+  private final DiscoveryClient discoveryClient;
+  private final BizConfig bizConfig;
+
+  @Autowired
+  public ReleaseMessagePushSender(
+      final DatabaseMessageSender databaseMessageSender,
+      final DiscoveryClient discoveryClient,
+      final BizConfig bizConfig) {
+    this(databaseMessageSender, discoveryClient, bizConfig, Executors.newSingleThreadExecutor(
+        ApolloThreadFactory.create("ReleaseMessagePushSender", true)), createRestTemplate());
+  }
+
+  @VisibleForTesting
+  ReleaseMessagePushSender(
+      final DatabaseMessageSender databaseMessageSender,
+      final DiscoveryClient discoveryClient,
+      final BizConfig bizConfig,
+      final ExecutorService pushExecutorService,
+      final RestTemplate restTemplate) {
+    this.databaseMessageSender = databaseMessageSender;
+    this.discoveryClient = discoveryClient;
+    this.bizConfig = bizConfig;
+    this.pushExecutorService = pushExecutorService;
+    this.restTemplate = restTemplate;
+  }
+
+  private static RestTemplate createRestTemplate() {
+    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout(PUSH_TIMEOUT_IN_MILLI);
+    requestFactory.setReadTimeout(PUSH_TIMEOUT_IN_MILLI);
+    return new RestTemplate(requestFactory);
+  }
+
+  @Override
+  public void sendMessage(String message, String channel) {
+    databaseMessageSender.sendMessage(message, channel);
+
+    if (!bizConfig.isReleaseMessagePushEnabled() || !Objects.equals(channel, Topics.APOLLO_RELEASE_TOPIC)) {
+      return;
+    }
+
+    //config services could only see the message after it's committed
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCommit() {
+          pushMessage(message);
+        }
+      });
+      return;
+    }
+
+    pushMessage(message);
+  }
+
+  private void pushMessage(String message) {
+    pushExecutorService.submit(() -> {
+      HttpHeaders headers = new HttpHeaders();
+      headers.set(HttpHeaders.AUTHORIZATION, bizConfig.releaseMessagePushAccessToken());
+      HttpEntity<Void> request = new HttpEntity<>(headers);
+      List<ServiceInstance> configServices = discoveryClient.getInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE);
+      for (ServiceInstance configService : configServices) {
+        String url = homePageUrl(configService) + NOTIFY_PATH;
+        try {
+          restTemplate.postForLocation(url, request, message);
+        } catch (Throwable ex) {
+          //the config service would still get the message by its database scan
+          logger.warn("Push release message {} to {} failed", message, url, ex);
+          Tracer.logEvent("Apollo.ReleaseMessage.PushFailed", url);
+        }
+      }
+    });
+  }
+
+  private String homePageUrl(ServiceInstance instance) {
+    if (instance instanceof EurekaServiceInstance) {
+      return ((EurekaServiceInstance) instance).getInstanceInfo().getHomePageUrl();
+    }
+    return instance.getUri().toString() + "/";
+  }
+}
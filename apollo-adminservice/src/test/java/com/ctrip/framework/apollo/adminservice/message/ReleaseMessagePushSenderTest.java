@@ -0,0 +1,139 @@
+package com.ctrip.framework.apollo.adminservice.message;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.message.DatabaseMessageSender;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.core.ServiceNameConsts;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReleaseMessagePushSenderTest {
+  private ReleaseMessagePushSender releaseMessagePushSender;
+  @Mock
+  private DatabaseMessageSender databaseMessageSender;
+  @Mock
+  private DiscoveryClient discoveryClient;
+  @Mock
+  private BizConfig bizConfig;
+  @Mock
+  private RestTemplate restTemplate;
+  @Mock
+  private ServiceInstance someConfigService;
+  @Mock
+  private ServiceInstance anotherConfigService;
+  private String someMessage;
+  private String someAccessToken;
+
+  @Before
+  public void setUp() throws Exception {
+    releaseMessagePushSender = new ReleaseMessagePushSender(databaseMessageSender, discoveryClient, bizConfig,
+        MoreExecutors.newDirectExecutorService(), restTemplate);
+
+    someMessage = "someAppId+default+application";
+    someAccessToken = "someAccessToken";
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void testPushAfterCommit() throws Exception {
+    someConfigServicesFound();
+    when(bizConfig.isReleaseMessagePushEnabled()).thenReturn(true);
+    TransactionSynchronizationManager.initSynchronization();
+
+    releaseMessagePushSender.sendMessage(someMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    verify(databaseMessageSender, times(1)).sendMessage(someMessage, Topics.APOLLO_RELEASE_TOPIC);
+    verify(restTemplate, never()).postForLocation(anyString(), any(), any(Object[].class));
+
+    List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+    assertEquals(1, synchronizations.size());
+    synchronizations.get(0).afterCommit();
+
+    ArgumentCaptor<HttpEntity> requestCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+    verify(restTemplate, times(1))
+        .postForLocation(eq("http://someHost:8080/release-messages/notify?message={message}"),
+            requestCaptor.capture(), eq(someMessage));
+    verify(restTemplate, times(1))
+        .postForLocation(eq("http://anotherHost:8080/release-messages/notify?message={message}"), any(),
+            eq(someMessage));
+    assertEquals(someAccessToken, requestCaptor.getValue().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+  }
+
+  @Test
+  public void testNotPushWhenDisabled() throws Exception {
+    when(bizConfig.isReleaseMessagePushEnabled()).thenReturn(false);
+
+    releaseMessagePushSender.sendMessage(someMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    verify(databaseMessageSender, times(1)).sendMessage(someMessage, Topics.APOLLO_RELEASE_TOPIC);
+    verify(discoveryClient, never()).getInstances(anyString());
+  }
+
+  @Test
+  public void testNotPushNonReleaseChannel() throws Exception {
+    String someChannel = "someChannel";
+    when(bizConfig.isReleaseMessagePushEnabled()).thenReturn(true);
+
+    releaseMessagePushSender.sendMessage(someMessage, someChannel);
+
+    verify(databaseMessageSender, times(1)).sendMessage(someMessage, someChannel);
+    verify(discoveryClient, never()).getInstances(anyString());
+  }
+
+  @Test
+  public void testPushFailureNotAffectingOtherConfigServices() throws Exception {
+    someConfigServicesFound();
+    when(bizConfig.isReleaseMessagePushEnabled()).thenReturn(true);
+    when(restTemplate.postForLocation(eq("http://someHost:8080/release-messages/notify?message={message}"), any(),
+        eq(someMessage))).thenThrow(new ResourceAccessException("some error"));
+
+    releaseMessagePushSender.sendMessage(someMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    verify(databaseMessageSender, times(1)).sendMessage(someMessage, Topics.APOLLO_RELEASE_TOPIC);
+    verify(restTemplate, times(1))
+        .postForLocation(eq("http://anotherHost:8080/release-messages/notify?message={message}"), any(),
+            eq(someMessage));
+  }
+
+  private void someConfigServicesFound() {
+    when(bizConfig.releaseMessagePushAccessToken()).thenReturn(someAccessToken);
+    when(someConfigService.getUri()).thenReturn(URI.create("http://someHost:8080"));
+    when(anotherConfigService.getUri()).thenReturn(URI.create("http://anotherHost:8080"));
+    when(discoveryClient.getInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE))
+        .thenReturn(Lists.newArrayList(someConfigService, anotherConfigService));
+  }
+}
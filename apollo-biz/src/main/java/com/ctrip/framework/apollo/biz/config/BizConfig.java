@@ -26,8 +26,10 @@ public class BizConfig extends RefreshableConfig {
   private static final int DEFAULT_ACCESSKEY_CACHE_REBUILD_INTERVAL = 60; //60s
   private static final int DEFAULT_RELEASE_MESSAGE_CACHE_SCAN_INTERVAL = 1; //1s
   private static final int DEFAULT_RELEASE_MESSAGE_SCAN_INTERVAL_IN_MS = 1000; //1000ms
+  private static final int DEFAULT_RELEASE_MESSAGE_PUSH_SCAN_INTERVAL_IN_MS = 10000; //10000ms
   private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH = 100;
   private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH_INTERVAL_IN_MILLI = 100;//100ms
+  private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_THREADS = 2;
   private static final int DEFAULT_LONG_POLLING_TIMEOUT = 60; //60s
 
   private Gson gson = new Gson();
@@ -152,6 +154,34 @@ public class BizConfig extends RefreshableConfig {
     return checkInt(interval, 100, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_SCAN_INTERVAL_IN_MS);
   }
 
+  /**
+   * whether admin service pushes the release messages to config services, in which case the release message scan of
+   * config services is relaxed to {@link #releaseMessagePushScanIntervalInMilli()}, while the release message cache
+   * scan is kept as is since the cache is fed by the scanner anyway.
+   *
+   * <p>Config services only register the notify endpoint on startup, so this switch should be set in the startup
+   * configuration of both admin services and config services, e.g. -Dapollo.release-message.push.enabled=true, rather
+   * than in the ServerConfig table.</p>
+   */
+  public boolean isReleaseMessagePushEnabled() {
+    return getBooleanProperty("apollo.release-message.push.enabled", false);
+  }
+
+  /**
+   * the shared secret which admin services present when pushing release messages to config services
+   */
+  public String releaseMessagePushAccessToken() {
+    return getValue("apollo.release-message.push.access-token", "");
+  }
+
+  /**
+   * the scan interval when release messages are pushed by admin service, which is only a safety net
+   */
+  public int releaseMessagePushScanIntervalInMilli() {
+    int interval = getIntProperty("apollo.release-message.push.scan.interval", DEFAULT_RELEASE_MESSAGE_PUSH_SCAN_INTERVAL_IN_MS);
+    return checkInt(interval, 100, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_PUSH_SCAN_INTERVAL_IN_MS);
+  }
+
   public int releaseMessageNotificationBatch() {
     int batch = getIntProperty("apollo.release-message.notification.batch", DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH);
     return checkInt(batch, 1, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH);
@@ -162,10 +192,19 @@ public class BizConfig extends RefreshableConfig {
     return checkInt(interval, 10, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH_INTERVAL_IN_MILLI);
   }
 
+  public int releaseMessageNotificationThreads() {
+    int threads = getIntProperty("apollo.release-message.notification.threads", DEFAULT_RELEASE_MESSAGE_NOTIFICATION_THREADS);
+    return checkInt(threads, 1, 64, DEFAULT_RELEASE_MESSAGE_NOTIFICATION_THREADS);
+  }
+
   public boolean isConfigServiceCacheEnabled() {
     return getBooleanProperty("config-service.cache.enabled", false);
   }
 
+  public boolean isConfigServiceDeltaSyncEnabled() {
+    return getBooleanProperty("config-service.delta-sync.enabled", false);
+  }
+
   int checkInt(int value, int min, int max, int defaultValue) {
     if (value >= min && value <= max) {
       return value;
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,30 +33,51 @@ public class ReleaseMessageScanner implements InitializingBean {
   private List<ReleaseMessageListener> listeners;
   private ScheduledExecutorService executorService;
   private long maxIdScanned;
+  private final AtomicBoolean immediateScanScheduled;
 
   public ReleaseMessageScanner() {
     listeners = Lists.newCopyOnWriteArrayList();
+    immediateScanScheduled = new AtomicBoolean(false);
     executorService = Executors.newScheduledThreadPool(1, ApolloThreadFactory
         .create("ReleaseMessageScanner", true));
   }
 
   @Override
   public void afterPropertiesSet() throws Exception {
-    databaseScanInterval = bizConfig.releaseMessageScanIntervalInMilli();
+    //when release messages are pushed by admin service, the scan is only a safety net for missed pushes
+    databaseScanInterval = bizConfig.isReleaseMessagePushEnabled() ? bizConfig.releaseMessagePushScanIntervalInMilli()
+        : bizConfig.releaseMessageScanIntervalInMilli();
     maxIdScanned = loadLargestMessageId();
-    executorService.scheduleWithFixedDelay((Runnable) () -> {
-      Transaction transaction = Tracer.newTransaction("Apollo.ReleaseMessageScanner", "scanMessage");
-      try {
-        scanMessages();
-        transaction.setStatus(Transaction.SUCCESS);
-      } catch (Throwable ex) {
-        transaction.setStatus(ex);
-        logger.error("Scan and send message failed", ex);
-      } finally {
-        transaction.complete();
-      }
-    }, databaseScanInterval, databaseScanInterval, TimeUnit.MILLISECONDS);
+    executorService.scheduleWithFixedDelay(() -> scanMessagesWithTransaction("scanMessage"), databaseScanInterval,
+        databaseScanInterval, TimeUnit.MILLISECONDS);
+
+  }
 
+  /**
+   * Scan new messages as soon as possible, e.g. when admin service pushes a new release message.
+   * Requests arriving before the pending scan starts are merged into it.
+   */
+  public void scanImmediately() {
+    if (!immediateScanScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    executorService.submit(() -> {
+      immediateScanScheduled.set(false);
+      scanMessagesWithTransaction("scanMessageImmediately");
+    });
+  }
+
+  private void scanMessagesWithTransaction(String name) {
+    Transaction transaction = Tracer.newTransaction("Apollo.ReleaseMessageScanner", name);
+    try {
+      scanMessages();
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      logger.error("Scan and send message failed", ex);
+    } finally {
+      transaction.complete();
+    }
   }
 
   /**
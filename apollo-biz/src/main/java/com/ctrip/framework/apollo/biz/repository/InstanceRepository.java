@@ -4,6 +4,12 @@ import com.ctrip.framework.apollo.biz.entity.Instance;
 
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.List;
+import java.util.Set;
+
 public interface InstanceRepository extends PagingAndSortingRepository<Instance, Long> {
   Instance findByAppIdAndClusterNameAndDataCenterAndIp(String appId, String clusterName, String dataCenter, String ip);
+
+  List<Instance> findByAppIdAndClusterNameAndDataCenterAndIpIn(String appId, String clusterName, String dataCenter,
+      Set<String> ips);
 }
@@ -6,6 +6,7 @@ import com.ctrip.framework.apollo.biz.repository.InstanceConfigRepository;
 import com.ctrip.framework.apollo.biz.repository.InstanceRepository;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import java.util.Objects;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -19,6 +20,7 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -42,6 +44,13 @@ public class InstanceService {
         dataCenter, ip);
   }
 
+  public List<Instance> findInstances(String appId, String clusterName, String dataCenter, Set<String> ips) {
+    if (CollectionUtils.isEmpty(ips)) {
+      return Collections.emptyList();
+    }
+    return instanceRepository.findByAppIdAndClusterNameAndDataCenterAndIpIn(appId, clusterName, dataCenter, ips);
+  }
+
   public List<Instance> findInstancesByIds(Set<Long> instanceIds) {
     Iterable<Instance> instances = instanceRepository.findAllById(instanceIds);
     if (instances == null) {
@@ -64,6 +73,15 @@ public class InstanceService {
             instanceId, configAppId, configNamespaceName);
   }
 
+  public List<InstanceConfig> findInstanceConfigs(String configAppId, String configNamespaceName,
+                                                  Set<Long> instanceIds) {
+    if (CollectionUtils.isEmpty(instanceIds)) {
+      return Collections.emptyList();
+    }
+    return instanceConfigRepository
+        .findByConfigAppIdAndConfigNamespaceNameAndInstanceIdIn(configAppId, configNamespaceName, instanceIds);
+  }
+
   public Page<InstanceConfig> findActiveInstanceConfigsByReleaseKey(String releaseKey, Pageable
       pageable) {
     Page<InstanceConfig> instanceConfigs = instanceConfigRepository
@@ -174,6 +192,37 @@ public class InstanceService {
     return instanceConfigRepository.save(existedInstanceConfig);
   }
 
+  @Transactional
+  public List<InstanceConfig> batchCreateInstanceConfigs(List<InstanceConfig> instanceConfigs) {
+    instanceConfigs.forEach(instanceConfig -> instanceConfig.setId(0)); //protection
+
+    return Lists.newArrayList(instanceConfigRepository.saveAll(instanceConfigs));
+  }
+
+  /**
+   * Update the instance configs in one transaction, the existing ones are loaded with one query
+   */
+  @Transactional
+  public void batchUpdateInstanceConfigs(List<InstanceConfig> instanceConfigs) {
+    Map<Long, InstanceConfig> existedInstanceConfigs = Maps.newHashMap();
+    instanceConfigRepository.findAllById(instanceConfigs.stream().map(InstanceConfig::getId)
+        .collect(Collectors.toSet())).forEach(existed -> existedInstanceConfigs.put(existed.getId(), existed));
+
+    for (InstanceConfig instanceConfig : instanceConfigs) {
+      InstanceConfig existedInstanceConfig = existedInstanceConfigs.get(instanceConfig.getId());
+      Preconditions.checkArgument(existedInstanceConfig != null, String.format(
+          "Instance config %d doesn't exist", instanceConfig.getId()));
+
+      existedInstanceConfig.setConfigClusterName(instanceConfig.getConfigClusterName());
+      existedInstanceConfig.setReleaseKey(instanceConfig.getReleaseKey());
+      existedInstanceConfig.setReleaseDeliveryTime(instanceConfig.getReleaseDeliveryTime());
+      existedInstanceConfig.setDataChangeLastModifiedTime(instanceConfig
+          .getDataChangeLastModifiedTime());
+    }
+
+    instanceConfigRepository.saveAll(existedInstanceConfigs.values());
+  }
+
   @Transactional
   public int batchDeleteInstanceConfig(String configAppId, String configClusterName, String configNamespaceName){
     return instanceConfigRepository.batchDelete(configAppId, configClusterName, configNamespaceName);
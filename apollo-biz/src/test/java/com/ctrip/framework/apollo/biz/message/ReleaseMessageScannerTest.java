@@ -79,6 +79,37 @@ public class ReleaseMessageScannerTest extends AbstractUnitTest {
 
   }
 
+  @Test
+  public void testScanImmediatelyWhenPushEnabled() throws Exception {
+    ReleaseMessageScanner pushedReleaseMessageScanner = new ReleaseMessageScanner();
+    ReflectionTestUtils
+        .setField(pushedReleaseMessageScanner, "releaseMessageRepository", releaseMessageRepository);
+    ReflectionTestUtils.setField(pushedReleaseMessageScanner, "bizConfig", bizConfig);
+    int someSafetyNetScanInterval = 100000; //100 seconds
+    when(bizConfig.isReleaseMessagePushEnabled()).thenReturn(true);
+    when(bizConfig.releaseMessagePushScanIntervalInMilli()).thenReturn(someSafetyNetScanInterval);
+    pushedReleaseMessageScanner.afterPropertiesSet();
+
+    SettableFuture<ReleaseMessage> someListenerFuture = SettableFuture.create();
+    ReleaseMessageListener someListener = (message, channel) -> someListenerFuture.set(message);
+    pushedReleaseMessageScanner.addMessageListener(someListener);
+
+    String someMessage = "someMessage";
+    long someId = 100;
+    ReleaseMessage someReleaseMessage = assembleReleaseMessage(someId, someMessage);
+
+    when(releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L)).thenReturn(
+        Lists.newArrayList(someReleaseMessage));
+
+    pushedReleaseMessageScanner.scanImmediately();
+
+    ReleaseMessage someListenerMessage =
+        someListenerFuture.get(5000, TimeUnit.MILLISECONDS);
+
+    assertEquals(someMessage, someListenerMessage.getMessage());
+    assertEquals(someId, someListenerMessage.getId());
+  }
+
   private ReleaseMessage assembleReleaseMessage(long id, String message) {
     ReleaseMessage releaseMessage = new ReleaseMessage();
     releaseMessage.setId(id);
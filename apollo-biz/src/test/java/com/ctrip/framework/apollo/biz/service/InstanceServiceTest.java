@@ -110,6 +110,52 @@ public class InstanceServiceTest extends AbstractIntegrationTest {
     assertEquals(anotherReleaseKey, updated.getReleaseKey());
   }
 
+  @Test
+  @Rollback
+  public void testBatchCreateAndUpdateInstanceConfigs() throws Exception {
+    String someAppId = "someAppId";
+    String someClusterName = "someClusterName";
+    String someDataCenter = "someDataCenter";
+    String someIp = "someIp";
+    String anotherIp = "anotherIp";
+    String someConfigAppId = "someConfigAppId";
+    String someConfigClusterName = "someConfigClusterName";
+    String someConfigNamespaceName = "someConfigNamespaceName";
+    String someReleaseKey = "someReleaseKey";
+    String anotherReleaseKey = "anotherReleaseKey";
+
+    Instance someInstance = instanceService.createInstance(assembleInstance(someAppId,
+        someClusterName, someDataCenter, someIp));
+    Instance anotherInstance = instanceService.createInstance(assembleInstance(someAppId,
+        someClusterName, someDataCenter, anotherIp));
+
+    List<Instance> instances = instanceService.findInstances(someAppId, someClusterName,
+        someDataCenter, Sets.newHashSet(someIp, anotherIp, "yetAnotherIp"));
+
+    assertEquals(Sets.newHashSet(someInstance.getId(), anotherInstance.getId()),
+        instances.stream().map(Instance::getId).collect(Collectors.toSet()));
+
+    instanceService.batchCreateInstanceConfigs(Lists.newArrayList(
+        assembleInstanceConfig(someInstance.getId(), someConfigAppId, someConfigClusterName,
+            someConfigNamespaceName, someReleaseKey),
+        assembleInstanceConfig(anotherInstance.getId(), someConfigAppId, someConfigClusterName,
+            someConfigNamespaceName, someReleaseKey)));
+
+    List<InstanceConfig> instanceConfigs = instanceService.findInstanceConfigs(someConfigAppId,
+        someConfigNamespaceName, Sets.newHashSet(someInstance.getId(), anotherInstance.getId()));
+
+    assertEquals(2, instanceConfigs.size());
+
+    instanceConfigs.forEach(instanceConfig -> instanceConfig.setReleaseKey(anotherReleaseKey));
+
+    instanceService.batchUpdateInstanceConfigs(instanceConfigs);
+
+    assertEquals(anotherReleaseKey, instanceService.findInstanceConfig(someInstance.getId(),
+        someConfigAppId, someConfigNamespaceName).getReleaseKey());
+    assertEquals(anotherReleaseKey, instanceService.findInstanceConfig(anotherInstance.getId(),
+        someConfigAppId, someConfigNamespaceName).getReleaseKey());
+  }
+
   @Test
   @Rollback
   public void testFindActiveInstanceConfigs() throws Exception {
@@ -0,0 +1,169 @@
+package com.ctrip.framework.apollo.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates the apollo annotation index of the compiled classes at {@link #INDEX_LOCATION}.
+ *
+ * <p>The index lists the binary names of the classes having fields or methods annotated with
+ * {@code @ApolloConfig}, {@code @ApolloConfigChangeListener}, {@code @ApolloJsonValue} or {@code @Value}, directly or
+ * through meta annotations, one per line. The index is generated even if there is no such class, so that the apollo
+ * spring processors know the classes of the jar need no processing.</p>
+ *
+ * <p>Add this artifact to the compile classpath (or the annotation processor path) of the applications to enable it.
+ * An incremental compilation only processes the changed sources, so the entries of the existing index are kept except
+ * for the classes compiled again, which are indexed from their current sources.</p>
+ */
+@SupportedAnnotationTypes("*")
+public class ApolloAnnotationIndexProcessor extends AbstractProcessor {
+  public static final String INDEX_LOCATION = "META-INF/apollo.components";
+
+  private static final Set<String> TARGET_ANNOTATIONS = new HashSet<>(Arrays.asList(
+      "com.ctrip.framework.apollo.spring.annotation.ApolloConfig",
+      "com.ctrip.framework.apollo.spring.annotation.ApolloConfigChangeListener",
+      "com.ctrip.framework.apollo.spring.annotation.ApolloJsonValue",
+      "org.springframework.beans.factory.annotation.Value"));
+
+  private final Set<String> indexedClasses = new TreeSet<>();
+  private final Set<String> processedClasses = new HashSet<>();
+  private final Map<String, Boolean> targetAnnotationCache = new HashMap<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getRootElements()) {
+      if (element instanceof TypeElement) {
+        indexType((TypeElement) element);
+      }
+    }
+
+    if (roundEnv.processingOver()) {
+      writeIndex();
+    }
+
+    // never claim the annotations, so other processors could still process them
+    return false;
+  }
+
+  private void indexType(TypeElement type) {
+    String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+    processedClasses.add(binaryName);
+    for (Element member : type.getEnclosedElements()) {
+      ElementKind kind = member.getKind();
+      if (kind == ElementKind.FIELD || kind == ElementKind.METHOD) {
+        if (hasTargetAnnotation(member)) {
+          indexedClasses.add(binaryName);
+        }
+      } else if (member instanceof TypeElement) {
+        indexType((TypeElement) member);
+      }
+    }
+  }
+
+  private boolean hasTargetAnnotation(Element element) {
+    for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      if (isTargetAnnotation((TypeElement) annotation.getAnnotationType().asElement(), new HashSet<String>())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return whether the annotation is one of the target annotations or is meta annotated with one of them
+   */
+  private boolean isTargetAnnotation(TypeElement annotationType, Set<String> visited) {
+    String name = annotationType.getQualifiedName().toString();
+    if (TARGET_ANNOTATIONS.contains(name)) {
+      return true;
+    }
+    if (name.startsWith("java.lang.annotation.") || !visited.add(name)) {
+      return false;
+    }
+    Boolean cached = targetAnnotationCache.get(name);
+    if (cached != null) {
+      return cached;
+    }
+
+    boolean result = false;
+    List<? extends AnnotationMirror> metaAnnotations = annotationType.getAnnotationMirrors();
+    for (AnnotationMirror metaAnnotation : metaAnnotations) {
+      if (isTargetAnnotation((TypeElement) metaAnnotation.getAnnotationType().asElement(), visited)) {
+        result = true;
+        break;
+      }
+    }
+    targetAnnotationCache.put(name, result);
+    return result;
+  }
+
+  private void writeIndex() {
+    Set<String> classNames = readExistingIndex();
+    classNames.removeAll(processedClasses);
+    classNames.addAll(indexedClasses);
+    try {
+      FileObject index = processingEnv.getFiler()
+          .createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+      try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+        for (String className : classNames) {
+          writer.write(className);
+          writer.write('\n');
+        }
+      }
+    } catch (IOException ex) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Failed to write the apollo annotation index: " + ex.getMessage());
+    }
+  }
+
+  /**
+   * @return the classes in the index of the previous compilation, the entries of the deleted classes might be kept,
+   * which is harmless as those classes are never loaded
+   */
+  private Set<String> readExistingIndex() {
+    Set<String> classNames = new TreeSet<>();
+    try {
+      FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+      try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(index.openInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          line = line.trim();
+          if (!line.isEmpty()) {
+            classNames.add(line);
+          }
+        }
+      }
+    } catch (IOException ex) {
+      // no existing index, e.g. a clean build
+    }
+    return classNames;
+  }
+}
@@ -0,0 +1,148 @@
+package com.ctrip.framework.apollo.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApolloAnnotationIndexProcessorTest {
+  private File sourceDir;
+  private File outputDir;
+
+  @Before
+  public void setUp() throws Exception {
+    sourceDir = Files.createTempDirectory("apollo-index-source").toFile();
+    outputDir = Files.createTempDirectory("apollo-index-output").toFile();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    deleteRecursively(sourceDir);
+    deleteRecursively(outputDir);
+  }
+
+  @Test
+  public void testGenerateIndex() throws Exception {
+    compile(
+        source("org.springframework.beans.factory.annotation.Value",
+            "package org.springframework.beans.factory.annotation;\n"
+                + "public @interface Value { String value(); }"),
+        source("some.MetaValue",
+            "package some;\n"
+                + "@org.springframework.beans.factory.annotation.Value(\"${meta}\")\n"
+                + "public @interface MetaValue {}"),
+        source("some.FieldBean",
+            "package some;\n"
+                + "public class FieldBean {\n"
+                + "  @org.springframework.beans.factory.annotation.Value(\"${key}\") private String value;\n"
+                + "}"),
+        source("some.MethodBean",
+            "package some;\n"
+                + "public class MethodBean {\n"
+                + "  @MetaValue public void setValue(String value) {}\n"
+                + "  public static class Inner {\n"
+                + "    @org.springframework.beans.factory.annotation.Value(\"${key}\") private String value;\n"
+                + "  }\n"
+                + "}"),
+        source("some.PlainBean",
+            "package some;\n"
+                + "public class PlainBean {\n"
+                + "  @Deprecated private String value;\n"
+                + "}"));
+
+    List<String> index = Files.readAllLines(
+        new File(outputDir, ApolloAnnotationIndexProcessor.INDEX_LOCATION).toPath(), StandardCharsets.UTF_8);
+
+    assertEquals(Arrays.asList("some.FieldBean", "some.MethodBean", "some.MethodBean$Inner"), index);
+  }
+
+  @Test
+  public void testGenerateEmptyIndex() throws Exception {
+    compile(source("some.PlainBean", "package some;\npublic class PlainBean {}"));
+
+    File index = new File(outputDir, ApolloAnnotationIndexProcessor.INDEX_LOCATION);
+
+    assertTrue(index.exists());
+    assertEquals(0, index.length());
+  }
+
+  @Test
+  public void testGenerateIndexIncrementally() throws Exception {
+    String annotation = "package org.springframework.beans.factory.annotation;\n"
+        + "public @interface Value { String value(); }";
+    compile(
+        source("org.springframework.beans.factory.annotation.Value", annotation),
+        source("some.FieldBean",
+            "package some;\n"
+                + "public class FieldBean {\n"
+                + "  @org.springframework.beans.factory.annotation.Value(\"${key}\") private String value;\n"
+                + "}"),
+        source("some.AnotherFieldBean",
+            "package some;\n"
+                + "public class AnotherFieldBean {\n"
+                + "  @org.springframework.beans.factory.annotation.Value(\"${key}\") private String value;\n"
+                + "}"));
+
+    // only the changed sources are compiled again
+    compile(
+        source("org.springframework.beans.factory.annotation.Value", annotation),
+        source("some.AnotherFieldBean",
+            "package some;\n"
+                + "public class AnotherFieldBean {\n"
+                + "  private String value;\n"
+                + "}"),
+        source("some.MethodBean",
+            "package some;\n"
+                + "public class MethodBean {\n"
+                + "  @org.springframework.beans.factory.annotation.Value(\"${key}\") public void setValue(String v) {}\n"
+                + "}"));
+
+    List<String> index = Files.readAllLines(
+        new File(outputDir, ApolloAnnotationIndexProcessor.INDEX_LOCATION).toPath(), StandardCharsets.UTF_8);
+
+    assertEquals(Arrays.asList("some.FieldBean", "some.MethodBean"), index);
+  }
+
+  private File source(String className, String content) throws Exception {
+    File file = new File(sourceDir, className.replace('.', '/') + ".java");
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private void compile(File... sources) throws Exception {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+    try {
+      Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjects(sources);
+      JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+          Arrays.asList("-d", outputDir.getAbsolutePath(), "-proc:only"), null, compilationUnits);
+      task.setProcessors(Collections.singletonList(new ApolloAnnotationIndexProcessor()));
+      assertTrue(task.call());
+    } finally {
+      fileManager.close();
+    }
+  }
+
+  private void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -24,15 +24,21 @@ import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -41,36 +47,37 @@ public abstract class AbstractConfig implements Config {
   private static final Logger logger = LoggerFactory.getLogger(AbstractConfig.class);
 
   private static final ExecutorService m_executorService;
+  //the listeners receiving the change events in order share a bounded pool, so slow listeners could not pile up threads
+  private static final int ORDERED_EXECUTOR_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+  private static final ExecutorService m_orderedExecutorService;
 
   private final List<ConfigChangeListener> m_listeners = Lists.newCopyOnWriteArrayList();
   private final Map<ConfigChangeListener, Set<String>> m_interestedKeys = Maps.newConcurrentMap();
   private final Map<ConfigChangeListener, Set<String>> m_interestedKeyPrefixes = Maps.newConcurrentMap();
+  private volatile ConfigChangeListenerIndex m_listenerIndex = ConfigChangeListenerIndex.EMPTY;
+  private final ConcurrentMap<ConfigChangeListener, Executor> m_listenerExecutors = Maps.newConcurrentMap();
   private final ConfigUtil m_configUtil;
-  private volatile Cache<String, Integer> m_integerCache;
-  private volatile Cache<String, Long> m_longCache;
-  private volatile Cache<String, Short> m_shortCache;
-  private volatile Cache<String, Float> m_floatCache;
-  private volatile Cache<String, Double> m_doubleCache;
-  private volatile Cache<String, Byte> m_byteCache;
-  private volatile Cache<String, Boolean> m_booleanCache;
-  private volatile Cache<String, Date> m_dateCache;
-  private volatile Cache<String, Long> m_durationCache;
-  private final Map<String, Cache<String, String[]>> m_arrayCache;
-  private final List<Cache> allCaches;
-  private final AtomicLong m_configVersion; //indicate config version
+  //the parsed values of all types, replaced as a whole when the config changes
+  private volatile Cache<TypedKey, Object> m_typedValueCache;
+  private final ConcurrentMap<String, Function<String, String[]>> m_arrayParsers;
 
   protected PropertiesFactory propertiesFactory;
 
   static {
     m_executorService = Executors.newCachedThreadPool(ApolloThreadFactory
         .create("Config", true));
+    ThreadPoolExecutor orderedExecutorService = new ThreadPoolExecutor(ORDERED_EXECUTOR_THREADS,
+        ORDERED_EXECUTOR_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        ApolloThreadFactory.create("OrderedConfigChange", true));
+    //no threads are kept if the ordered config change is not enabled or idle
+    orderedExecutorService.allowCoreThreadTimeOut(true);
+    m_orderedExecutorService = orderedExecutorService;
   }
 
   public AbstractConfig() {
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
-    m_configVersion = new AtomicLong();
-    m_arrayCache = Maps.newConcurrentMap();
-    allCaches = Lists.newArrayList();
+    m_typedValueCache = newCache();
+    m_arrayParsers = Maps.newConcurrentMap();
     propertiesFactory = ApolloInjector.getInstance(PropertiesFactory.class);
   }
 
@@ -94,6 +101,7 @@ public abstract class AbstractConfig implements Config {
       if (interestedKeyPrefixes != null && !interestedKeyPrefixes.isEmpty()) {
         m_interestedKeyPrefixes.put(listener, Sets.newHashSet(interestedKeyPrefixes));
       }
+      rebuildListenerIndex();
     }
   }
 
@@ -101,21 +109,20 @@ public abstract class AbstractConfig implements Config {
   public boolean removeChangeListener(ConfigChangeListener listener) {
     m_interestedKeys.remove(listener);
     m_interestedKeyPrefixes.remove(listener);
-    return m_listeners.remove(listener);
+    boolean removed = m_listeners.remove(listener);
+    m_listenerExecutors.remove(listener);
+    rebuildListenerIndex();
+    return removed;
+  }
+
+  private synchronized void rebuildListenerIndex() {
+    m_listenerIndex = new ConfigChangeListenerIndex(m_listeners, m_interestedKeys, m_interestedKeyPrefixes);
   }
 
   @Override
   public Integer getIntProperty(String key, Integer defaultValue) {
     try {
-      if (m_integerCache == null) {
-        synchronized (this) {
-          if (m_integerCache == null) {
-            m_integerCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_INT_FUNCTION, m_integerCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_INT_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getIntProperty for %s failed, return default value %d", key,
@@ -127,15 +134,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Long getLongProperty(String key, Long defaultValue) {
     try {
-      if (m_longCache == null) {
-        synchronized (this) {
-          if (m_longCache == null) {
-            m_longCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_LONG_FUNCTION, m_longCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_LONG_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getLongProperty for %s failed, return default value %d", key,
@@ -147,15 +146,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Short getShortProperty(String key, Short defaultValue) {
     try {
-      if (m_shortCache == null) {
-        synchronized (this) {
-          if (m_shortCache == null) {
-            m_shortCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_SHORT_FUNCTION, m_shortCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_SHORT_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getShortProperty for %s failed, return default value %d", key,
@@ -167,15 +158,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Float getFloatProperty(String key, Float defaultValue) {
     try {
-      if (m_floatCache == null) {
-        synchronized (this) {
-          if (m_floatCache == null) {
-            m_floatCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_FLOAT_FUNCTION, m_floatCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_FLOAT_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getFloatProperty for %s failed, return default value %f", key,
@@ -187,15 +170,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Double getDoubleProperty(String key, Double defaultValue) {
     try {
-      if (m_doubleCache == null) {
-        synchronized (this) {
-          if (m_doubleCache == null) {
-            m_doubleCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_DOUBLE_FUNCTION, m_doubleCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_DOUBLE_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDoubleProperty for %s failed, return default value %f", key,
@@ -207,15 +182,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Byte getByteProperty(String key, Byte defaultValue) {
     try {
-      if (m_byteCache == null) {
-        synchronized (this) {
-          if (m_byteCache == null) {
-            m_byteCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_BYTE_FUNCTION, m_byteCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_BYTE_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getByteProperty for %s failed, return default value %d", key,
@@ -227,15 +194,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Boolean getBooleanProperty(String key, Boolean defaultValue) {
     try {
-      if (m_booleanCache == null) {
-        synchronized (this) {
-          if (m_booleanCache == null) {
-            m_booleanCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_BOOLEAN_FUNCTION, m_booleanCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_BOOLEAN_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getBooleanProperty for %s failed, return default value %b", key,
@@ -247,27 +206,21 @@ public abstract class AbstractConfig implements Config {
   @Override
   public String[] getArrayProperty(String key, final String delimiter, String[] defaultValue) {
     try {
-      if (!m_arrayCache.containsKey(delimiter)) {
-        synchronized (this) {
-          if (!m_arrayCache.containsKey(delimiter)) {
-            m_arrayCache.put(delimiter, this.<String[]>newCache());
+      Function<String, String[]> parser = m_arrayParsers.get(delimiter);
+      if (parser == null) {
+        parser = new Function<String, String[]>() {
+          @Override
+          public String[] apply(String input) {
+            return input.split(delimiter);
           }
+        };
+        Function<String, String[]> existing = m_arrayParsers.putIfAbsent(delimiter, parser);
+        if (existing != null) {
+          parser = existing;
         }
       }
 
-      Cache<String, String[]> cache = m_arrayCache.get(delimiter);
-      String[] result = cache.getIfPresent(key);
-
-      if (result != null) {
-        return result;
-      }
-
-      return getValueAndStoreToCache(key, new Function<String, String[]>() {
-        @Override
-        public String[] apply(String input) {
-          return input.split(delimiter);
-        }
-      }, cache, defaultValue);
+      return getValueFromCache(key, parser, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getArrayProperty for %s failed, return default value", key), ex));
@@ -295,15 +248,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Date getDateProperty(String key, Date defaultValue) {
     try {
-      if (m_dateCache == null) {
-        synchronized (this) {
-          if (m_dateCache == null) {
-            m_dateCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_DATE_FUNCTION, m_dateCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_DATE_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDateProperty for %s failed, return default value %s", key,
@@ -350,15 +295,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public long getDurationProperty(String key, long defaultValue) {
     try {
-      if (m_durationCache == null) {
-        synchronized (this) {
-          if (m_durationCache == null) {
-            m_durationCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_DURATION_FUNCTION, m_durationCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_DURATION_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDurationProperty for %s failed, return default value %d", key,
@@ -385,29 +322,29 @@ public abstract class AbstractConfig implements Config {
     return defaultValue;
   }
 
-  private <T> T getValueFromCache(String key, Function<String, T> parser, Cache<String, T> cache, T defaultValue) {
-    T result = cache.getIfPresent(key);
+  /**
+   * The parser identifies the type of the cached value, so the values of the same key in different types could be
+   * cached together.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T getValueFromCache(String key, Function<String, T> parser, T defaultValue) {
+    //read the cache only once, so the value parsed from an outdated config could only be stored to the cache which is
+    //already discarded
+    Cache<TypedKey, Object> cache = m_typedValueCache;
+    TypedKey typedKey = new TypedKey(key, parser);
+    T result = (T) cache.getIfPresent(typedKey);
 
     if (result != null) {
       return result;
     }
 
-    return getValueAndStoreToCache(key, parser, cache, defaultValue);
-  }
-
-  private <T> T getValueAndStoreToCache(String key, Function<String, T> parser, Cache<String, T> cache, T defaultValue) {
-    long currentConfigVersion = m_configVersion.get();
     String value = getProperty(key, null);
 
     if (value != null) {
-      T result = parser.apply(value);
+      result = parser.apply(value);
 
       if (result != null) {
-        synchronized (this) {
-          if (m_configVersion.get() == currentConfigVersion) {
-            cache.put(key, result);
-          }
-        }
+        cache.put(typedKey, result);
         return result;
       }
     }
@@ -415,36 +352,26 @@ public abstract class AbstractConfig implements Config {
     return defaultValue;
   }
 
-  private <T> Cache<String, T> newCache() {
-    Cache<String, T> cache = CacheBuilder.newBuilder()
+  private Cache<TypedKey, Object> newCache() {
+    return CacheBuilder.newBuilder()
         .maximumSize(m_configUtil.getMaxConfigCacheSize())
         .expireAfterAccess(m_configUtil.getConfigCacheExpireTime(), m_configUtil.getConfigCacheExpireTimeUnit())
         .build();
-    allCaches.add(cache);
-    return cache;
   }
 
   /**
-   * Clear config cache
+   * Clear config cache, should be called after the new config is visible to {@link #getProperty(String, String)}
    */
   protected void clearConfigCache() {
-    synchronized (this) {
-      for (Cache c : allCaches) {
-        if (c != null) {
-          c.invalidateAll();
-        }
-      }
-      m_configVersion.incrementAndGet();
-    }
+    m_typedValueCache = newCache();
   }
 
   protected void fireConfigChange(final ConfigChangeEvent changeEvent) {
-    for (final ConfigChangeListener listener : m_listeners) {
-      // check whether the listener is interested in this change event
-      if (!isConfigChangeListenerInterested(listener, changeEvent)) {
-        continue;
-      }
-      m_executorService.submit(new Runnable() {
+    // only the listeners interested in this change event are notified
+    List<ConfigChangeListener> interestedListeners =
+        m_listenerIndex.findInterestedListeners(changeEvent.changedKeys());
+    for (final ConfigChangeListener listener : interestedListeners) {
+      executorOf(listener).execute(new Runnable() {
         @Override
         public void run() {
           String listenerName = listener.getClass().getName();
@@ -464,34 +391,23 @@ public abstract class AbstractConfig implements Config {
     }
   }
 
-  private boolean isConfigChangeListenerInterested(ConfigChangeListener configChangeListener, ConfigChangeEvent configChangeEvent) {
-    Set<String> interestedKeys = m_interestedKeys.get(configChangeListener);
-    Set<String> interestedKeyPrefixes = m_interestedKeyPrefixes.get(configChangeListener);
-
-    if ((interestedKeys == null || interestedKeys.isEmpty())
-        && (interestedKeyPrefixes == null || interestedKeyPrefixes.isEmpty())) {
-      return true; // no interested keys means interested in all keys
-    }
-
-    if (interestedKeys != null) {
-      for (String interestedKey : interestedKeys) {
-        if (configChangeEvent.isChanged(interestedKey)) {
-          return true;
-        }
-      }
+  /**
+   * @return the shared executor, or the serial executor of the listener if the change events should be received in
+   * order
+   */
+  private Executor executorOf(ConfigChangeListener listener) {
+    if (!m_configUtil.isOrderedConfigChangeEnabled()) {
+      return m_executorService;
     }
-
-    if (interestedKeyPrefixes != null) {
-      for (String prefix : interestedKeyPrefixes) {
-        for (final String changedKey : configChangeEvent.changedKeys()) {
-          if (changedKey.startsWith(prefix)) {
-            return true;
-          }
-        }
+    Executor executor = m_listenerExecutors.get(listener);
+    if (executor == null) {
+      executor = new SerialExecutor(m_orderedExecutorService);
+      Executor existing = m_listenerExecutors.putIfAbsent(listener, executor);
+      if (existing != null) {
+        executor = existing;
       }
     }
-
-    return false;
+    return executor;
   }
 
   List<ConfigChange> calcPropertyChanges(String namespace, Properties previous,
@@ -535,4 +451,69 @@ public abstract class AbstractConfig implements Config {
 
     return changes;
   }
+
+  private static class TypedKey {
+    private final String key;
+    private final Function<String, ?> parser;
+
+    TypedKey(String key, Function<String, ?> parser) {
+      this.key = key;
+      this.parser = parser;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TypedKey)) {
+        return false;
+      }
+      TypedKey typedKey = (TypedKey) o;
+      return key.equals(typedKey.key) && parser == typedKey.parser;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * key.hashCode() + System.identityHashCode(parser);
+    }
+  }
+
+  /**
+   * Runs the tasks one by one in the order they are submitted, so each listener takes at most one thread of the
+   * bounded executor, and the listeners beyond the pool size wait in its queue
+   */
+  private static class SerialExecutor implements Executor {
+    private final Queue<Runnable> m_tasks = new ArrayDeque<>();
+    private final Executor m_executor;
+    private Runnable m_active;
+
+    SerialExecutor(Executor executor) {
+      m_executor = executor;
+    }
+
+    @Override
+    public synchronized void execute(final Runnable task) {
+      m_tasks.offer(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            task.run();
+          } finally {
+            scheduleNext();
+          }
+        }
+      });
+      if (m_active == null) {
+        scheduleNext();
+      }
+    }
+
+    private synchronized void scheduleNext() {
+      m_active = m_tasks.poll();
+      if (m_active != null) {
+        m_executor.execute(m_active);
+      }
+    }
+  }
 }
@@ -0,0 +1,123 @@
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Maps;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the configs loaded by the config agent on a host to the agent directory, so the other processes on the
+ * host could load them by {@link AgentConfigRepository} without connecting to the config service.
+ *
+ * <p>For each namespace, the agent writes the config snapshot first and then increases the memory mapped sequence,
+ * see {@link LocalCacheSnapshot} for the format of the snapshot. Both are done while holding the lock of the sequence
+ * file, so the publishers of the same namespace, even in different processes, never lose an increment or overwrite a
+ * newer snapshot with an older one.</p>
+ */
+public class AgentConfigPublisher implements RepositoryChangeListener {
+  private static final Logger logger = LoggerFactory.getLogger(AgentConfigPublisher.class);
+  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+  static final int SEQUENCE_LENGTH = 8;
+  private final File m_agentDir;
+  private final String m_appId;
+  private final String m_cluster;
+  // shared by the publishers in the process, as a file could only be locked once in a process
+  private static final ConcurrentMap<String, Sequence> s_sequences = Maps.newConcurrentMap();
+
+  /**
+   * @param agentDir the directory to publish the configs to
+   * @param appId    the app id of the configs
+   * @param cluster  the cluster of the configs
+   */
+  public AgentConfigPublisher(File agentDir, String appId, String cluster) {
+    m_agentDir = agentDir;
+    m_appId = appId;
+    m_cluster = cluster;
+  }
+
+  /**
+   * Publish the current config of the repository, and the later changes of it
+   */
+  public void register(String namespace, ConfigRepository repository) {
+    publish(namespace, repository.getConfig());
+    repository.addChangeListener(this);
+  }
+
+  @Override
+  public void onRepositoryChange(String namespace, Properties newProperties) {
+    try {
+      publish(namespace, newProperties);
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+      logger.warn("Publish config of namespace {} to agent dir {} failed", namespace, m_agentDir, ex);
+    }
+  }
+
+  /**
+   * Publish the config of the namespace
+   */
+  public void publish(String namespace, Properties properties) {
+    try {
+      Sequence sequence = sequenceOf(namespace);
+      synchronized (sequence) {
+        FileLock lock = sequence.channel.lock();
+        try {
+          LocalCacheSnapshot.write(assembleSnapshotFile(m_agentDir, m_appId, m_cluster, namespace), properties);
+          sequence.buffer.putLong(0, sequence.buffer.getLong(0) + 1);
+        } finally {
+          lock.release();
+        }
+      }
+    } catch (IOException ex) {
+      throw new ApolloConfigException(String.format("Publish config of namespace %s to agent dir %s failed",
+          namespace, m_agentDir.getAbsolutePath()), ex);
+    }
+  }
+
+  private Sequence sequenceOf(String namespace) throws IOException {
+    File file = assembleSequenceFile(m_agentDir, m_appId, m_cluster, namespace);
+    String path = file.getAbsolutePath();
+    Sequence sequence = s_sequences.get(path);
+    if (sequence == null) {
+      synchronized (s_sequences) {
+        sequence = s_sequences.get(path);
+        if (sequence == null) {
+          // the channel is kept open for locking
+          FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+          sequence = new Sequence(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, SEQUENCE_LENGTH));
+          s_sequences.put(path, sequence);
+        }
+      }
+    }
+    return sequence;
+  }
+
+  static File assembleSnapshotFile(File agentDir, String appId, String cluster, String namespace) {
+    return new File(agentDir, String.format("%s.snapshot", STRING_JOINER.join(appId, cluster, namespace)));
+  }
+
+  static File assembleSequenceFile(File agentDir, String appId, String cluster, String namespace) {
+    return new File(agentDir, String.format("%s.sequence", STRING_JOINER.join(appId, cluster, namespace)));
+  }
+
+  private static class Sequence {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    Sequence(FileChannel channel, MappedByteBuffer buffer) {
+      this.channel = channel;
+      this.buffer = buffer;
+    }
+  }
+}
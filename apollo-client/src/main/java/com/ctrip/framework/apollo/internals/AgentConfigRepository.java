@@ -0,0 +1,156 @@
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.ExceptionUtil;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the config from the snapshot published by the config agent on the same host, see {@link
+ * AgentConfigPublisher}, instead of connecting to the config service.
+ *
+ * <p>The agent increases the memory mapped sequence of the namespace after publishing a new snapshot, so checking
+ * for changes is only a memory read, and the snapshot is only loaded again when the sequence changes. The reads are
+ * not locked, as the snapshot is replaced atomically and checksummed, a sequence read while being increased only
+ * causes one more reload.</p>
+ */
+public class AgentConfigRepository extends AbstractConfigRepository {
+  private static final Logger logger = LoggerFactory.getLogger(AgentConfigRepository.class);
+  private static final long CHECK_INTERVAL_IN_MILLIS = 1000;
+  private static final ScheduledExecutorService s_executorService = Executors.newSingleThreadScheduledExecutor(
+      ApolloThreadFactory.create("AgentConfigRepository", true));
+  private final String m_namespace;
+  private final File m_snapshotFile;
+  private final File m_sequenceFile;
+  private volatile MappedByteBuffer m_sequence;
+  private volatile long m_loadedSequence = -1;
+  private volatile Properties m_properties;
+
+  /**
+   * Constructor.
+   *
+   * @param namespace the namespace
+   */
+  public AgentConfigRepository(String namespace) {
+    this(namespace, ApolloInjector.getInstance(ConfigUtil.class));
+  }
+
+  private AgentConfigRepository(String namespace, ConfigUtil configUtil) {
+    this(namespace, new File(configUtil.getLocalAgentDir()), configUtil.getAppId(), configUtil.getCluster());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param namespace the namespace
+   * @param agentDir  the directory the configs are published to
+   * @param appId     the app id of the configs
+   * @param cluster   the cluster of the configs
+   */
+  public AgentConfigRepository(String namespace, File agentDir, String appId, String cluster) {
+    m_namespace = namespace;
+    m_snapshotFile = AgentConfigPublisher.assembleSnapshotFile(agentDir, appId, cluster, namespace);
+    m_sequenceFile = AgentConfigPublisher.assembleSequenceFile(agentDir, appId, cluster, namespace);
+    this.trySync();
+    this.schedulePeriodicCheck();
+  }
+
+  @Override
+  public Properties getConfig() {
+    if (m_properties == null) {
+      sync();
+    }
+    Properties result = propertiesFactory.getPropertiesInstance();
+    result.putAll(m_properties);
+    return result;
+  }
+
+  @Override
+  public void setUpstreamRepository(ConfigRepository upstreamConfigRepository) {
+    //agent config doesn't need upstream
+  }
+
+  @Override
+  public ConfigSourceType getSourceType() {
+    return ConfigSourceType.LOCAL;
+  }
+
+  private void schedulePeriodicCheck() {
+    s_executorService.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        checkSequence();
+      }
+    }, CHECK_INTERVAL_IN_MILLIS, CHECK_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  void checkSequence() {
+    try {
+      if (readSequence() != m_loadedSequence) {
+        trySync();
+      }
+    } catch (Throwable ex) {
+      //the agent might not publish the namespace yet
+      logger.debug("Check agent config sequence of {} failed, reason: {}", m_namespace,
+          ExceptionUtil.getDetailMessage(ex));
+    }
+  }
+
+  @Override
+  protected synchronized void sync() {
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "syncAgentConfig");
+    try {
+      // read the sequence first, so a snapshot published later is loaded again in the next check
+      long sequence = readSequence();
+      if (sequence == m_loadedSequence && m_properties != null) {
+        transaction.setStatus(Transaction.SUCCESS);
+        return;
+      }
+      Properties properties = LocalCacheSnapshot.read(m_snapshotFile, propertiesFactory.getPropertiesInstance());
+      Properties previous = m_properties;
+      m_properties = properties;
+      m_loadedSequence = sequence;
+      transaction.setStatus(Transaction.SUCCESS);
+
+      if (!properties.equals(previous)) {
+        this.fireRepositoryChange(m_namespace, this.getConfig());
+      }
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      throw new ApolloConfigException(String.format("Load config of namespace %s from agent snapshot %s failed",
+          m_namespace, m_snapshotFile.getAbsolutePath()), ex);
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private long readSequence() throws IOException {
+    MappedByteBuffer sequence = m_sequence;
+    if (sequence == null) {
+      RandomAccessFile file = new RandomAccessFile(m_sequenceFile, "r");
+      try {
+        sequence = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, AgentConfigPublisher.SEQUENCE_LENGTH);
+      } finally {
+        // the mapping stays valid after the file is closed
+        file.close();
+      }
+      m_sequence = sequence;
+    }
+    return sequence.getLong(0);
+  }
+}
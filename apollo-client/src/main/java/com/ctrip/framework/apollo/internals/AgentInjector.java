@@ -0,0 +1,54 @@
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Strings;
+
+/**
+ * The injector of an app served by the {@link ConfigAgent}, which provides the config util of the app and delegates
+ * the others to {@link DefaultInjector}.
+ *
+ * <p>It's only registered in the class loader created by the config agent for the app, see {@link
+ * ConfigAgent#serve(String, String, java.util.Collection)}.</p>
+ */
+public class AgentInjector implements Injector {
+  private static volatile String s_appId;
+  private static volatile String s_cluster;
+  private final Injector m_delegate = new DefaultInjector();
+  private final ConfigUtil m_configUtil = new AgentAppConfigUtil();
+
+  static void configure(String appId, String cluster) {
+    s_appId = appId;
+    s_cluster = cluster;
+  }
+
+  @Override
+  public <T> T getInstance(Class<T> clazz) {
+    if (clazz == ConfigUtil.class) {
+      return clazz.cast(m_configUtil);
+    }
+    return m_delegate.getInstance(clazz);
+  }
+
+  @Override
+  public <T> T getInstance(Class<T> clazz, String name) {
+    return m_delegate.getInstance(clazz, name);
+  }
+
+  private static class AgentAppConfigUtil extends ConfigUtil {
+    @Override
+    public String getAppId() {
+      return s_appId;
+    }
+
+    @Override
+    public String getCluster() {
+      return Strings.isNullOrEmpty(s_cluster) ? super.getCluster() : s_cluster;
+    }
+
+    @Override
+    public String getLocalAgentDir() {
+      // the agent itself loads the configs from the config service
+      return null;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The config agent of a host, which loads the configs of several apps from the config service and publishes them to
+ * the agent directory by {@link AgentConfigPublisher}, so the processes on the host with apollo.localAgent.dir set
+ * load them by {@link AgentConfigRepository} instead of each connecting to the config service.
+ *
+ * <p>The client resolves the app id and cluster by process wide singletons, i.e. the {@link ConfigUtil} provided by
+ * {@link ApolloInjector}, so each app is served by a copy of the client classes loaded by a class loader of its own,
+ * in which {@link AgentInjector} provides the config util of the app.</p>
+ *
+ * <p>Usage: {@code java -cp <classpath of apollo-client> com.ctrip.framework.apollo.internals.ConfigAgent <agentDir>
+ * <appId>[+<cluster>]:<namespace>[,<namespace>...] ...}</p>
+ */
+public class ConfigAgent {
+  private static final Logger logger = LoggerFactory.getLogger(ConfigAgent.class);
+  private static final String INJECTOR_SERVICE_FILE = "META-INF/services/" + Injector.class.getName();
+  private static final Splitter APP_SPLITTER = Splitter.on(':').trimResults().limit(2);
+  private static final Splitter CLUSTER_SPLITTER = Splitter.on('+').trimResults().limit(2);
+  private static final Splitter NAMESPACE_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+  private final File m_agentDir;
+  private final URL[] m_classpath;
+  private final Set<String> m_servedApps = Sets.newHashSet();
+
+  /**
+   * @param agentDir the directory to publish the configs to
+   */
+  public ConfigAgent(File agentDir) {
+    this(agentDir, defaultClasspath());
+  }
+
+  ConfigAgent(File agentDir, URL[] classpath) {
+    m_agentDir = agentDir;
+    m_classpath = classpath;
+  }
+
+  /**
+   * Load the configs of the namespaces of the app from the config service, and publish them and their later changes
+   * to the agent directory.
+   *
+   * @param appId      the app id
+   * @param cluster    the cluster, or null to use the cluster of the host
+   * @param namespaces the namespaces to publish
+   */
+  public synchronized void serve(String appId, String cluster, Collection<String> namespaces) {
+    if (!m_servedApps.add(appId + "+" + cluster)) {
+      throw new IllegalArgumentException(String.format("App %s of cluster %s is already served", appId, cluster));
+    }
+
+    Thread thread = Thread.currentThread();
+    ClassLoader previousClassLoader = thread.getContextClassLoader();
+    try {
+      ClassLoader classLoader = createAppClassLoader(appId);
+      // the spi and the app properties are loaded by the context class loader, which the client threads inherit
+      thread.setContextClassLoader(classLoader);
+      Method serveApp = classLoader.loadClass(ConfigAgent.class.getName())
+          .getDeclaredMethod("serveApp", String.class, String.class, String.class, String[].class);
+      serveApp.setAccessible(true);
+      serveApp.invoke(null, m_agentDir.getAbsolutePath(), appId, cluster,
+          namespaces.toArray(new String[namespaces.size()]));
+    } catch (InvocationTargetException ex) {
+      m_servedApps.remove(appId + "+" + cluster);
+      throw new ApolloConfigException(String.format("Serve configs of app %s failed", appId), ex.getCause());
+    } catch (Throwable ex) {
+      m_servedApps.remove(appId + "+" + cluster);
+      throw new ApolloConfigException(String.format("Serve configs of app %s failed", appId), ex);
+    } finally {
+      thread.setContextClassLoader(previousClassLoader);
+    }
+  }
+
+  /**
+   * Runs in the class loader of the app
+   */
+  private static void serveApp(String agentDir, String appId, String cluster, String[] namespaces) {
+    AgentInjector.configure(appId, cluster);
+    ConfigUtil configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    AgentConfigPublisher publisher = new AgentConfigPublisher(new File(agentDir), configUtil.getAppId(),
+        configUtil.getCluster());
+    for (String namespace : namespaces) {
+      // the local cache keeps the agent serving the configs if it's restarted while the config service is down
+      publisher.register(namespace, new LocalFileConfigRepository(namespace, new RemoteConfigRepository(namespace)));
+      logger.info("Serving configs of app {}, cluster {}, namespace {}", configUtil.getAppId(),
+          configUtil.getCluster(), namespace);
+    }
+  }
+
+  private ClassLoader createAppClassLoader(String appId) throws IOException {
+    File appDir = Files.createTempDir();
+    File injectorServiceFile = new File(appDir, INJECTOR_SERVICE_FILE);
+    appDir.deleteOnExit();
+    injectorServiceFile.getParentFile().getParentFile().deleteOnExit();
+    injectorServiceFile.getParentFile().deleteOnExit();
+    injectorServiceFile.deleteOnExit();
+    Files.createParentDirs(injectorServiceFile);
+    Files.write(AgentInjector.class.getName(), injectorServiceFile, Charsets.UTF_8);
+
+    // the app dir goes first, so its injector is loaded instead of the default one
+    URL[] urls = new URL[m_classpath.length + 1];
+    urls[0] = appDir.toURI().toURL();
+    System.arraycopy(m_classpath, 0, urls, 1, m_classpath.length);
+    logger.debug("Created class loader of app {} with {}", appId, appDir.getAbsolutePath());
+    return new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+  }
+
+  private static URL[] defaultClasspath() {
+    List<URL> urls = Lists.newArrayList();
+    for (String path : Splitter.on(File.pathSeparatorChar).omitEmptyStrings()
+        .split(System.getProperty("java.class.path"))) {
+      try {
+        urls.add(new File(path).toURI().toURL());
+      } catch (MalformedURLException ex) {
+        throw new IllegalArgumentException(String.format("Invalid classpath %s", path), ex);
+      }
+    }
+    return urls.toArray(new URL[urls.size()]);
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 2) {
+      System.err.println("Usage: ConfigAgent <agentDir> <appId>[+<cluster>]:<namespace>[,<namespace>...] ...");
+      System.exit(1);
+    }
+    ConfigAgent agent = new ConfigAgent(new File(args[0]));
+    for (int i = 1; i < args.length; i++) {
+      List<String> app = APP_SPLITTER.splitToList(args[i]);
+      if (app.size() != 2) {
+        throw new IllegalArgumentException(String.format("Invalid app %s", args[i]));
+      }
+      List<String> appIdAndCluster = CLUSTER_SPLITTER.splitToList(app.get(0));
+      String cluster = appIdAndCluster.size() > 1 ? appIdAndCluster.get(1) : null;
+      agent.serve(appIdAndCluster.get(0), cluster, NAMESPACE_SPLITTER.splitToList(app.get(1)));
+    }
+    // the client threads are daemon threads
+    new CountDownLatch(1).await();
+  }
+}
@@ -0,0 +1,140 @@
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes the change listeners by their interested keys and key prefixes, so the listeners interested in the changed
+ * keys could be found by looking up each changed key once, instead of matching every listener against every changed
+ * key.
+ *
+ * <p>The index is immutable, it should be rebuilt when the listeners change.</p>
+ */
+class ConfigChangeListenerIndex {
+  static final ConfigChangeListenerIndex EMPTY = new ConfigChangeListenerIndex(
+      Collections.<ConfigChangeListener>emptyList(), Collections.<ConfigChangeListener, Set<String>>emptyMap(),
+      Collections.<ConfigChangeListener, Set<String>>emptyMap());
+
+  private final List<ConfigChangeListener> m_listeners;
+  private final List<ConfigChangeListener> m_listenersInterestedInAllKeys;
+  private final Map<String, List<ConfigChangeListener>> m_keyIndex;
+  private final PrefixNode m_prefixIndex;
+
+  /**
+   * @param listeners             all the listeners in the order they are added
+   * @param interestedKeys        the interested keys of the listeners
+   * @param interestedKeyPrefixes the interested key prefixes of the listeners
+   */
+  ConfigChangeListenerIndex(List<ConfigChangeListener> listeners,
+                            Map<ConfigChangeListener, Set<String>> interestedKeys,
+                            Map<ConfigChangeListener, Set<String>> interestedKeyPrefixes) {
+    m_listeners = ImmutableList.copyOf(listeners);
+    m_keyIndex = Maps.newHashMap();
+    m_prefixIndex = new PrefixNode();
+    List<ConfigChangeListener> listenersInterestedInAllKeys = Lists.newArrayList();
+
+    for (ConfigChangeListener listener : m_listeners) {
+      Set<String> keys = interestedKeys.get(listener);
+      Set<String> prefixes = interestedKeyPrefixes.get(listener);
+
+      // no interested keys means interested in all keys
+      if ((keys == null || keys.isEmpty()) && (prefixes == null || prefixes.isEmpty())) {
+        listenersInterestedInAllKeys.add(listener);
+        continue;
+      }
+
+      if (keys != null) {
+        for (String key : keys) {
+          List<ConfigChangeListener> keyListeners = m_keyIndex.get(key);
+          if (keyListeners == null) {
+            keyListeners = Lists.newArrayList();
+            m_keyIndex.put(key, keyListeners);
+          }
+          keyListeners.add(listener);
+        }
+      }
+
+      if (prefixes != null) {
+        for (String prefix : prefixes) {
+          m_prefixIndex.put(prefix, listener);
+        }
+      }
+    }
+
+    m_listenersInterestedInAllKeys = ImmutableList.copyOf(listenersInterestedInAllKeys);
+  }
+
+  /**
+   * @return the listeners interested in any of the changed keys, in the order they are added
+   */
+  List<ConfigChangeListener> findInterestedListeners(Set<String> changedKeys) {
+    if (m_listenersInterestedInAllKeys.size() == m_listeners.size()) {
+      return m_listeners;
+    }
+
+    Set<ConfigChangeListener> interested = Sets.newHashSet(m_listenersInterestedInAllKeys);
+    for (String changedKey : changedKeys) {
+      List<ConfigChangeListener> keyListeners = m_keyIndex.get(changedKey);
+      if (keyListeners != null) {
+        interested.addAll(keyListeners);
+      }
+      m_prefixIndex.collect(changedKey, interested);
+    }
+
+    if (interested.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<ConfigChangeListener> result = Lists.newArrayListWithCapacity(interested.size());
+    for (ConfigChangeListener listener : m_listeners) {
+      if (interested.contains(listener)) {
+        result.add(listener);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * A trie node of the key prefixes, holding the listeners whose prefix ends here
+   */
+  private static class PrefixNode {
+    private final Map<Character, PrefixNode> m_children = Maps.newHashMap();
+    private final List<ConfigChangeListener> m_listeners = Lists.newArrayList();
+
+    void put(String prefix, ConfigChangeListener listener) {
+      PrefixNode node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        char c = prefix.charAt(i);
+        PrefixNode child = node.m_children.get(c);
+        if (child == null) {
+          child = new PrefixNode();
+          node.m_children.put(c, child);
+        }
+        node = child;
+      }
+      node.m_listeners.add(listener);
+    }
+
+    /**
+     * collect the listeners of all the prefixes of the key
+     */
+    void collect(String key, Set<ConfigChangeListener> result) {
+      PrefixNode node = this;
+      result.addAll(node.m_listeners);
+      for (int i = 0; i < key.length() && !node.m_children.isEmpty(); i++) {
+        node = node.m_children.get(key.charAt(i));
+        if (node == null) {
+          return;
+        }
+        result.addAll(node.m_listeners);
+      }
+    }
+  }
+}
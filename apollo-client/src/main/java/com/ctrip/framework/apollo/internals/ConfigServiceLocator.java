@@ -3,10 +3,13 @@ package com.ctrip.framework.apollo.internals;
 import com.ctrip.framework.apollo.core.ServiceNameConsts;
 import com.ctrip.framework.foundation.Foundation;
 import java.lang.reflect.Type;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -16,6 +19,7 @@ import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.ctrip.framework.apollo.util.ConfigUtil;
@@ -40,6 +44,13 @@ public class ConfigServiceLocator {
   private ScheduledExecutorService m_executorService;
   private static final Joiner.MapJoiner MAP_JOINER = Joiner.on("&").withKeyValueSeparator("=");
   private static final Escaper queryParamEscaper = UrlEscapers.urlFormParameterEscaper();
+  private static final double EWMA_WEIGHT = 0.3;
+  // an error costs as much as a slow response near the read timeout
+  private static final long ERROR_PENALTY_IN_MILLIS = 5000;
+  private static final long STATS_EXPIRE_TIME_IN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+  private static final long DEFAULT_HEDGE_DELAY_IN_MILLIS = 1000;
+  private static final long MIN_HEDGE_DELAY_IN_MILLIS = 50;
+  private final ConcurrentMap<String, ServiceStats> m_serviceStats = Maps.newConcurrentMap();
 
   /**
    * Create a config service locator.
@@ -117,6 +128,65 @@ public class ConfigServiceLocator {
     return m_configServices.get();
   }
 
+  /**
+   * Shuffle the config services and then put the better one of the first two at the head, i.e. the power of two
+   * choices, so the slow or failing config services are avoided while the load is still balanced.
+   *
+   * @param services the config services to sort in the order they should be accessed
+   */
+  public void sortInPreferredOrder(List<ServiceDTO> services) {
+    Collections.shuffle(services);
+    if (services.size() > 1 && score(services.get(1)) < score(services.get(0))) {
+      Collections.swap(services, 0, 1);
+    }
+  }
+
+  /**
+   * Record the latency of a successful access to the config service
+   */
+  public void onAccessSucceeded(ServiceDTO service, long latencyInMillis) {
+    statsOf(service).onSuccess(latencyInMillis, System.currentTimeMillis());
+  }
+
+  /**
+   * Record a failed access to the config service, the status codes other than 5xx, e.g. 404, are not counted as the
+   * failures of the config service
+   */
+  public void onAccessFailed(ServiceDTO service, Throwable ex) {
+    if (ex instanceof ApolloConfigStatusCodeException
+        && ((ApolloConfigStatusCodeException) ex).getStatusCode() < 500) {
+      return;
+    }
+    statsOf(service).onFailure(System.currentTimeMillis());
+  }
+
+  /**
+   * The delay before sending the same request to another config service, which is estimated as the 95th percentile
+   * of the latencies of the config service, i.e. the average plus twice the deviation
+   */
+  public long getHedgeDelayInMillis(ServiceDTO service) {
+    ServiceStats stats = m_serviceStats.get(service.getHomepageUrl());
+    if (stats == null) {
+      return DEFAULT_HEDGE_DELAY_IN_MILLIS;
+    }
+    return stats.hedgeDelay(System.currentTimeMillis());
+  }
+
+  private double score(ServiceDTO service) {
+    ServiceStats stats = m_serviceStats.get(service.getHomepageUrl());
+    // the services never accessed are preferred, so they are explored
+    return stats == null ? 0 : stats.score(System.currentTimeMillis());
+  }
+
+  private ServiceStats statsOf(ServiceDTO service) {
+    ServiceStats stats = m_serviceStats.get(service.getHomepageUrl());
+    if (stats == null) {
+      m_serviceStats.putIfAbsent(service.getHomepageUrl(), new ServiceStats());
+      stats = m_serviceStats.get(service.getHomepageUrl());
+    }
+    return stats;
+  }
+
   private boolean tryUpdateConfigServices() {
     try {
       updateConfigServices();
@@ -207,4 +277,59 @@ public class ConfigServiceLocator {
   private void logConfigService(String serviceUrl) {
     Tracer.logEvent("Apollo.Config.Services", serviceUrl);
   }
+
+  /**
+   * The exponentially weighted moving averages of the latency and the error rate of a config service, which expire
+   * if not updated for a while, so the services avoided before could be accessed again
+   */
+  private static class ServiceStats {
+    private double m_latency;
+    private double m_latencyDeviation;
+    private double m_errorRate;
+    private boolean m_latencySampled;
+    private long m_lastUpdateTime;
+
+    synchronized void onSuccess(long latency, long now) {
+      expireIfNecessary(now);
+      if (!m_latencySampled) {
+        m_latency = latency;
+        m_latencyDeviation = latency / 2.0;
+        m_latencySampled = true;
+      } else {
+        m_latencyDeviation += EWMA_WEIGHT * (Math.abs(latency - m_latency) - m_latencyDeviation);
+        m_latency += EWMA_WEIGHT * (latency - m_latency);
+      }
+      m_errorRate += EWMA_WEIGHT * (0 - m_errorRate);
+      m_lastUpdateTime = now;
+    }
+
+    synchronized void onFailure(long now) {
+      expireIfNecessary(now);
+      m_errorRate += EWMA_WEIGHT * (1 - m_errorRate);
+      m_lastUpdateTime = now;
+    }
+
+    synchronized double score(long now) {
+      expireIfNecessary(now);
+      return m_latency + ERROR_PENALTY_IN_MILLIS * m_errorRate;
+    }
+
+    synchronized long hedgeDelay(long now) {
+      expireIfNecessary(now);
+      if (!m_latencySampled) {
+        return DEFAULT_HEDGE_DELAY_IN_MILLIS;
+      }
+      return Math.max(MIN_HEDGE_DELAY_IN_MILLIS, (long) (m_latency + 2 * m_latencyDeviation));
+    }
+
+    private void expireIfNecessary(long now) {
+      if (now - m_lastUpdateTime <= STATS_EXPIRE_TIME_IN_MILLIS) {
+        return;
+      }
+      m_latency = 0;
+      m_latencyDeviation = 0;
+      m_errorRate = 0;
+      m_latencySampled = false;
+    }
+  }
 }
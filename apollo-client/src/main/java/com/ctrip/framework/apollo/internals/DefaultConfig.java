@@ -22,6 +22,7 @@ import com.ctrip.framework.apollo.model.ConfigChangeEvent;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.util.ExceptionUtil;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.RateLimiter;
 
 
@@ -33,6 +34,10 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
   private final String m_namespace;
   private final Properties m_resourceProperties;
   private final AtomicReference<Properties> m_configProperties;
+  //the resource properties with the env variables resolved, which never change after the config is created
+  private final Map<String, String> m_resourceSnapshot;
+  //the effective view of the config properties, env variables and resource properties, see getProperty
+  private volatile Map<String, String> m_propertiesSnapshot;
   private final ConfigRepository m_configRepository;
   private final RateLimiter m_warnLogRateLimiter;
 
@@ -49,6 +54,8 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
     m_resourceProperties = loadFromResource(m_namespace);
     m_configRepository = configRepository;
     m_configProperties = new AtomicReference<>();
+    m_resourceSnapshot = buildResourceSnapshot(m_resourceProperties);
+    m_propertiesSnapshot = m_resourceSnapshot;
     m_warnLogRateLimiter = RateLimiter.create(0.017); // 1 warning log output per minute
     initialize();
   }
@@ -72,9 +79,9 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
     // step 1: check system properties, i.e. -Dkey=value
     String value = System.getProperty(key);
 
-    // step 2: check local cached properties file
-    if (value == null && m_configProperties.get() != null) {
-      value = m_configProperties.get().getProperty(key);
+    // step 2: check local cached properties file, then env variable and properties file from classpath
+    if (value == null) {
+      value = m_propertiesSnapshot.get(key);
     }
 
     /**
@@ -86,11 +93,6 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
       value = System.getenv(key);
     }
 
-    // step 4: check properties file from classpath
-    if (value == null && m_resourceProperties != null) {
-      value = (String) m_resourceProperties.getProperty(key);
-    }
-
     if (value == null && m_configProperties.get() == null && m_warnLogRateLimiter.tryAcquire()) {
       logger.warn("Could not load config for namespace {} from Apollo, please check whether the configs are released in Apollo! Return default value now!", m_namespace);
     }
@@ -149,10 +151,44 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
   }
 
   private void updateConfig(Properties newConfigProperties, ConfigSourceType sourceType) {
+    m_propertiesSnapshot = buildPropertiesSnapshot(newConfigProperties);
     m_configProperties.set(newConfigProperties);
     m_sourceType = sourceType;
   }
 
+  /**
+   * The snapshot is rebuilt whenever the config properties change, so getProperty only needs one lookup without
+   * locking instead of querying the synchronized properties one by one.
+   *
+   * <p>Env variables don't change at runtime, so they are resolved for the resource properties in advance and the
+   * keys only in env variables are still queried in getProperty. System properties might be changed at runtime, thus
+   * they are never included.</p>
+   */
+  private Map<String, String> buildPropertiesSnapshot(Properties configProperties) {
+    if (configProperties == null) {
+      return m_resourceSnapshot;
+    }
+    Map<String, String> snapshot = Maps.newHashMap(m_resourceSnapshot);
+    for (Map.Entry<Object, Object> entry : configProperties.entrySet()) {
+      if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+        snapshot.put((String) entry.getKey(), (String) entry.getValue());
+      }
+    }
+    return ImmutableMap.copyOf(snapshot);
+  }
+
+  private Map<String, String> buildResourceSnapshot(Properties resourceProperties) {
+    if (resourceProperties == null) {
+      return Collections.emptyMap();
+    }
+    ImmutableMap.Builder<String, String> snapshot = ImmutableMap.builder();
+    for (String key : resourceProperties.stringPropertyNames()) {
+      String value = System.getenv(key);
+      snapshot.put(key, value != null ? value : resourceProperties.getProperty(key));
+    }
+    return snapshot.build();
+  }
+
   private Map<String, ConfigChange> updateAndCalcConfigChanges(Properties newConfigProperties,
       ConfigSourceType sourceType) {
     List<ConfigChange> configChanges =
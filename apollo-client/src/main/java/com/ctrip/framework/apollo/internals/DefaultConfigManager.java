@@ -1,6 +1,8 @@
 package com.ctrip.framework.apollo.internals;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigFile;
@@ -8,19 +10,30 @@ import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.spi.ConfigFactory;
 import com.ctrip.framework.apollo.spi.ConfigFactoryManager;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
  */
 public class DefaultConfigManager implements ConfigManager {
   private ConfigFactoryManager m_factoryManager;
+  private ConfigUtil m_configUtil;
 
   private Map<String, Config> m_configs = Maps.newConcurrentMap();
   private Map<String, ConfigFile> m_configFiles = Maps.newConcurrentMap();
+  /**
+   * one lock per namespace, so creating a namespace, which might be blocked by the initial remote sync, does not
+   * block the creation of the other namespaces
+   */
+  private final ConcurrentMap<String, Object> m_locks = Maps.newConcurrentMap();
 
   public DefaultConfigManager() {
     m_factoryManager = ApolloInjector.getInstance(ConfigFactoryManager.class);
+    m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
   }
 
   @Override
@@ -28,13 +41,15 @@ public class DefaultConfigManager implements ConfigManager {
     Config config = m_configs.get(namespace);
 
     if (config == null) {
-      synchronized (this) {
+      synchronized (lockOf(namespace)) {
         config = m_configs.get(namespace);
 
         if (config == null) {
-          ConfigFactory factory = m_factoryManager.getFactory(namespace);
-
-          config = factory.create(namespace);
+          if (m_configUtil.isLazyNamespaceActivationEnabled()) {
+            config = createLazyConfig(namespace);
+          } else {
+            config = createConfig(namespace);
+          }
           m_configs.put(namespace, config);
         }
       }
@@ -43,13 +58,42 @@ public class DefaultConfigManager implements ConfigManager {
     return config;
   }
 
+  /**
+   * @return the namespaces whose configs are created lazily and never accessed
+   */
+  public Set<String> getInactiveNamespaces() {
+    Set<String> namespaces = Sets.newLinkedHashSet();
+    for (Map.Entry<String, Config> entry : m_configs.entrySet()) {
+      if (entry.getValue() instanceof LazyConfig && !((LazyConfig) entry.getValue()).isActivated()) {
+        namespaces.add(entry.getKey());
+      }
+    }
+    return namespaces;
+  }
+
+  private Config createConfig(String namespace) {
+    ConfigFactory factory = m_factoryManager.getFactory(namespace);
+
+    return factory.create(namespace);
+  }
+
+  private Config createLazyConfig(final String namespace) {
+    Tracer.logEvent("Apollo.Client.LazyNamespace", namespace);
+    return new LazyConfig(namespace, new Supplier<Config>() {
+      @Override
+      public Config get() {
+        return createConfig(namespace);
+      }
+    });
+  }
+
   @Override
   public ConfigFile getConfigFile(String namespace, ConfigFileFormat configFileFormat) {
     String namespaceFileName = String.format("%s.%s", namespace, configFileFormat.getValue());
     ConfigFile configFile = m_configFiles.get(namespaceFileName);
 
     if (configFile == null) {
-      synchronized (this) {
+      synchronized (lockOf(namespaceFileName)) {
         configFile = m_configFiles.get(namespaceFileName);
 
         if (configFile == null) {
@@ -63,4 +107,13 @@ public class DefaultConfigManager implements ConfigManager {
 
     return configFile;
   }
+
+  private Object lockOf(String name) {
+    Object lock = m_locks.get(name);
+    if (lock == null) {
+      m_locks.putIfAbsent(name, new Object());
+      lock = m_locks.get(name);
+    }
+    return lock;
+  }
 }
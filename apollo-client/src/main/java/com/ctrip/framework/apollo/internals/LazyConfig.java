@@ -0,0 +1,213 @@
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The placeholder of a config which is only created on the first property access, so the namespaces never accessed
+ * are neither loaded nor long polled.
+ *
+ * <p>The change listeners added before the activation are kept and added to the actual config once it's created,
+ * thus adding listeners does not activate the config.</p>
+ *
+ * <p>Any property lookup, including the property names, activates the config. Spring looks up its own properties in
+ * every property source while refreshing the context, so the namespaces of {@code @EnableApolloConfig} are activated
+ * on refresh, while the ones only injected by {@code @ApolloConfig} or listened by
+ * {@code @ApolloConfigChangeListener} are activated on the first access.</p>
+ */
+class LazyConfig implements Config {
+  private final String m_namespace;
+  private final Supplier<Config> m_configSupplier;
+  private final List<ListenerRegistration> m_pendingListeners = Lists.newArrayList();
+  private volatile Config m_delegate;
+
+  LazyConfig(String namespace, Supplier<Config> configSupplier) {
+    m_namespace = namespace;
+    m_configSupplier = configSupplier;
+  }
+
+  boolean isActivated() {
+    return m_delegate != null;
+  }
+
+  private Config delegate() {
+    Config delegate = m_delegate;
+    if (delegate == null) {
+      synchronized (this) {
+        delegate = m_delegate;
+        if (delegate == null) {
+          delegate = m_configSupplier.get();
+          for (ListenerRegistration registration : m_pendingListeners) {
+            registration.register(delegate);
+          }
+          m_pendingListeners.clear();
+          m_delegate = delegate;
+          Tracer.logEvent("Apollo.Client.LazyNamespace.Activated", m_namespace);
+        }
+      }
+    }
+    return delegate;
+  }
+
+  @Override
+  public String getProperty(String key, String defaultValue) {
+    return delegate().getProperty(key, defaultValue);
+  }
+
+  @Override
+  public Integer getIntProperty(String key, Integer defaultValue) {
+    return delegate().getIntProperty(key, defaultValue);
+  }
+
+  @Override
+  public Long getLongProperty(String key, Long defaultValue) {
+    return delegate().getLongProperty(key, defaultValue);
+  }
+
+  @Override
+  public Short getShortProperty(String key, Short defaultValue) {
+    return delegate().getShortProperty(key, defaultValue);
+  }
+
+  @Override
+  public Float getFloatProperty(String key, Float defaultValue) {
+    return delegate().getFloatProperty(key, defaultValue);
+  }
+
+  @Override
+  public Double getDoubleProperty(String key, Double defaultValue) {
+    return delegate().getDoubleProperty(key, defaultValue);
+  }
+
+  @Override
+  public Byte getByteProperty(String key, Byte defaultValue) {
+    return delegate().getByteProperty(key, defaultValue);
+  }
+
+  @Override
+  public Boolean getBooleanProperty(String key, Boolean defaultValue) {
+    return delegate().getBooleanProperty(key, defaultValue);
+  }
+
+  @Override
+  public String[] getArrayProperty(String key, String delimiter, String[] defaultValue) {
+    return delegate().getArrayProperty(key, delimiter, defaultValue);
+  }
+
+  @Override
+  public Date getDateProperty(String key, Date defaultValue) {
+    return delegate().getDateProperty(key, defaultValue);
+  }
+
+  @Override
+  public Date getDateProperty(String key, String format, Date defaultValue) {
+    return delegate().getDateProperty(key, format, defaultValue);
+  }
+
+  @Override
+  public Date getDateProperty(String key, String format, Locale locale, Date defaultValue) {
+    return delegate().getDateProperty(key, format, locale, defaultValue);
+  }
+
+  @Override
+  public <T extends Enum<T>> T getEnumProperty(String key, Class<T> enumType, T defaultValue) {
+    return delegate().getEnumProperty(key, enumType, defaultValue);
+  }
+
+  @Override
+  public long getDurationProperty(String key, long defaultValue) {
+    return delegate().getDurationProperty(key, defaultValue);
+  }
+
+  @Override
+  public void addChangeListener(ConfigChangeListener listener) {
+    addChangeListener(listener, null, null);
+  }
+
+  @Override
+  public void addChangeListener(ConfigChangeListener listener, Set<String> interestedKeys) {
+    addChangeListener(listener, interestedKeys, null);
+  }
+
+  @Override
+  public void addChangeListener(ConfigChangeListener listener, Set<String> interestedKeys,
+      Set<String> interestedKeyPrefixes) {
+    ListenerRegistration registration = new ListenerRegistration(listener, interestedKeys, interestedKeyPrefixes);
+    if (m_delegate == null) {
+      synchronized (this) {
+        if (m_delegate == null) {
+          m_pendingListeners.add(registration);
+          return;
+        }
+      }
+    }
+    registration.register(m_delegate);
+  }
+
+  @Override
+  public boolean removeChangeListener(ConfigChangeListener listener) {
+    if (m_delegate == null) {
+      synchronized (this) {
+        if (m_delegate == null) {
+          boolean removed = false;
+          for (Iterator<ListenerRegistration> iterator = m_pendingListeners.iterator(); iterator.hasNext(); ) {
+            if (iterator.next().listener == listener) {
+              iterator.remove();
+              removed = true;
+            }
+          }
+          return removed;
+        }
+      }
+    }
+    return m_delegate.removeChangeListener(listener);
+  }
+
+  @Override
+  public Set<String> getPropertyNames() {
+    return delegate().getPropertyNames();
+  }
+
+  @Override
+  public <T> T getProperty(String key, Function<String, T> function, T defaultValue) {
+    return delegate().getProperty(key, function, defaultValue);
+  }
+
+  @Override
+  public ConfigSourceType getSourceType() {
+    return delegate().getSourceType();
+  }
+
+  private static class ListenerRegistration {
+    private final ConfigChangeListener listener;
+    private final Set<String> interestedKeys;
+    private final Set<String> interestedKeyPrefixes;
+
+    ListenerRegistration(ConfigChangeListener listener, Set<String> interestedKeys,
+        Set<String> interestedKeyPrefixes) {
+      this.listener = listener;
+      this.interestedKeys = interestedKeys;
+      this.interestedKeyPrefixes = interestedKeyPrefixes;
+    }
+
+    void register(Config config) {
+      if (interestedKeys == null && interestedKeyPrefixes == null) {
+        config.addChangeListener(listener);
+      } else if (interestedKeyPrefixes == null) {
+        config.addChangeListener(listener, interestedKeys);
+      } else {
+        config.addChangeListener(listener, interestedKeys, interestedKeyPrefixes);
+      }
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.ctrip.framework.apollo.internals;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The binary snapshot of a local cache file, which is much faster to load than the properties file.
+ *
+ * <p>The format is: magic (int), version (byte), entry count (int), then the length prefixed UTF-8 key and value
+ * of each entry, followed by the CRC32 checksum (long) of all the preceding bytes.</p>
+ */
+final class LocalCacheSnapshot {
+  private static final int MAGIC = 0x41504C53;
+  private static final byte VERSION = 1;
+  private static final int HEADER_LENGTH = 4 + 1 + 4;
+  private static final int CHECKSUM_LENGTH = 8;
+
+  private LocalCacheSnapshot() {
+  }
+
+  /**
+   * Write the snapshot to a temporary file and then move it to the file atomically, so the readers never see a
+   * partially written snapshot.
+   *
+   * <p>The entries are written in the iteration order of the properties, so the order of the ordered properties is
+   * kept.</p>
+   */
+  static void write(File file, Properties properties) throws IOException {
+    List<String> keys = new ArrayList<>(properties.size());
+    for (Object key : properties.keySet()) {
+      if (key instanceof String && properties.getProperty((String) key) != null) {
+        keys.add((String) key);
+      }
+    }
+
+    File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+    boolean moved = false;
+    try {
+      FileOutputStream fileOut = new FileOutputStream(tmpFile);
+      try {
+        CheckedOutputStream checkedOut = new CheckedOutputStream(new BufferedOutputStream(fileOut), new CRC32());
+        DataOutputStream out = new DataOutputStream(checkedOut);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(keys.size());
+        for (String key : keys) {
+          writeString(out, key);
+          writeString(out, properties.getProperty(key));
+        }
+        out.writeLong(checkedOut.getChecksum().getValue());
+        out.flush();
+        fileOut.getFD().sync();
+      } finally {
+        fileOut.close();
+      }
+
+      try {
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      moved = true;
+    } finally {
+      if (!moved) {
+        Files.deleteIfExists(tmpFile.toPath());
+      }
+    }
+  }
+
+  /**
+   * Read the snapshot into the properties. The file is read into a heap buffer rather than memory mapped, so no
+   * mapping is left behind until the buffer is garbage collected, which would keep the file from being replaced on
+   * some platforms.
+   *
+   * @throws IOException if the file could not be read or is not a valid snapshot
+   */
+  static Properties read(File file, Properties properties) throws IOException {
+    long size = file.length();
+    if (size < HEADER_LENGTH + CHECKSUM_LENGTH || size > Integer.MAX_VALUE) {
+      throw new IOException(String.format("Invalid snapshot size %d", size));
+    }
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    if (bytes.length < HEADER_LENGTH + CHECKSUM_LENGTH) {
+      throw new IOException(String.format("Invalid snapshot size %d", bytes.length));
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+    int contentLength = bytes.length - CHECKSUM_LENGTH;
+    CRC32 crc32 = new CRC32();
+    crc32.update(bytes, 0, contentLength);
+    if (crc32.getValue() != buffer.getLong(contentLength)) {
+      throw new IOException("Snapshot checksum mismatch");
+    }
+
+    if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+      throw new IOException("Unsupported snapshot format");
+    }
+    int count = buffer.getInt();
+    for (int i = 0; i < count; i++) {
+      String key = readString(buffer, contentLength);
+      String value = readString(buffer, contentLength);
+      properties.setProperty(key, value);
+    }
+    return properties;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer, int limit) throws IOException {
+    if (limit - buffer.position() < 4) {
+      throw new IOException("Truncated snapshot");
+    }
+    int length = buffer.getInt();
+    if (length < 0 || length > limit - buffer.position()) {
+      throw new IOException(String.format("Invalid string length %d in snapshot", length));
+    }
+    String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+}
@@ -11,12 +11,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.core.utils.ClassLoaderUtil;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.tracer.Tracer;
@@ -33,6 +38,8 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     implements RepositoryChangeListener {
   private static final Logger logger = LoggerFactory.getLogger(LocalFileConfigRepository.class);
   private static final String CONFIG_DIR = "/config-cache";
+  private static final ExecutorService s_persistExecutorService = Executors.newSingleThreadExecutor(
+      ApolloThreadFactory.create("LocalFileConfigRepository", true));
   private final String m_namespace;
   private File m_baseDir;
   private final ConfigUtil m_configUtil;
@@ -40,6 +47,10 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
   private volatile ConfigRepository m_upstream;
 
   private volatile ConfigSourceType m_sourceType = ConfigSourceType.LOCAL;
+  /**
+   * the latest properties waiting to be persisted in the background, the earlier ones are skipped
+   */
+  private final AtomicReference<Properties> m_pendingPersistProperties = new AtomicReference<>();
 
   /**
    * Constructor.
@@ -177,13 +188,49 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
       return;
     }
     this.m_fileProperties = newProperties;
-    persistLocalCacheFile(m_baseDir, m_namespace);
+    if (m_configUtil.isBinaryLocalCacheEnabled()) {
+      schedulePersistLocalCacheFile(newProperties);
+    } else {
+      persistLocalCacheFile(m_baseDir, m_namespace);
+    }
+  }
+
+  /**
+   * Persist the local cache file and its binary snapshot in the background, so the notifying thread is not blocked
+   */
+  private void schedulePersistLocalCacheFile(Properties properties) {
+    if (m_pendingPersistProperties.getAndSet(properties) != null) {
+      // the pending persist task will persist the latest properties
+      return;
+    }
+    s_persistExecutorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        Properties pendingProperties = m_pendingPersistProperties.getAndSet(null);
+        if (pendingProperties == null) {
+          return;
+        }
+        // persist the binary snapshot last, so it's never older than the properties file
+        persistLocalCacheFile(m_baseDir, m_namespace, pendingProperties);
+        persistLocalCacheSnapshot(m_baseDir, m_namespace, pendingProperties);
+      }
+    });
   }
 
   private Properties loadFromLocalCacheFile(File baseDir, String namespace) throws IOException {
     Preconditions.checkNotNull(baseDir, "Basedir cannot be null");
 
+    if (m_configUtil.isBinaryLocalCacheEnabled()) {
+      Properties properties = loadFromLocalCacheSnapshot(baseDir, namespace);
+      if (properties != null) {
+        return properties;
+      }
+    }
+
     File file = assembleLocalCacheFile(baseDir, namespace);
+    if (!file.exists()) {
+      file = migrateLegacyLocalCacheFile(baseDir, namespace, file);
+    }
     Properties properties = null;
 
     if (file.isFile() && file.canRead()) {
@@ -215,7 +262,101 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     return properties;
   }
 
+  /**
+   * The namespaces requested as namespace.properties used to be cached in namespace.properties.properties, copy the
+   * legacy file to the current name, so the cached config is still available if the config service is down.
+   *
+   * @return the file to load the config from
+   */
+  private File migrateLegacyLocalCacheFile(File baseDir, String namespace, File file) {
+    File legacyFile = assembleLocalCacheFile(baseDir,
+        String.format("%s.%s", namespace, ConfigFileFormat.Properties.getValue()));
+    if (!legacyFile.isFile()) {
+      return file;
+    }
+    try {
+      Files.copy(legacyFile.toPath(), file.toPath());
+      logger.info("Migrated legacy local cache file {} to {}", legacyFile.getAbsolutePath(), file.getAbsolutePath());
+      return file;
+    } catch (IOException ex) {
+      Tracer.logError(ex);
+      logger.warn("Migrate legacy local cache file {} failed, reason: {}", legacyFile.getAbsolutePath(),
+          ExceptionUtil.getDetailMessage(ex));
+      return legacyFile;
+    }
+  }
+
+  /**
+   * @return the properties in the binary snapshot, or null if the snapshot is not available or is older than the
+   * local cache file, e.g. the file was persisted while the binary local cache was disabled
+   */
+  private Properties loadFromLocalCacheSnapshot(File baseDir, String namespace) {
+    File file = assembleLocalCacheSnapshotFile(baseDir, namespace);
+    if (!file.isFile() || !file.canRead()) {
+      return null;
+    }
+    File localCacheFile = assembleLocalCacheFile(baseDir, namespace);
+    if (localCacheFile.isFile() && localCacheFile.lastModified() > file.lastModified()) {
+      logger.debug("Local config snapshot {} is older than the local cache file, ignore it", file.getAbsolutePath());
+      return null;
+    }
+    try {
+      Properties properties = LocalCacheSnapshot.read(file, propertiesFactory.getPropertiesInstance());
+      logger.debug("Loading local config snapshot {} successfully!", file.getAbsolutePath());
+      return properties;
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+      logger.warn("Loading local config snapshot {} failed, will fall back to the local cache file, reason: {}",
+          file.getAbsolutePath(), ExceptionUtil.getDetailMessage(ex));
+    }
+    return null;
+  }
+
   void persistLocalCacheFile(File baseDir, String namespace) {
+    persistLocalCacheFile(baseDir, namespace, m_fileProperties);
+    // the snapshot is not updated along with the file, so it must not be loaded any more
+    deleteLocalCacheSnapshot(baseDir, namespace);
+  }
+
+  private void deleteLocalCacheSnapshot(File baseDir, String namespace) {
+    if (baseDir == null) {
+      return;
+    }
+    File file = assembleLocalCacheSnapshotFile(baseDir, namespace);
+    try {
+      Files.deleteIfExists(file.toPath());
+    } catch (IOException ex) {
+      Tracer.logError(ex);
+      logger.warn("Delete local cache snapshot {} failed, reason: {}.", file.getAbsolutePath(),
+          ExceptionUtil.getDetailMessage(ex));
+    }
+  }
+
+  private void persistLocalCacheSnapshot(File baseDir, String namespace, Properties properties) {
+    if (baseDir == null) {
+      return;
+    }
+    File file = assembleLocalCacheSnapshotFile(baseDir, namespace);
+
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "persistLocalConfigSnapshot");
+    transaction.addData("LocalConfigSnapshot", file.getAbsolutePath());
+    try {
+      LocalCacheSnapshot.write(file, properties);
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (IOException ex) {
+      ApolloConfigException exception =
+          new ApolloConfigException(
+              String.format("Persist local cache snapshot %s failed", file.getAbsolutePath()), ex);
+      Tracer.logError(exception);
+      transaction.setStatus(exception);
+      logger.warn("Persist local cache snapshot {} failed, reason: {}.", file.getAbsolutePath(),
+          ExceptionUtil.getDetailMessage(ex));
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private void persistLocalCacheFile(File baseDir, String namespace, Properties properties) {
     if (baseDir == null) {
       return;
     }
@@ -227,7 +368,7 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     transaction.addData("LocalConfigFile", file.getAbsolutePath());
     try {
       out = new FileOutputStream(file);
-      m_fileProperties.store(out, "Persisted by DefaultConfig");
+      properties.store(out, "Persisted by DefaultConfig");
       transaction.setStatus(Transaction.SUCCESS);
     } catch (IOException ex) {
       ApolloConfigException exception =
@@ -279,4 +420,11 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
             .join(m_configUtil.getAppId(), m_configUtil.getCluster(), namespace));
     return new File(baseDir, fileName);
   }
+
+  File assembleLocalCacheSnapshotFile(File baseDir, String namespace) {
+    String fileName =
+        String.format("%s.snapshot", Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
+            .join(m_configUtil.getAppId(), m_configUtil.getCluster(), namespace));
+    return new File(baseDir, fileName);
+  }
 }
@@ -0,0 +1,275 @@
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.Apollo;
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigQuery;
+import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.core.signature.Signature;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.core.utils.StringUtils;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.ctrip.framework.apollo.util.http.HttpRequest;
+import com.ctrip.framework.apollo.util.http.HttpResponse;
+import com.ctrip.framework.apollo.util.http.HttpUtil;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.escape.Escaper;
+import com.google.common.net.UrlEscapers;
+import com.google.common.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the configs of the namespaces notified by the same long polling response in one request, instead of one
+ * request per namespace.
+ *
+ * <p>The namespaces which could not be loaded in batch fall back to {@link
+ * RemoteConfigRepository#onLongPollNotified(ServiceDTO, ApolloNotificationMessages)}.</p>
+ *
+ * <p>It also refreshes all the namespaces periodically with one request, which only returns the changes of the stale
+ * namespaces, instead of each namespace loading its whole config periodically. The namespaces which could not be
+ * refreshed in batch fall back to syncing alone.</p>
+ */
+public class RemoteConfigBatchLoader {
+  private static final Logger logger = LoggerFactory.getLogger(RemoteConfigBatchLoader.class);
+  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+  private static final Joiner.MapJoiner MAP_JOINER = Joiner.on("&").withKeyValueSeparator("=");
+  private static final Escaper pathEscaper = UrlEscapers.urlPathSegmentEscaper();
+  private static final Escaper queryParamEscaper = UrlEscapers.urlFormParameterEscaper();
+  private final ScheduledExecutorService m_executorService;
+  private final Type m_responseType;
+  private final ConfigUtil m_configUtil;
+  private final HttpUtil m_httpUtil;
+  private final ConfigServiceLocator m_serviceLocator;
+  private final Set<RemoteConfigRepository> m_periodicRefreshRepositories;
+  private final AtomicBoolean m_periodicRefreshStarted;
+
+  /**
+   * Constructor.
+   */
+  public RemoteConfigBatchLoader() {
+    m_executorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("RemoteConfigBatchLoader", true));
+    m_responseType = new TypeToken<List<ApolloConfig>>() {
+    }.getType();
+    m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_httpUtil = ApolloInjector.getInstance(HttpUtil.class);
+    m_serviceLocator = ApolloInjector.getInstance(ConfigServiceLocator.class);
+    m_periodicRefreshRepositories = Sets.newConcurrentHashSet();
+    m_periodicRefreshStarted = new AtomicBoolean(false);
+  }
+
+  /**
+   * Refresh the config of the repository periodically along with the other repositories
+   */
+  public void schedulePeriodicRefresh(RemoteConfigRepository repository) {
+    m_periodicRefreshRepositories.add(repository);
+    if (!m_periodicRefreshStarted.compareAndSet(false, true)) {
+      return;
+    }
+    logger.debug("Schedule periodic refresh with interval: {} {}",
+        m_configUtil.getRefreshInterval(), m_configUtil.getRefreshIntervalTimeUnit());
+    m_executorService.scheduleAtFixedRate(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              refresh();
+            } catch (Throwable ex) {
+              Tracer.logError(ex);
+              logger.warn("Periodic refresh in batch failed, reason: {}", ExceptionUtil.getDetailMessage(ex));
+            }
+            Tracer.logEvent("Apollo.Client.Version", Apollo.VERSION);
+          }
+        }, m_configUtil.getRefreshInterval(), m_configUtil.getRefreshInterval(),
+        m_configUtil.getRefreshIntervalTimeUnit());
+  }
+
+  void refresh() {
+    if (m_periodicRefreshRepositories.isEmpty()) {
+      return;
+    }
+    Tracer.logEvent("Apollo.ConfigService", String.format("periodicRefresh: %d namespaces",
+        m_periodicRefreshRepositories.size()));
+
+    Map<RemoteConfigRepository, ApolloNotificationMessages> repositories = Maps.newLinkedHashMap();
+    for (RemoteConfigRepository repository : m_periodicRefreshRepositories) {
+      repositories.put(repository, repository.getRemoteMessages());
+    }
+
+    List<ServiceDTO> services = m_serviceLocator.getConfigServices();
+    if (services.isEmpty()) {
+      // let each repository report the error and retry
+      for (RemoteConfigRepository repository : repositories.keySet()) {
+        fallback(null, repository, null, false);
+      }
+      return;
+    }
+
+    List<ServiceDTO> preferredServices = Lists.newArrayList(services);
+    m_serviceLocator.sortInPreferredOrder(preferredServices);
+    load(preferredServices.get(0), repositories, false);
+  }
+
+  /**
+   * Load the configs of the repositories asynchronously
+   *
+   * @param serviceDto   the config service which notified the changes
+   * @param repositories the repositories to load, along with their notification messages
+   */
+  public void submit(final ServiceDTO serviceDto,
+                     final Map<RemoteConfigRepository, ApolloNotificationMessages> repositories) {
+    m_executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        load(serviceDto, repositories);
+      }
+    });
+  }
+
+  void load(ServiceDTO serviceDto, Map<RemoteConfigRepository, ApolloNotificationMessages> repositories) {
+    load(serviceDto, repositories, true);
+  }
+
+  /**
+   * @param notified whether the repositories are notified by long polling, or refreshed periodically
+   */
+  private void load(ServiceDTO serviceDto, Map<RemoteConfigRepository, ApolloNotificationMessages> repositories,
+                    boolean notified) {
+    Map<String, RemoteConfigRepository> namespaceRepositories = Maps.newLinkedHashMap();
+    Map<String, ApolloConfigQuery> queries = Maps.newLinkedHashMap();
+    for (Map.Entry<RemoteConfigRepository, ApolloNotificationMessages> entry : repositories.entrySet()) {
+      ApolloConfigQuery query = entry.getKey().assembleBatchQuery(entry.getValue());
+      //the same namespace with different release keys could not be queried together
+      if (queries.containsKey(query.getNamespaceName())) {
+        fallback(serviceDto, entry.getKey(), entry.getValue(), notified);
+        continue;
+      }
+      namespaceRepositories.put(query.getNamespaceName(), entry.getKey());
+      queries.put(query.getNamespaceName(), query);
+    }
+
+    //the config service limits the number of namespaces in one batch
+    for (List<String> namespaces : Lists.partition(Lists.newArrayList(queries.keySet()),
+        ConfigConsts.MAX_BATCH_CONFIG_QUERY_SIZE)) {
+      Map<String, ApolloConfigQuery> batchQueries = Maps.newLinkedHashMap();
+      for (String namespace : namespaces) {
+        batchQueries.put(namespace, queries.get(namespace));
+      }
+      load(serviceDto, repositories, namespaceRepositories, batchQueries, notified);
+    }
+  }
+
+  private void load(ServiceDTO serviceDto, Map<RemoteConfigRepository, ApolloNotificationMessages> repositories,
+                    Map<String, RemoteConfigRepository> namespaceRepositories,
+                    Map<String, ApolloConfigQuery> queries, boolean notified) {
+    String appId = m_configUtil.getAppId();
+    String cluster = m_configUtil.getCluster();
+    String url = assembleQueryConfigsUrl(serviceDto.getHomepageUrl(), appId, cluster,
+        m_configUtil.getDataCenter());
+
+    HttpRequest request = new HttpRequest(url);
+    String secret = m_configUtil.getAccessKeySecret();
+    if (!StringUtils.isBlank(secret)) {
+      Map<String, String> headers = Signature.buildHttpHeaders(url, appId, secret);
+      request.setHeaders(headers);
+    }
+
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "queryConfigs");
+    transaction.addData("Url", url);
+    transaction.addData("Namespaces", queries.size());
+    List<ApolloConfig> results;
+    long start = System.currentTimeMillis();
+    try {
+      HttpResponse<List<ApolloConfig>> response = m_httpUtil.doPost(request,
+          Lists.newArrayList(queries.values()), m_responseType);
+      m_serviceLocator.onAccessSucceeded(serviceDto, System.currentTimeMillis() - start);
+      results = response.getBody();
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      m_serviceLocator.onAccessFailed(serviceDto, ex);
+      logger.warn("Load configs in batch failed, will load them one by one. appId: {}, cluster: {}, " +
+          "namespaces: {}, reason: {}", appId, cluster, queries.keySet(), ExceptionUtil.getDetailMessage(ex));
+      transaction.setStatus(ex);
+      results = null;
+    } finally {
+      transaction.complete();
+    }
+
+    if (results == null) {
+      for (String namespace : queries.keySet()) {
+        RemoteConfigRepository repository = namespaceRepositories.get(namespace);
+        fallback(serviceDto, repository, repositories.get(repository), notified);
+      }
+      return;
+    }
+
+    //the namespaces not modified or not found are omitted in the response
+    for (ApolloConfig result : results) {
+      RemoteConfigRepository repository = namespaceRepositories.get(result.getNamespaceName());
+      if (repository == null || !queries.containsKey(result.getNamespaceName())) {
+        continue;
+      }
+      try {
+        if (!repository.onBatchLoaded(queries.get(result.getNamespaceName()), result)) {
+          Tracer.logEvent("Apollo.Client.BatchConfigFallback",
+              STRING_JOINER.join(appId, cluster, result.getNamespaceName()));
+          fallback(serviceDto, repository, repositories.get(repository), notified);
+        }
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
+        fallback(serviceDto, repository, repositories.get(repository), notified);
+      }
+    }
+  }
+
+  private void fallback(ServiceDTO serviceDto, RemoteConfigRepository repository,
+                        ApolloNotificationMessages remoteMessages, boolean notified) {
+    try {
+      if (notified) {
+        repository.onLongPollNotified(serviceDto, remoteMessages);
+      } else {
+        repository.trySync();
+      }
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+    }
+  }
+
+  String assembleQueryConfigsUrl(String uri, String appId, String cluster, String dataCenter) {
+    Map<String, String> queryParams = Maps.newHashMap();
+    //the config service only returns the changes of the namespaces whose previous release it knows
+    queryParams.put("delta", "true");
+
+    if (!Strings.isNullOrEmpty(dataCenter)) {
+      queryParams.put("dataCenter", queryParamEscaper.escape(dataCenter));
+    }
+
+    String localIp = m_configUtil.getLocalIp();
+    if (!Strings.isNullOrEmpty(localIp)) {
+      queryParams.put("ip", queryParamEscaper.escape(localIp));
+    }
+
+    if (!uri.endsWith("/")) {
+      uri += "/";
+    }
+    return uri + String.format("configs/%s/%s", pathEscaper.escape(appId), pathEscaper.escape(cluster)) + "?"
+        + MAP_JOINER.join(queryParams);
+  }
+}
@@ -67,6 +67,7 @@ public class RemoteConfigLongPollService {
   private ConfigUtil m_configUtil;
   private HttpUtil m_httpUtil;
   private ConfigServiceLocator m_serviceLocator;
+  private RemoteConfigBatchLoader m_batchLoader;
 
   /**
    * Constructor.
@@ -87,6 +88,7 @@ public class RemoteConfigLongPollService {
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
     m_httpUtil = ApolloInjector.getInstance(HttpUtil.class);
     m_serviceLocator = ApolloInjector.getInstance(ConfigServiceLocator.class);
+    m_batchLoader = ApolloInjector.getInstance(RemoteConfigBatchLoader.class);
     m_longPollRateLimiter = RateLimiter.create(m_configUtil.getLongPollQPS());
   }
 
@@ -152,8 +154,9 @@ public class RemoteConfigLongPollService {
       String url = null;
       try {
         if (lastServiceDto == null) {
-          List<ServiceDTO> configServices = getConfigServices();
-          lastServiceDto = configServices.get(random.nextInt(configServices.size()));
+          List<ServiceDTO> configServices = Lists.newArrayList(getConfigServices());
+          m_serviceLocator.sortInPreferredOrder(configServices);
+          lastServiceDto = configServices.get(0);
         }
 
         url =
@@ -191,6 +194,9 @@ public class RemoteConfigLongPollService {
         transaction.addData("StatusCode", response.getStatusCode());
         transaction.setStatus(Transaction.SUCCESS);
       } catch (Throwable ex) {
+        if (lastServiceDto != null) {
+          m_serviceLocator.onAccessFailed(lastServiceDto, ex);
+        }
         lastServiceDto = null;
         Tracer.logEvent("ApolloConfigException", ExceptionUtil.getDetailMessage(ex));
         transaction.setStatus(ex);
@@ -213,6 +219,7 @@ public class RemoteConfigLongPollService {
     if (notifications == null || notifications.isEmpty()) {
       return;
     }
+    Map<RemoteConfigRepository, ApolloNotificationMessages> notifiedRepositories = Maps.newLinkedHashMap();
     for (ApolloConfigNotification notification : notifications) {
       String namespaceName = notification.getNamespaceName();
       //create a new list to avoid ConcurrentModificationException
@@ -224,11 +231,20 @@ public class RemoteConfigLongPollService {
       toBeNotified.addAll(m_longPollNamespaces
           .get(String.format("%s.%s", namespaceName, ConfigFileFormat.Properties.getValue())));
       for (RemoteConfigRepository remoteConfigRepository : toBeNotified) {
-        try {
-          remoteConfigRepository.onLongPollNotified(lastServiceDto, remoteMessages);
-        } catch (Throwable ex) {
-          Tracer.logError(ex);
-        }
+        notifiedRepositories.put(remoteConfigRepository, remoteMessages);
+      }
+    }
+
+    if (m_configUtil.isBatchConfigFetchEnabled() && notifiedRepositories.size() > 1) {
+      m_batchLoader.submit(lastServiceDto, notifiedRepositories);
+      return;
+    }
+
+    for (Map.Entry<RemoteConfigRepository, ApolloNotificationMessages> entry : notifiedRepositories.entrySet()) {
+      try {
+        entry.getKey().onLongPollNotified(lastServiceDto, entry.getValue());
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
       }
     }
   }
@@ -4,8 +4,11 @@ import com.ctrip.framework.apollo.Apollo;
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigQuery;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+import com.ctrip.framework.apollo.core.dto.ConfigurationChange;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.core.enums.ConfigSyncType;
 import com.ctrip.framework.apollo.core.schedule.ExponentialSchedulePolicy;
 import com.ctrip.framework.apollo.core.schedule.SchedulePolicy;
 import com.ctrip.framework.apollo.core.signature.Signature;
@@ -29,12 +32,22 @@ import com.google.common.escape.Escaper;
 import com.google.common.net.UrlEscapers;
 import com.google.common.util.concurrent.RateLimiter;
 import com.google.gson.Gson;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -58,6 +71,9 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
   private volatile AtomicReference<ApolloConfig> m_configCache;
   private final String m_namespace;
   private final static ScheduledExecutorService m_executorService;
+  private final static ExecutorService s_hedgeExecutorService;
+  //each hedged load takes at most two threads, the loads are not hedged while all the threads are busy
+  private static final int HEDGE_EXECUTOR_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
   private final AtomicReference<ServiceDTO> m_longPollServiceDto;
   private final AtomicReference<ApolloNotificationMessages> m_remoteMessages;
   private final RateLimiter m_loadConfigRateLimiter;
@@ -68,6 +84,12 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
   static {
     m_executorService = Executors.newScheduledThreadPool(1,
         ApolloThreadFactory.create("RemoteConfigRepository", true));
+    ThreadPoolExecutor hedgeExecutorService = new ThreadPoolExecutor(HEDGE_EXECUTOR_THREADS,
+        HEDGE_EXECUTOR_THREADS, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+        ApolloThreadFactory.create("RemoteConfigRepository-Hedge", true));
+    //no threads are kept if hedging is not enabled or idle
+    hedgeExecutorService.allowCoreThreadTimeOut(true);
+    s_hedgeExecutorService = hedgeExecutorService;
   }
 
   /**
@@ -113,6 +135,11 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
   }
 
   private void schedulePeriodicRefresh() {
+    if (m_configUtil.isBatchConfigFetchEnabled()) {
+      // refreshed along with the other namespaces in one request
+      ApolloInjector.getInstance(RemoteConfigBatchLoader.class).schedulePeriodicRefresh(this);
+      return;
+    }
     logger.debug("Schedule periodic refresh with interval: {} {}",
         m_configUtil.getRefreshInterval(), m_configUtil.getRefreshIntervalTimeUnit());
     m_executorService.scheduleAtFixedRate(
@@ -183,14 +210,28 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     List<ServiceDTO> configServices = getConfigServices();
     String url = null;
     for (int i = 0; i < maxRetries; i++) {
-      List<ServiceDTO> randomConfigServices = Lists.newLinkedList(configServices);
-      Collections.shuffle(randomConfigServices);
+      List<ServiceDTO> preferredConfigServices = Lists.newArrayList(configServices);
+      m_serviceLocator.sortInPreferredOrder(preferredConfigServices);
       //Access the server which notifies the client first
-      if (m_longPollServiceDto.get() != null) {
-        randomConfigServices.add(0, m_longPollServiceDto.getAndSet(null));
+      ServiceDTO longPollServiceDto = m_longPollServiceDto.getAndSet(null);
+      if (longPollServiceDto != null) {
+        //so it's not accessed again, e.g. as the hedge of itself
+        for (Iterator<ServiceDTO> iterator = preferredConfigServices.iterator(); iterator.hasNext(); ) {
+          if (Objects.equals(iterator.next().getHomepageUrl(), longPollServiceDto.getHomepageUrl())) {
+            iterator.remove();
+          }
+        }
+        preferredConfigServices.add(0, longPollServiceDto);
       }
 
-      for (ServiceDTO configService : randomConfigServices) {
+      int index = 0;
+      while (index < preferredConfigServices.size()) {
+        ServiceDTO configService = preferredConfigServices.get(index++);
+        ServiceDTO hedgeService = null;
+        if (m_configUtil.isHedgedConfigFetchEnabled() && index < preferredConfigServices.size()) {
+          hedgeService = preferredConfigServices.get(index++);
+        }
+
         if (onErrorSleepTime > 0) {
           logger.warn(
               "Load config failed, will retry in {} {}. appId: {}, cluster: {}, namespaces: {}",
@@ -203,22 +244,28 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
           }
         }
 
+        ApolloConfig previousConfig = m_configCache.get();
         url = assembleQueryConfigUrl(configService.getHomepageUrl(), appId, cluster, m_namespace,
-                dataCenter, m_remoteMessages.get(), m_configCache.get());
+                dataCenter, m_remoteMessages.get(), previousConfig);
 
         logger.debug("Loading config from {}", url);
 
-        HttpRequest request = new HttpRequest(url);
-        if (!StringUtils.isBlank(secret)) {
-          Map<String, String> headers = Signature.buildHttpHeaders(url, appId, secret);
-          request.setHeaders(headers);
-        }
+        HttpRequest request = assembleHttpRequest(url, appId, secret);
 
         Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "queryConfig");
         transaction.addData("Url", url);
         try {
 
-          HttpResponse<ApolloConfig> response = m_httpUtil.doGet(request, ApolloConfig.class);
+          HttpResponse<ApolloConfig> response;
+          if (hedgeService == null) {
+            response = doLoadApolloConfig(configService, request);
+          } else {
+            String hedgeUrl = assembleQueryConfigUrl(hedgeService.getHomepageUrl(), appId, cluster, m_namespace,
+                dataCenter, m_remoteMessages.get(), previousConfig);
+            transaction.addData("HedgeUrl", hedgeUrl);
+            response = doLoadApolloConfigWithHedging(configService, request, hedgeService,
+                assembleHttpRequest(hedgeUrl, appId, secret));
+          }
           m_configNeedForceRefresh.set(false);
           m_loadConfigFailSchedulePolicy.success();
 
@@ -232,6 +279,11 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
 
           ApolloConfig result = response.getBody();
 
+          if (result != null && result.getConfigSyncType() == ConfigSyncType.DELTA) {
+            Tracer.logEvent("Apollo.Client.ConfigDelta", STRING_JOINER.join(appId, cluster, m_namespace));
+            result = applyConfigurationChanges(previousConfig, result);
+          }
+
           logger.debug("Loaded config for {}: {}", m_namespace, result);
 
           return result;
@@ -269,6 +321,127 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     throw new ApolloConfigException(message, exception);
   }
 
+  private HttpRequest assembleHttpRequest(String url, String appId, String secret) {
+    HttpRequest request = new HttpRequest(url);
+    if (!StringUtils.isBlank(secret)) {
+      Map<String, String> headers = Signature.buildHttpHeaders(url, appId, secret);
+      request.setHeaders(headers);
+    }
+    return request;
+  }
+
+  private HttpResponse<ApolloConfig> doLoadApolloConfig(ServiceDTO configService, HttpRequest request) {
+    long start = System.currentTimeMillis();
+    try {
+      HttpResponse<ApolloConfig> response = m_httpUtil.doGet(request, ApolloConfig.class);
+      m_serviceLocator.onAccessSucceeded(configService, System.currentTimeMillis() - start);
+      return response;
+    } catch (RuntimeException ex) {
+      //the losing hedged request is cancelled, which is not a failure of the config service
+      if (!Thread.currentThread().isInterrupted()) {
+        m_serviceLocator.onAccessFailed(configService, ex);
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Load the config from the config service, and also from the hedge service if the config service does not
+   * respond within its usual latency or fails, the first successful response is used and the other request is
+   * cancelled
+   */
+  private HttpResponse<ApolloConfig> doLoadApolloConfigWithHedging(ServiceDTO configService, HttpRequest request,
+      ServiceDTO hedgeService, HttpRequest hedgeRequest) throws Throwable {
+    CompletionService<HttpResponse<ApolloConfig>> completionService =
+        new ExecutorCompletionService<>(s_hedgeExecutorService);
+    List<Future<HttpResponse<ApolloConfig>>> futures = Lists.newArrayListWithCapacity(2);
+    try {
+      futures.add(completionService.submit(loadApolloConfigTask(configService, request)));
+    } catch (RejectedExecutionException ex) {
+      logger.debug("Too many hedged loads, load config of {} without hedging", m_namespace);
+      return doLoadApolloConfig(configService, request);
+    }
+
+    try {
+      Throwable failure = null;
+      int pending = 1;
+      Future<HttpResponse<ApolloConfig>> completed = completionService.poll(
+          m_serviceLocator.getHedgeDelayInMillis(configService), TimeUnit.MILLISECONDS);
+      if (completed != null) {
+        pending--;
+        try {
+          return completed.get();
+        } catch (ExecutionException ex) {
+          failure = ex.getCause();
+        }
+      }
+
+      try {
+        futures.add(completionService.submit(loadApolloConfigTask(hedgeService, hedgeRequest)));
+        pending++;
+        Tracer.logEvent("Apollo.Client.HedgedRequest", hedgeService.getHomepageUrl());
+      } catch (RejectedExecutionException ex) {
+        logger.debug("Too many hedged loads, load config of {} without hedging", m_namespace);
+      }
+
+      while (pending > 0) {
+        completed = completionService.take();
+        pending--;
+        try {
+          return completed.get();
+        } catch (ExecutionException ex) {
+          failure = ex.getCause();
+        }
+      }
+      throw failure;
+    } finally {
+      //the losing request is not needed any more
+      for (Future<HttpResponse<ApolloConfig>> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private Callable<HttpResponse<ApolloConfig>> loadApolloConfigTask(final ServiceDTO configService,
+      final HttpRequest request) {
+    return new Callable<HttpResponse<ApolloConfig>>() {
+      @Override
+      public HttpResponse<ApolloConfig> call() throws Exception {
+        return doLoadApolloConfig(configService, request);
+      }
+    };
+  }
+
+  /**
+   * Apply the changes in the delta response to the config the client already has
+   */
+  ApolloConfig applyConfigurationChanges(ApolloConfig previousConfig, ApolloConfig deltaConfig) {
+    if (previousConfig == null) {
+      throw new ApolloConfigException(String.format("Could not apply delta config of namespace %s without the " +
+          "previous config", m_namespace));
+    }
+
+    Map<String, String> configurations = Maps.newHashMap(previousConfig.getConfigurations());
+    if (deltaConfig.getConfigurationChanges() != null) {
+      for (ConfigurationChange change : deltaConfig.getConfigurationChanges()) {
+        switch (change.getConfigurationChangeType()) {
+          case ADDED:
+          case MODIFIED:
+            configurations.put(change.getKey(), change.getNewValue());
+            break;
+          case DELETED:
+            configurations.remove(change.getKey());
+            break;
+        }
+      }
+    }
+
+    ApolloConfig result = new ApolloConfig(deltaConfig.getAppId(), deltaConfig.getCluster(),
+        deltaConfig.getNamespaceName(), deltaConfig.getReleaseKey());
+    result.setConfigurations(configurations);
+    return result;
+  }
+
   String assembleQueryConfigUrl(String uri, String appId, String cluster, String namespace,
                                 String dataCenter, ApolloNotificationMessages remoteMessages, ApolloConfig previousConfig) {
 
@@ -280,6 +453,8 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
 
     if (previousConfig != null) {
       queryParams.put("releaseKey", queryParamEscaper.escape(previousConfig.getReleaseKey()));
+      //the config service could return only the changes since the client has the previous release
+      queryParams.put("delta", "true");
     }
 
     if (!Strings.isNullOrEmpty(dataCenter)) {
@@ -322,6 +497,53 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     });
   }
 
+  ApolloNotificationMessages getRemoteMessages() {
+    return m_remoteMessages.get();
+  }
+
+  /**
+   * Assemble the query of this namespace for loading configs in batch, see {@link RemoteConfigBatchLoader}
+   */
+  ApolloConfigQuery assembleBatchQuery(ApolloNotificationMessages remoteMessages) {
+    m_remoteMessages.set(remoteMessages);
+    ApolloConfig previousConfig = m_configCache.get();
+    ApolloConfigQuery query = new ApolloConfigQuery(m_namespace,
+        previousConfig == null ? null : previousConfig.getReleaseKey());
+    query.setMessages(remoteMessages);
+    return query;
+  }
+
+  /**
+   * Update the config with the result loaded in batch
+   *
+   * @return false if the result could not be applied, e.g. the config is refreshed after the query is assembled, then
+   * the config should be synced alone
+   */
+  synchronized boolean onBatchLoaded(ApolloConfigQuery query, ApolloConfig result) {
+    ApolloConfig previousConfig = m_configCache.get();
+    String previousReleaseKey = previousConfig == null ? null : previousConfig.getReleaseKey();
+    if (!Objects.equals(previousReleaseKey, query.getReleaseKey())) {
+      return false;
+    }
+
+    if (result.getConfigSyncType() == ConfigSyncType.DELTA) {
+      if (previousConfig == null) {
+        return false;
+      }
+      Tracer.logEvent("Apollo.Client.ConfigDelta",
+          STRING_JOINER.join(result.getAppId(), result.getCluster(), m_namespace));
+      result = applyConfigurationChanges(previousConfig, result);
+    }
+
+    logger.debug("Loaded config for {} in batch: {}", m_namespace, result);
+    m_configNeedForceRefresh.set(false);
+    m_configCache.set(result);
+    this.fireRepositoryChange(m_namespace, this.getConfig());
+    Tracer.logEvent(String.format("Apollo.Client.Configs.%s", result.getNamespaceName()),
+        result.getReleaseKey());
+    return true;
+  }
+
   private List<ServiceDTO> getConfigServices() {
     List<ServiceDTO> services = m_serviceLocator.getConfigServices();
     if (services.size() == 0) {
@@ -11,6 +11,7 @@ import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigFile;
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
+import com.ctrip.framework.apollo.internals.AgentConfigRepository;
 import com.ctrip.framework.apollo.internals.ConfigRepository;
 import com.ctrip.framework.apollo.internals.DefaultConfig;
 import com.ctrip.framework.apollo.internals.JsonConfigFile;
@@ -21,6 +22,10 @@ import com.ctrip.framework.apollo.internals.XmlConfigFile;
 import com.ctrip.framework.apollo.internals.YamlConfigFile;
 import com.ctrip.framework.apollo.internals.YmlConfigFile;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -28,6 +33,13 @@ import com.ctrip.framework.apollo.util.ConfigUtil;
 public class DefaultConfigFactory implements ConfigFactory {
   private static final Logger logger = LoggerFactory.getLogger(DefaultConfigFactory.class);
   private ConfigUtil m_configUtil;
+  /**
+   * the local config repositories shared by the configs and config files of the same namespace, e.g. application,
+   * application.properties, so the same content is only fetched, long polled and persisted once
+   */
+  private final ConcurrentMap<String, LocalFileConfigRepository> m_localConfigRepositories =
+      Maps.newConcurrentMap();
+  private final ConcurrentMap<String, Object> m_locks = Maps.newConcurrentMap();
 
   public DefaultConfigFactory() {
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
@@ -39,12 +51,12 @@ public class DefaultConfigFactory implements ConfigFactory {
     if (ConfigFileFormat.isPropertiesCompatible(format)) {
       return new DefaultConfig(namespace, createPropertiesCompatibleFileConfigRepository(namespace, format));
     }
-    return new DefaultConfig(namespace, createLocalConfigRepository(namespace));
+    return new DefaultConfig(namespace, getOrCreateLocalConfigRepository(namespace));
   }
 
   @Override
   public ConfigFile createConfigFile(String namespace, ConfigFileFormat configFileFormat) {
-    ConfigRepository configRepository = createLocalConfigRepository(namespace);
+    ConfigRepository configRepository = getOrCreateLocalConfigRepository(namespace);
     switch (configFileFormat) {
       case Properties:
         return new PropertiesConfigFile(namespace, configRepository);
@@ -63,6 +75,33 @@ public class DefaultConfigFactory implements ConfigFactory {
     return null;
   }
 
+  LocalFileConfigRepository getOrCreateLocalConfigRepository(String namespace) {
+    // the config service treats namespace.properties as namespace, while the local files are named as they are
+    String repositoryNamespace = m_configUtil.isInLocalMode() ? namespace
+        : trimNamespaceFormat(namespace, ConfigFileFormat.Properties);
+
+    LocalFileConfigRepository repository = m_localConfigRepositories.get(repositoryNamespace);
+    if (repository == null) {
+      synchronized (lockOf(repositoryNamespace)) {
+        repository = m_localConfigRepositories.get(repositoryNamespace);
+        if (repository == null) {
+          repository = createLocalConfigRepository(repositoryNamespace);
+          m_localConfigRepositories.put(repositoryNamespace, repository);
+        }
+      }
+    }
+    return repository;
+  }
+
+  private Object lockOf(String name) {
+    Object lock = m_locks.get(name);
+    if (lock == null) {
+      m_locks.putIfAbsent(name, new Object());
+      lock = m_locks.get(name);
+    }
+    return lock;
+  }
+
   LocalFileConfigRepository createLocalConfigRepository(String namespace) {
     if (m_configUtil.isInLocalMode()) {
       logger.warn(
@@ -70,9 +109,16 @@ public class DefaultConfigFactory implements ConfigFactory {
           namespace);
       return new LocalFileConfigRepository(namespace);
     }
+    if (!Strings.isNullOrEmpty(m_configUtil.getLocalAgentDir())) {
+      return new LocalFileConfigRepository(namespace, createAgentConfigRepository(namespace));
+    }
     return new LocalFileConfigRepository(namespace, createRemoteConfigRepository(namespace));
   }
 
+  AgentConfigRepository createAgentConfigRepository(String namespace) {
+    return new AgentConfigRepository(namespace);
+  }
+
   RemoteConfigRepository createRemoteConfigRepository(String namespace) {
     return new RemoteConfigRepository(namespace);
   }
@@ -88,7 +134,7 @@ public class DefaultConfigFactory implements ConfigFactory {
 
   // for namespaces whose format are not properties, the file extension must be present, e.g. application.yaml
   ConfigFileFormat determineFileFormat(String namespaceName) {
-    String lowerCase = namespaceName.toLowerCase();
+    String lowerCase = namespaceName.toLowerCase(Locale.ROOT);
     for (ConfigFileFormat format : ConfigFileFormat.values()) {
       if (lowerCase.endsWith("." + format.getValue())) {
         return format;
@@ -100,7 +146,7 @@ public class DefaultConfigFactory implements ConfigFactory {
 
   String trimNamespaceFormat(String namespaceName, ConfigFileFormat format) {
     String extension = "." + format.getValue();
-    if (!namespaceName.toLowerCase().endsWith(extension)) {
+    if (!namespaceName.toLowerCase(Locale.ROOT).endsWith(extension)) {
       return namespaceName;
     }
 
@@ -0,0 +1,123 @@
+package com.ctrip.framework.apollo.spring.annotation;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Sets;
+import com.google.common.io.Resources;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * The apollo annotation index generated at compile time by the apollo-client-indexer, see
+ * com.ctrip.framework.apollo.index.ApolloAnnotationIndexProcessor.
+ *
+ * <p>Each indexed jar or class directory has an index file listing the classes with fields or methods annotated with
+ * the apollo processed annotations. The index is a positive hint: the listed classes are always scanned, while the
+ * classes which are not listed are only skipped if they are from an indexed jar. Class directories are compiled
+ * incrementally, e.g. by the IDEs, and their classes are always scanned, as is any class of a location without
+ * index.</p>
+ */
+class ApolloAnnotationIndex {
+  private static final Logger logger = LoggerFactory.getLogger(ApolloAnnotationIndex.class);
+  static final String INDEX_LOCATION = "META-INF/apollo.components";
+
+  private static final LoadingCache<ClassLoader, ApolloAnnotationIndex> INDEXES = CacheBuilder.newBuilder()
+      .weakKeys().build(new CacheLoader<ClassLoader, ApolloAnnotationIndex>() {
+        @Override
+        public ApolloAnnotationIndex load(ClassLoader classLoader) {
+          return new ApolloAnnotationIndex(classLoader, INDEX_LOCATION);
+        }
+      });
+
+  // the jars having the index, e.g. jar:file:/path/to/some.jar!/
+  private final Set<String> m_indexedLocations = Sets.newHashSet();
+  private final Set<String> m_annotatedClasses = Sets.newHashSet();
+
+  ApolloAnnotationIndex(ClassLoader classLoader, String indexLocation) {
+    try {
+      Enumeration<URL> indexes = classLoader.getResources(indexLocation);
+      while (indexes.hasMoreElements()) {
+        URL index = indexes.nextElement();
+        List<String> classNames = Resources.readLines(index, Charsets.UTF_8);
+        for (String className : classNames) {
+          className = className.trim();
+          if (!className.isEmpty()) {
+            m_annotatedClasses.add(className);
+          }
+        }
+        if ("jar".equals(index.getProtocol())) {
+          String url = index.toString();
+          m_indexedLocations.add(url.substring(0, url.length() - indexLocation.length()));
+        }
+      }
+    } catch (IOException ex) {
+      logger.warn("Failed to load apollo annotation index {}, fallback to scan all the classes", indexLocation, ex);
+      m_indexedLocations.clear();
+      m_annotatedClasses.clear();
+    }
+  }
+
+  static ApolloAnnotationIndex forClass(Class<?> clazz) {
+    ClassLoader classLoader = clazz.getClassLoader();
+    if (classLoader == null) {
+      classLoader = ApolloAnnotationIndex.class.getClassLoader();
+    }
+    return INDEXES.getUnchecked(classLoader);
+  }
+
+  /**
+   * @return false if the index tells neither the class nor its super classes and interfaces have annotated members,
+   * true otherwise
+   */
+  boolean mayHaveAnnotatedMembers(Class<?> clazz) {
+    if (m_indexedLocations.isEmpty()) {
+      return true;
+    }
+    for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+      if (mayHaveAnnotatedMembersItself(current)) {
+        return true;
+      }
+    }
+    for (Class<?> anInterface : ClassUtils.getAllInterfacesForClassAsSet(clazz)) {
+      if (mayHaveAnnotatedMembersItself(anInterface)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean mayHaveAnnotatedMembersItself(Class<?> clazz) {
+    // jdk classes
+    if (clazz.getClassLoader() == null) {
+      return false;
+    }
+    // generated proxies only override the members of the proxied classes and interfaces
+    if (Proxy.isProxyClass(clazz) || clazz.getName().contains(ClassUtils.CGLIB_CLASS_SEPARATOR)) {
+      return false;
+    }
+    if (m_annotatedClasses.contains(clazz.getName())) {
+      return true;
+    }
+    String location = locationOf(clazz);
+    return location == null || !m_indexedLocations.contains(location);
+  }
+
+  private String locationOf(Class<?> clazz) {
+    String resourceName = ClassUtils.convertClassNameToResourcePath(clazz.getName()) + ClassUtils.CLASS_FILE_SUFFIX;
+    URL resource = clazz.getClassLoader().getResource(resourceName);
+    if (resource == null) {
+      return null;
+    }
+    String url = resource.toString();
+    return url.substring(0, url.length() - resourceName.length());
+  }
+}
@@ -5,8 +5,11 @@ import com.ctrip.framework.apollo.ConfigChangeListener;
 import com.ctrip.framework.apollo.ConfigService;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 
@@ -20,6 +23,13 @@ import org.springframework.util.ReflectionUtils;
  * @author Jason Song(song_s@ctrip.com)
  */
 public class ApolloAnnotationProcessor extends ApolloProcessor {
+  private static final Collection<Class<? extends Annotation>> TARGET_ANNOTATIONS =
+      ImmutableList.<Class<? extends Annotation>>of(ApolloConfig.class, ApolloConfigChangeListener.class);
+
+  @Override
+  protected Collection<Class<? extends Annotation>> getTargetAnnotations() {
+    return TARGET_ANNOTATIONS;
+  }
 
   @Override
   protected void processField(Object bean, String beanName, Field field) {
@@ -1,16 +1,19 @@
 package com.ctrip.framework.apollo.spring.annotation;
 
 import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.spring.property.JsonValueParser;
 import com.ctrip.framework.apollo.spring.property.PlaceholderHelper;
 import com.ctrip.framework.apollo.spring.property.SpringValue;
 import com.ctrip.framework.apollo.spring.property.SpringValueRegistry;
 import com.ctrip.framework.apollo.spring.util.SpringInjector;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.google.common.base.Preconditions;
-import com.google.gson.Gson;
+import com.google.common.collect.ImmutableList;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,17 +30,25 @@ import org.springframework.util.ReflectionUtils;
 public class ApolloJsonValueProcessor extends ApolloProcessor implements BeanFactoryAware {
 
   private static final Logger logger = LoggerFactory.getLogger(ApolloJsonValueProcessor.class);
-  private static final Gson gson = new Gson();
+  private static final Collection<Class<? extends Annotation>> TARGET_ANNOTATIONS =
+      ImmutableList.<Class<? extends Annotation>>of(ApolloJsonValue.class);
 
   private final ConfigUtil configUtil;
   private final PlaceholderHelper placeholderHelper;
   private final SpringValueRegistry springValueRegistry;
+  private final JsonValueParser jsonValueParser;
   private ConfigurableBeanFactory beanFactory;
 
   public ApolloJsonValueProcessor() {
     configUtil = ApolloInjector.getInstance(ConfigUtil.class);
     placeholderHelper = SpringInjector.getInstance(PlaceholderHelper.class);
     springValueRegistry = SpringInjector.getInstance(SpringValueRegistry.class);
+    jsonValueParser = SpringInjector.getInstance(JsonValueParser.class);
+  }
+
+  @Override
+  protected Collection<Class<? extends Annotation>> getTargetAnnotations() {
+    return TARGET_ANNOTATIONS;
   }
 
   @Override
@@ -110,7 +121,7 @@ public class ApolloJsonValueProcessor extends ApolloProcessor implements BeanFac
 
   private Object parseJsonValue(String json, Type targetType) {
     try {
-      return gson.fromJson(json, targetType);
+      return jsonValueParser.parse(json, targetType);
     } catch (Throwable ex) {
       logger.error("Parsing json '{}' to type {} failed!", json, targetType, ex);
       throw ex;
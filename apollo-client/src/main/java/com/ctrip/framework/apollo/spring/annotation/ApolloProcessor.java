@@ -1,28 +1,38 @@
 package com.ctrip.framework.apollo.spring.annotation;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.ReflectionUtils;
 
 /**
  * Create by zhangzheng on 2018/2/6
  */
 public abstract class ApolloProcessor implements BeanPostProcessor, PriorityOrdered {
+  // the members reference their classes, so the values are soft to let the classes of a closed context be unloaded
+  private final Cache<Class<?>, CandidateMembers> candidateMembersCache = CacheBuilder.newBuilder().weakKeys()
+      .softValues().build();
 
   @Override
   public Object postProcessBeforeInitialization(Object bean, String beanName)
       throws BeansException {
-    Class clazz = bean.getClass();
-    for (Field field : findAllField(clazz)) {
+    CandidateMembers candidateMembers = findCandidateMembers(bean.getClass());
+    for (Field field : candidateMembers.fields) {
       processField(bean, beanName, field);
     }
-    for (Method method : findAllMethod(clazz)) {
+    for (Method method : candidateMembers.methods) {
       processMethod(bean, beanName, method);
     }
     return bean;
@@ -44,12 +54,60 @@ public abstract class ApolloProcessor implements BeanPostProcessor, PriorityOrde
   protected abstract void processMethod(Object bean, String beanName, Method method);
 
 
+  /**
+   * subclass could override this method to only process the fields and methods with these annotations, all the fields
+   * and methods are processed if it's empty
+   */
+  protected Collection<Class<? extends Annotation>> getTargetAnnotations() {
+    return Collections.emptyList();
+  }
+
   @Override
   public int getOrder() {
     //make it as late as possible
     return Ordered.LOWEST_PRECEDENCE;
   }
 
+  private CandidateMembers findCandidateMembers(Class<?> clazz) {
+    CandidateMembers candidateMembers = candidateMembersCache.getIfPresent(clazz);
+    if (candidateMembers == null) {
+      candidateMembers = doFindCandidateMembers(clazz);
+      candidateMembersCache.put(clazz, candidateMembers);
+    }
+    return candidateMembers;
+  }
+
+  private CandidateMembers doFindCandidateMembers(Class<?> clazz) {
+    Collection<Class<? extends Annotation>> targetAnnotations = getTargetAnnotations();
+    if (targetAnnotations.isEmpty()) {
+      return new CandidateMembers(findAllField(clazz), findAllMethod(clazz));
+    }
+    // the classes without annotated members are known from the compile time index
+    if (!ApolloAnnotationIndex.forClass(clazz).mayHaveAnnotatedMembers(clazz)) {
+      return CandidateMembers.EMPTY;
+    }
+
+    List<Field> fields = new LinkedList<>();
+    for (Field field : findAllField(clazz)) {
+      for (Class<? extends Annotation> targetAnnotation : targetAnnotations) {
+        if (AnnotationUtils.getAnnotation(field, targetAnnotation) != null) {
+          fields.add(field);
+          break;
+        }
+      }
+    }
+    List<Method> methods = new LinkedList<>();
+    for (Method method : findAllMethod(clazz)) {
+      for (Class<? extends Annotation> targetAnnotation : targetAnnotations) {
+        if (AnnotationUtils.findAnnotation(method, targetAnnotation) != null) {
+          methods.add(method);
+          break;
+        }
+      }
+    }
+    return new CandidateMembers(fields, methods);
+  }
+
   private List<Field> findAllField(Class clazz) {
     final List<Field> res = new LinkedList<>();
     ReflectionUtils.doWithFields(clazz, new ReflectionUtils.FieldCallback() {
@@ -71,4 +129,20 @@ public abstract class ApolloProcessor implements BeanPostProcessor, PriorityOrde
     });
     return res;
   }
+
+  /**
+   * The fields and methods of a class which might be processed
+   */
+  private static class CandidateMembers {
+    private static final CandidateMembers EMPTY = new CandidateMembers(Collections.<Field>emptyList(),
+        Collections.<Method>emptyList());
+
+    private final List<Field> fields;
+    private final List<Method> methods;
+
+    CandidateMembers(List<Field> fields, List<Method> methods) {
+      this.fields = ImmutableList.copyOf(fields);
+      this.methods = ImmutableList.copyOf(methods);
+    }
+  }
 }
@@ -8,9 +8,11 @@ import com.ctrip.framework.apollo.spring.property.SpringValueDefinitionProcessor
 import com.ctrip.framework.apollo.spring.property.SpringValueRegistry;
 import com.ctrip.framework.apollo.spring.util.SpringInjector;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Multimap;
 import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Collection;
@@ -36,6 +38,8 @@ import org.springframework.context.annotation.Bean;
 public class SpringValueProcessor extends ApolloProcessor implements BeanFactoryPostProcessor, BeanFactoryAware {
 
   private static final Logger logger = LoggerFactory.getLogger(SpringValueProcessor.class);
+  private static final Collection<Class<? extends Annotation>> TARGET_ANNOTATIONS =
+      ImmutableList.<Class<? extends Annotation>>of(Value.class);
 
   private final ConfigUtil configUtil;
   private final PlaceholderHelper placeholderHelper;
@@ -71,6 +75,11 @@ public class SpringValueProcessor extends ApolloProcessor implements BeanFactory
   }
 
 
+  @Override
+  protected Collection<Class<? extends Annotation>> getTargetAnnotations() {
+    return TARGET_ANNOTATIONS;
+  }
+
   @Override
   protected void processField(Object bean, String beanName, Field field) {
     // register @Value on field
@@ -3,13 +3,26 @@ package com.ctrip.framework.apollo.spring.boot;
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigService;
 import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.spring.config.ConfigPropertySourceFactory;
 import com.ctrip.framework.apollo.spring.config.PropertySourcesConstants;
 import com.ctrip.framework.apollo.spring.util.SpringInjector;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
@@ -42,6 +55,13 @@ import org.springframework.core.env.ConfigurableEnvironment;
  *   apollo.bootstrap.namespaces = application,FX.apollo
  * </pre>
  *
+ * The namespaces are loaded concurrently, the namespaces which fail to load from the config service fall back to
+ * the local cache respectively. To be warned of the namespaces still loading after some time, add
+ * <pre class="code">
+ *   # in milliseconds
+ *   apollo.bootstrap.timeoutInMillis = 3000
+ * </pre>
+ *
  *
  * If you want to load Apollo configurations even before Logging System Initialization Phase,
  *  add
@@ -60,6 +80,7 @@ public class ApolloApplicationContextInitializer implements
   public static final int DEFAULT_ORDER = 0;
 
   private static final Logger logger = LoggerFactory.getLogger(ApolloApplicationContextInitializer.class);
+  private static final int MAX_BOOTSTRAP_THREADS = 8;
   private static final Splitter NAMESPACE_SPLITTER = Splitter.on(",").omitEmptyStrings().trimResults();
   private static final String[] APOLLO_SYSTEM_PROPERTIES = {"app.id", ConfigConsts.APOLLO_CLUSTER_KEY,
       "apollo.cacheDir", "apollo.accesskey.secret", ConfigConsts.APOLLO_META_KEY, PropertiesFactory.APOLLO_PROPERTY_ORDER_ENABLE};
@@ -99,16 +120,98 @@ public class ApolloApplicationContextInitializer implements
     logger.debug("Apollo bootstrap namespaces: {}", namespaces);
     List<String> namespaceList = NAMESPACE_SPLITTER.splitToList(namespaces);
 
-    CompositePropertySource composite = new CompositePropertySource(PropertySourcesConstants.APOLLO_BOOTSTRAP_PROPERTY_SOURCE_NAME);
-    for (String namespace : namespaceList) {
-      Config config = ConfigService.getConfig(namespace);
+    long timeoutInMillis = environment.getProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_TIMEOUT_IN_MILLIS,
+        Long.class, -1L);
+    List<Config> configs = loadConfigs(namespaceList, timeoutInMillis);
 
-      composite.addPropertySource(configPropertySourceFactory.getConfigPropertySource(namespace, config));
+    CompositePropertySource composite = new CompositePropertySource(PropertySourcesConstants.APOLLO_BOOTSTRAP_PROPERTY_SOURCE_NAME);
+    for (int i = 0; i < namespaceList.size(); i++) {
+      String namespace = namespaceList.get(i);
+      composite.addPropertySource(configPropertySourceFactory.getConfigPropertySource(namespace, configs.get(i)));
     }
 
     environment.getPropertySources().addFirst(composite);
   }
 
+  /**
+   * Load the namespaces concurrently, as each of them might be blocked by its initial sync with the config service.
+   *
+   * <p>Each namespace is bounded by the connect and read timeouts of the sync and then falls back to its local cache,
+   * so the namespaces still loading after the timeout are only reported and waited for.</p>
+   *
+   * @return the configs in the same order as the namespaces
+   */
+  private List<Config> loadConfigs(List<String> namespaceList, long timeoutInMillis) {
+    if (namespaceList.size() <= 1) {
+      List<Config> configs = Lists.newArrayList();
+      for (String namespace : namespaceList) {
+        configs.add(loadConfig(namespace));
+      }
+      return configs;
+    }
+
+    ExecutorService executorService = Executors.newFixedThreadPool(
+        Math.min(namespaceList.size(), MAX_BOOTSTRAP_THREADS), ApolloThreadFactory.create("Bootstrap", true));
+    try {
+      List<Future<Config>> futures = Lists.newArrayList();
+      for (final String namespace : namespaceList) {
+        futures.add(executorService.submit(new Callable<Config>() {
+          @Override
+          public Config call() throws Exception {
+            return loadConfig(namespace);
+          }
+        }));
+      }
+
+      long deadline = System.currentTimeMillis() + timeoutInMillis;
+      List<Config> configs = Lists.newArrayList();
+      for (int i = 0; i < futures.size(); i++) {
+        configs.add(waitForConfig(namespaceList.get(i), futures.get(i), timeoutInMillis < 0 ? -1 :
+            Math.max(0, deadline - System.currentTimeMillis())));
+      }
+      return configs;
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private Config waitForConfig(String namespace, Future<Config> future, long timeoutInMillis) {
+    try {
+      if (timeoutInMillis >= 0) {
+        try {
+          return future.get(timeoutInMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+          logger.warn("Apollo bootstrap namespace {} is still loading after the timeout, see property: ${{}}",
+              namespace, PropertySourcesConstants.APOLLO_BOOTSTRAP_TIMEOUT_IN_MILLIS);
+          Tracer.logEvent("Apollo.Bootstrap.Timeout", namespace);
+        }
+      }
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ApolloConfigException(String.format("Loading namespace %s is interrupted", namespace), ex);
+    } catch (ExecutionException ex) {
+      Throwables.propagateIfPossible(ex.getCause());
+      throw new ApolloConfigException(String.format("Loading namespace %s failed", namespace), ex.getCause());
+    }
+  }
+
+  private Config loadConfig(String namespace) {
+    Transaction transaction = Tracer.newTransaction("Apollo.Bootstrap", namespace);
+    long start = System.currentTimeMillis();
+    try {
+      Config config = ConfigService.getConfig(namespace);
+      transaction.setStatus(Transaction.SUCCESS);
+      return config;
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      throw ex;
+    } finally {
+      transaction.complete();
+      logger.debug("Apollo bootstrap namespace {} loaded in {} ms", namespace, System.currentTimeMillis() - start);
+    }
+  }
+
   /**
    * To fill system properties from environment config
    */
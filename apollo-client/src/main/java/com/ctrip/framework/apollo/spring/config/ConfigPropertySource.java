@@ -1,7 +1,9 @@
 package com.ctrip.framework.apollo.spring.config;
 
 import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.core.env.EnumerablePropertySource;
 
@@ -10,22 +12,41 @@ import com.ctrip.framework.apollo.Config;
 /**
  * Property source wrapper for Config
  *
+ * <p>The property names are cached until the config notifies a change, so the binders which enumerate the names
+ * repeatedly don't copy them on each call.</p>
+ *
  * @author Jason Song(song_s@ctrip.com)
  */
 public class ConfigPropertySource extends EnumerablePropertySource<Config> {
   private static final String[] EMPTY_ARRAY = new String[0];
 
+  private final AtomicLong propertyNamesVersion = new AtomicLong();
+  private volatile PropertyNames propertyNames;
+
   ConfigPropertySource(String name, Config source) {
     super(name, source);
+    this.source.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        propertyNamesVersion.incrementAndGet();
+      }
+    });
   }
 
+  /**
+   * @return the property names, the returned array is shared and must not be modified
+   */
   @Override
   public String[] getPropertyNames() {
-    Set<String> propertyNames = this.source.getPropertyNames();
-    if (propertyNames.isEmpty()) {
-      return EMPTY_ARRAY;
-    }
-    return propertyNames.toArray(new String[propertyNames.size()]);
+    return cachedPropertyNames().array;
+  }
+
+  /**
+   * Look up the cached property names set instead of scanning the property names array
+   */
+  @Override
+  public boolean containsProperty(String name) {
+    return cachedPropertyNames().names.contains(name);
   }
 
   @Override
@@ -36,4 +57,27 @@ public class ConfigPropertySource extends EnumerablePropertySource<Config> {
   public void addChangeListener(ConfigChangeListener listener) {
     this.source.addChangeListener(listener);
   }
+
+  private PropertyNames cachedPropertyNames() {
+    long version = propertyNamesVersion.get();
+    PropertyNames cached = this.propertyNames;
+    if (cached == null || cached.version != version) {
+      // a change notified while loading leaves the version behind, so the names are loaded again next time
+      cached = new PropertyNames(this.source.getPropertyNames(), version);
+      this.propertyNames = cached;
+    }
+    return cached;
+  }
+
+  private static class PropertyNames {
+    private final Set<String> names;
+    private final String[] array;
+    private final long version;
+
+    PropertyNames(Set<String> names, long version) {
+      this.names = names;
+      this.array = names.isEmpty() ? EMPTY_ARRAY : names.toArray(new String[names.size()]);
+      this.version = version;
+    }
+  }
 }
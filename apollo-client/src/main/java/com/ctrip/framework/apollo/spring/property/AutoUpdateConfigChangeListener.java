@@ -5,11 +5,12 @@ import com.ctrip.framework.apollo.enums.PropertyChangeType;
 import com.ctrip.framework.apollo.model.ConfigChange;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
 import com.ctrip.framework.apollo.spring.util.SpringInjector;
-import com.google.gson.Gson;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.util.Collection;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +32,7 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener{
   private final TypeConverter typeConverter;
   private final PlaceholderHelper placeholderHelper;
   private final SpringValueRegistry springValueRegistry;
-  private final Gson gson;
+  private final JsonValueParser jsonValueParser;
 
   public AutoUpdateConfigChangeListener(Environment environment, ConfigurableListableBeanFactory beanFactory){
     this.typeConverterHasConvertIfNecessaryWithFieldParameter = testTypeConverterHasConvertIfNecessaryWithFieldParameter();
@@ -40,7 +41,7 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener{
     this.environment = environment;
     this.placeholderHelper = SpringInjector.getInstance(PlaceholderHelper.class);
     this.springValueRegistry = SpringInjector.getInstance(SpringValueRegistry.class);
-    this.gson = new Gson();
+    this.jsonValueParser = SpringInjector.getInstance(JsonValueParser.class);
   }
 
   @Override
@@ -49,23 +50,25 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener{
     if (CollectionUtils.isEmpty(keys)) {
       return;
     }
+    // 1. collect the relevant values, a value with multiple changed keys in its placeholder is only updated once
+    Set<SpringValue> targetValues = Sets.newLinkedHashSet();
     for (String key : keys) {
-      // 1. check whether the changed key is relevant
-      Collection<SpringValue> targetValues = springValueRegistry.get(beanFactory, key);
-      if (targetValues == null || targetValues.isEmpty()) {
-        continue;
+      Collection<SpringValue> keyValues = springValueRegistry.get(beanFactory, key);
+      if (keyValues != null) {
+        targetValues.addAll(keyValues);
       }
+    }
 
-      // 2. update the value
-      for (SpringValue val : targetValues) {
-        updateSpringValue(val);
-      }
+    // 2. update the values, each placeholder is only resolved once in this change event
+    Map<String, String> resolvedPlaceholders = Maps.newHashMap();
+    for (SpringValue val : targetValues) {
+      updateSpringValue(val, resolvedPlaceholders);
     }
   }
 
-  private void updateSpringValue(SpringValue springValue) {
+  private void updateSpringValue(SpringValue springValue, Map<String, String> resolvedPlaceholders) {
     try {
-      Object value = resolvePropertyValue(springValue);
+      Object value = resolvePropertyValue(springValue, resolvedPlaceholders);
       springValue.update(value);
 
       logger.info("Auto update apollo changed value successfully, new value: {}, {}", value,
@@ -79,10 +82,10 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener{
    * Logic transplanted from DefaultListableBeanFactory
    * @see org.springframework.beans.factory.support.DefaultListableBeanFactory#doResolveDependency(org.springframework.beans.factory.config.DependencyDescriptor, java.lang.String, java.util.Set, org.springframework.beans.TypeConverter)
    */
-  private Object resolvePropertyValue(SpringValue springValue) {
+  private Object resolvePropertyValue(SpringValue springValue, Map<String, String> resolvedPlaceholders) {
     // value will never be null, as @Value and @ApolloJsonValue will not allow that
-    Object value = placeholderHelper
-        .resolvePropertyValue(beanFactory, springValue.getBeanName(), springValue.getPlaceholder());
+    Object value = placeholderHelper.resolvePropertyValue(beanFactory, springValue.getBeanName(),
+        springValue.getPlaceholder(), resolvedPlaceholders);
 
     if (springValue.isJson()) {
       value = parseJsonValue((String)value, springValue.getGenericType());
@@ -106,7 +109,7 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener{
 
   private Object parseJsonValue(String json, Type targetType) {
     try {
-      return gson.fromJson(json, targetType);
+      return jsonValueParser.parse(json, targetType);
     } catch (Throwable ex) {
       logger.error("Parsing json '{}' to type {} failed!", json, targetType, ex);
       throw ex;
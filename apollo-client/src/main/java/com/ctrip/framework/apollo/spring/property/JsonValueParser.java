@@ -0,0 +1,118 @@
+package com.ctrip.framework.apollo.spring.property;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import java.lang.reflect.Type;
+
+/**
+ * Parses the json values of @ApolloJsonValue, the parsed values are cached by the json, so the same json injected into
+ * many targets is only parsed once. The cache is bounded by the total length of the cached json, as the parsed values
+ * are roughly proportional to it, and the json longer than the whole cache is never cached.
+ *
+ * <p>By default the cache holds the parsed json trees and each target gets its own instance bound from the tree, so
+ * the targets could modify their instances freely. If shared instances are enabled, the bound instances are cached by
+ * the json and the target type, and the same instance is injected into all the targets, which must treat it as
+ * immutable then.</p>
+ *
+ * @see ConfigUtil#getMaxJsonValueCacheSize()
+ * @see ConfigUtil#isJsonValueSharedInstancesEnabled()
+ */
+public class JsonValueParser {
+  private final Gson gson;
+  private final JsonParser jsonParser;
+  private final boolean sharedInstancesEnabled;
+  private final long maxCacheWeight;
+  private final Cache<String, JsonElement> jsonTreeCache;
+  private final Cache<JsonValueKey, Object> jsonValueCache;
+
+  public JsonValueParser() {
+    ConfigUtil configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    gson = new Gson();
+    jsonParser = new JsonParser();
+    sharedInstancesEnabled = configUtil.isJsonValueSharedInstancesEnabled();
+    maxCacheWeight = configUtil.getMaxJsonValueCacheSize();
+    if (maxCacheWeight > 0) {
+      jsonTreeCache = CacheBuilder.newBuilder().maximumWeight(maxCacheWeight)
+          .weigher(new Weigher<String, JsonElement>() {
+            @Override
+            public int weigh(String json, JsonElement jsonTree) {
+              return json.length();
+            }
+          }).build();
+      jsonValueCache = CacheBuilder.newBuilder().maximumWeight(maxCacheWeight)
+          .weigher(new Weigher<JsonValueKey, Object>() {
+            @Override
+            public int weigh(JsonValueKey key, Object value) {
+              return key.json.length();
+            }
+          }).build();
+    } else {
+      jsonTreeCache = null;
+      jsonValueCache = null;
+    }
+  }
+
+  /**
+   * Parse the json to the target type
+   *
+   * @throws com.google.gson.JsonParseException if the json is invalid or could not be bound to the type
+   */
+  public Object parse(String json, Type targetType) {
+    if (jsonTreeCache == null || json.length() > maxCacheWeight) {
+      return gson.fromJson(json, targetType);
+    }
+
+    if (sharedInstancesEnabled) {
+      JsonValueKey key = new JsonValueKey(json, targetType);
+      Object value = jsonValueCache.getIfPresent(key);
+      if (value == null) {
+        value = gson.fromJson(json, targetType);
+        if (value != null) {
+          jsonValueCache.put(key, value);
+        }
+      }
+      return value;
+    }
+
+    JsonElement jsonTree = jsonTreeCache.getIfPresent(json);
+    if (jsonTree == null) {
+      jsonTree = jsonParser.parse(json);
+      jsonTreeCache.put(json, jsonTree);
+    }
+    return gson.fromJson(jsonTree, targetType);
+  }
+
+  private static class JsonValueKey {
+    private final String json;
+    private final Type targetType;
+
+    JsonValueKey(String json, Type targetType) {
+      this.json = json;
+      this.targetType = targetType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      JsonValueKey that = (JsonValueKey) o;
+      return json.equals(that.json) && targetType.equals(that.targetType);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(json, targetType);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package com.ctrip.framework.apollo.spring.property;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import java.util.Objects;
@@ -31,8 +32,23 @@ public class PlaceholderHelper {
    * "${somePropertyValue}" -> "the actual property value"
    */
   public Object resolvePropertyValue(ConfigurableBeanFactory beanFactory, String beanName, String placeholder) {
+    return resolvePropertyValue(beanFactory, beanName, placeholder, null);
+  }
+
+  /**
+   * Resolve placeholder property values, the string values of the placeholders are read from and stored to the
+   * resolved placeholders if it's not null, so each placeholder is only resolved once with the same properties
+   */
+  public Object resolvePropertyValue(ConfigurableBeanFactory beanFactory, String beanName, String placeholder,
+      Map<String, String> resolvedPlaceholders) {
     // resolve string value
-    String strVal = beanFactory.resolveEmbeddedValue(placeholder);
+    String strVal = resolvedPlaceholders == null ? null : resolvedPlaceholders.get(placeholder);
+    if (strVal == null) {
+      strVal = beanFactory.resolveEmbeddedValue(placeholder);
+      if (resolvedPlaceholders != null && strVal != null) {
+        resolvedPlaceholders.put(placeholder, strVal);
+      }
+    }
 
     BeanDefinition bd = (beanFactory.containsBean(beanName) ? beanFactory
         .getMergedBeanDefinition(beanName) : null);
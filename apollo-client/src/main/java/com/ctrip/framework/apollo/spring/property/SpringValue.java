@@ -1,11 +1,19 @@
 package com.ctrip.framework.apollo.spring.property;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.MethodParameter;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Spring @Value method info
@@ -14,6 +22,12 @@ import org.springframework.core.MethodParameter;
  * @since 2018/2/6.
  */
 public class SpringValue {
+  private static final Logger logger = LoggerFactory.getLogger(SpringValue.class);
+  /**
+   * the setters shared by the spring values of the same field or method, e.g. of the prototype beans, an entry is
+   * released once no spring value uses it
+   */
+  private static final Cache<Member, MethodHandle> SETTERS = CacheBuilder.newBuilder().weakValues().build();
 
   private MethodParameter methodParameter;
   private Field field;
@@ -24,6 +38,11 @@ public class SpringValue {
   private Class<?> targetType;
   private Type genericType;
   private boolean isJson;
+  /**
+   * the setter of the field or the method, resolved once so that the access check is not done on every update, or
+   * null if the member could not be unreflected and is updated via reflection
+   */
+  private MethodHandle setter;
 
   public SpringValue(String key, String placeholder, Object bean, String beanName, Field field, boolean isJson) {
     this.beanRef = new WeakReference<>(bean);
@@ -36,6 +55,7 @@ public class SpringValue {
     if(isJson){
       this.genericType = field.getGenericType();
     }
+    this.setter = setterOf(field);
   }
 
   public SpringValue(String key, String placeholder, Object bean, String beanName, Method method, boolean isJson) {
@@ -50,34 +70,60 @@ public class SpringValue {
     if(isJson){
       this.genericType = method.getGenericParameterTypes()[0];
     }
+    this.setter = setterOf(method);
   }
 
-  public void update(Object newVal) throws IllegalAccessException, InvocationTargetException {
-    if (isField()) {
-      injectField(newVal);
-    } else {
-      injectMethod(newVal);
+  private static MethodHandle setterOf(Member member) {
+    MethodHandle setter = SETTERS.getIfPresent(member);
+    if (setter != null) {
+      return setter;
+    }
+    try {
+      if (member instanceof Field) {
+        Field field = (Field) member;
+        ReflectionUtils.makeAccessible(field);
+        setter = MethodHandles.lookup().unreflectSetter(field);
+      } else {
+        Method method = (Method) member;
+        ReflectionUtils.makeAccessible(method);
+        setter = MethodHandles.lookup().unreflect(method);
+      }
+    } catch (RuntimeException | IllegalAccessException ex) {
+      logger.debug("Could not unreflect {}, fallback to update it via reflection", member, ex);
+      return null;
     }
+    SETTERS.put(member, setter);
+    return setter;
   }
 
-  private void injectField(Object newVal) throws IllegalAccessException {
+  public void update(Object newVal) throws IllegalAccessException, InvocationTargetException {
     Object bean = beanRef.get();
     if (bean == null) {
       return;
     }
-    boolean accessible = field.isAccessible();
-    field.setAccessible(true);
-    field.set(bean, newVal);
-    field.setAccessible(accessible);
+    if (setter == null) {
+      updateViaReflection(bean, newVal);
+      return;
+    }
+    try {
+      setter.invoke(bean, newVal);
+    } catch (Error | RuntimeException ex) {
+      throw ex;
+    } catch (Throwable ex) {
+      throw new InvocationTargetException(ex);
+    }
   }
 
-  private void injectMethod(Object newVal)
-      throws InvocationTargetException, IllegalAccessException {
-    Object bean = beanRef.get();
-    if (bean == null) {
-      return;
+  private void updateViaReflection(Object bean, Object newVal)
+      throws IllegalAccessException, InvocationTargetException {
+    if (isField()) {
+      ReflectionUtils.makeAccessible(field);
+      field.set(bean, newVal);
+    } else {
+      Method method = methodParameter.getMethod();
+      ReflectionUtils.makeAccessible(method);
+      method.invoke(bean, newVal);
     }
-    methodParameter.getMethod().invoke(bean, newVal);
   }
 
   public String getBeanName() {
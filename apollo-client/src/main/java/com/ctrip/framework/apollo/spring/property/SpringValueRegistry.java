@@ -1,36 +1,45 @@
 package com.ctrip.framework.apollo.spring.property;
 
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
-import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import com.google.common.collect.Multimaps;
 import org.springframework.beans.factory.BeanFactory;
 
+/**
+ * The spring values indexed by their keys, the values are registered when the beans are created and looked up on
+ * every config change, so the lookups are lock free and never blocked by the registrations or the clean up.
+ *
+ * <p>The values of a key are kept in a {@link ConcurrentLinkedQueue} rather than a copy on write list, as a key could
+ * be bound to thousands of (prototype) beans and copying the list on each registration would be quadratic.</p>
+ */
 public class SpringValueRegistry {
   private static final long CLEAN_INTERVAL_IN_SECONDS = 5;
-  private final Map<BeanFactory, Multimap<String, SpringValue>> registry = Maps.newConcurrentMap();
+  private final ConcurrentMap<BeanFactory, ConcurrentMap<String, Queue<SpringValue>>> registry =
+      Maps.newConcurrentMap();
   private final AtomicBoolean initialized = new AtomicBoolean(false);
-  private final Object LOCK = new Object();
 
   public void register(BeanFactory beanFactory, String key, SpringValue springValue) {
-    if (!registry.containsKey(beanFactory)) {
-      synchronized (LOCK) {
-        if (!registry.containsKey(beanFactory)) {
-          registry.put(beanFactory, Multimaps.synchronizedListMultimap(LinkedListMultimap.<String, SpringValue>create()));
-        }
-      }
+    ConcurrentMap<String, Queue<SpringValue>> beanFactorySpringValues = registry.get(beanFactory);
+    if (beanFactorySpringValues == null) {
+      registry.putIfAbsent(beanFactory, Maps.<String, Queue<SpringValue>>newConcurrentMap());
+      beanFactorySpringValues = registry.get(beanFactory);
     }
 
-    registry.get(beanFactory).put(key, springValue);
+    Queue<SpringValue> springValues = beanFactorySpringValues.get(key);
+    if (springValues == null) {
+      beanFactorySpringValues.putIfAbsent(key, new ConcurrentLinkedQueue<SpringValue>());
+      springValues = beanFactorySpringValues.get(key);
+    }
+    springValues.add(springValue);
 
     // lazy initialize
     if (initialized.compareAndSet(false, true)) {
@@ -39,11 +48,15 @@ public class SpringValueRegistry {
   }
 
   public Collection<SpringValue> get(BeanFactory beanFactory, String key) {
-    Multimap<String, SpringValue> beanFactorySpringValues = registry.get(beanFactory);
+    ConcurrentMap<String, Queue<SpringValue>> beanFactorySpringValues = registry.get(beanFactory);
     if (beanFactorySpringValues == null) {
       return null;
     }
-    return beanFactorySpringValues.get(key);
+    Queue<SpringValue> springValues = beanFactorySpringValues.get(key);
+    if (springValues == null) {
+      return Collections.emptyList();
+    }
+    return springValues;
   }
 
   private void initialize() {
@@ -61,15 +74,16 @@ public class SpringValueRegistry {
   }
 
   private void scanAndClean() {
-    Iterator<Multimap<String, SpringValue>> iterator = registry.values().iterator();
-    while (!Thread.currentThread().isInterrupted() && iterator.hasNext()) {
-      Multimap<String, SpringValue> springValues = iterator.next();
-      Iterator<Entry<String, SpringValue>> springValueIterator = springValues.entries().iterator();
-      while (springValueIterator.hasNext()) {
-        Entry<String, SpringValue> springValue = springValueIterator.next();
-        if (!springValue.getValue().isTargetBeanValid()) {
-          // clear unused spring values
-          springValueIterator.remove();
+    for (ConcurrentMap<String, Queue<SpringValue>> beanFactorySpringValues : registry.values()) {
+      for (Queue<SpringValue> springValues : beanFactorySpringValues.values()) {
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+        // clear unused spring values
+        for (Iterator<SpringValue> iterator = springValues.iterator(); iterator.hasNext(); ) {
+          if (!iterator.next().isTargetBeanValid()) {
+            iterator.remove();
+          }
         }
       }
     }
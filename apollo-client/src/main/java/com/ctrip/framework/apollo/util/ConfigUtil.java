@@ -40,6 +40,15 @@ public class ConfigUtil {
   private boolean autoUpdateInjectedSpringProperties = true;
   private final RateLimiter warnLogRateLimiter;
   private boolean propertiesOrdered = false;
+  private boolean batchConfigFetchEnabled = false;
+  private boolean orderedConfigChangeEnabled = false;
+  private boolean binaryLocalCacheEnabled = false;
+  private boolean hedgedConfigFetchEnabled = false;
+  private String localAgentDir = null;
+  //for the parsed values of @ApolloJsonValue
+  private long maxJsonValueCacheSize = 1024 * 1024;//1M characters of json
+  private boolean jsonValueSharedInstancesEnabled = false;
+  private boolean lazyNamespaceActivationEnabled = false;
 
   public ConfigUtil() {
     warnLogRateLimiter = RateLimiter.create(0.017); // 1 warning log output per minute
@@ -52,6 +61,14 @@ public class ConfigUtil {
     initLongPollingInitialDelayInMills();
     initAutoUpdateInjectedSpringProperties();
     initPropertiesOrdered();
+    initBatchConfigFetch();
+    initOrderedConfigChange();
+    initBinaryLocalCache();
+    initHedgedConfigFetch();
+    initLocalAgentDir();
+    initMaxJsonValueCacheSize();
+    initJsonValueSharedInstances();
+    initLazyNamespaceActivation();
   }
 
   /**
@@ -339,4 +356,166 @@ public class ConfigUtil {
   public boolean isPropertiesOrderEnabled() {
     return propertiesOrdered;
   }
+
+  private void initBatchConfigFetch() {
+    // 1. Get from System Property
+    String enableBatchConfigFetch = System.getProperty("apollo.batchConfigFetch.enabled");
+    if (Strings.isNullOrEmpty(enableBatchConfigFetch)) {
+      // 2. Get from app.properties
+      enableBatchConfigFetch = Foundation.app().getProperty("apollo.batchConfigFetch.enabled", null);
+    }
+    if (!Strings.isNullOrEmpty(enableBatchConfigFetch)) {
+      batchConfigFetchEnabled = Boolean.parseBoolean(enableBatchConfigFetch.trim());
+    }
+  }
+
+  /**
+   * Whether to load the namespaces notified by the same long polling response in one request, and to refresh all
+   * the namespaces periodically in one request
+   */
+  public boolean isBatchConfigFetchEnabled() {
+    return batchConfigFetchEnabled;
+  }
+
+  private void initOrderedConfigChange() {
+    // 1. Get from System Property
+    String enableOrderedConfigChange = System.getProperty("apollo.orderedConfigChange.enabled");
+    if (Strings.isNullOrEmpty(enableOrderedConfigChange)) {
+      // 2. Get from app.properties
+      enableOrderedConfigChange = Foundation.app().getProperty("apollo.orderedConfigChange.enabled", null);
+    }
+    if (!Strings.isNullOrEmpty(enableOrderedConfigChange)) {
+      orderedConfigChangeEnabled = Boolean.parseBoolean(enableOrderedConfigChange.trim());
+    }
+  }
+
+  /**
+   * Whether each config change listener should receive the change events one by one in the order they are fired
+   */
+  public boolean isOrderedConfigChangeEnabled() {
+    return orderedConfigChangeEnabled;
+  }
+
+  private void initBinaryLocalCache() {
+    // 1. Get from System Property
+    String enableBinaryLocalCache = System.getProperty("apollo.binaryLocalCache.enabled");
+    if (Strings.isNullOrEmpty(enableBinaryLocalCache)) {
+      // 2. Get from app.properties
+      enableBinaryLocalCache = Foundation.app().getProperty("apollo.binaryLocalCache.enabled", null);
+    }
+    if (!Strings.isNullOrEmpty(enableBinaryLocalCache)) {
+      binaryLocalCacheEnabled = Boolean.parseBoolean(enableBinaryLocalCache.trim());
+    }
+  }
+
+  /**
+   * Whether to persist the local cache files in the background and keep a binary snapshot of them for fast loading
+   */
+  public boolean isBinaryLocalCacheEnabled() {
+    return binaryLocalCacheEnabled;
+  }
+
+  private void initHedgedConfigFetch() {
+    // 1. Get from System Property
+    String enableHedgedConfigFetch = System.getProperty("apollo.hedgedConfigFetch.enabled");
+    if (Strings.isNullOrEmpty(enableHedgedConfigFetch)) {
+      // 2. Get from app.properties
+      enableHedgedConfigFetch = Foundation.app().getProperty("apollo.hedgedConfigFetch.enabled", null);
+    }
+    if (!Strings.isNullOrEmpty(enableHedgedConfigFetch)) {
+      hedgedConfigFetchEnabled = Boolean.parseBoolean(enableHedgedConfigFetch.trim());
+    }
+  }
+
+  /**
+   * Whether to load the config from another config service as well if the first one does not respond in time
+   */
+  public boolean isHedgedConfigFetchEnabled() {
+    return hedgedConfigFetchEnabled;
+  }
+
+  private void initLocalAgentDir() {
+    // 1. Get from System Property
+    String agentDir = System.getProperty("apollo.localAgent.dir");
+    if (Strings.isNullOrEmpty(agentDir)) {
+      // 2. Get from app.properties
+      agentDir = Foundation.app().getProperty("apollo.localAgent.dir", null);
+    }
+    if (!Strings.isNullOrEmpty(agentDir)) {
+      localAgentDir = agentDir.trim();
+    }
+  }
+
+  /**
+   * The directory where the config agent on the same host publishes the configs, if it's set, the configs are
+   * loaded from the agent instead of the config service
+   */
+  public String getLocalAgentDir() {
+    return localAgentDir;
+  }
+
+  private void initMaxJsonValueCacheSize() {
+    // 1. Get from System Property
+    String customizedJsonValueCacheSize = System.getProperty("apollo.jsonValueCacheSize");
+    if (Strings.isNullOrEmpty(customizedJsonValueCacheSize)) {
+      // 2. Get from app.properties
+      customizedJsonValueCacheSize = Foundation.app().getProperty("apollo.jsonValueCacheSize", null);
+    }
+    if (!Strings.isNullOrEmpty(customizedJsonValueCacheSize)) {
+      try {
+        maxJsonValueCacheSize = Long.parseLong(customizedJsonValueCacheSize.trim());
+      } catch (Throwable ex) {
+        logger.error("Config for apollo.jsonValueCacheSize is invalid: {}", customizedJsonValueCacheSize);
+      }
+    }
+  }
+
+  /**
+   * The max total length in characters of the @ApolloJsonValue json cached along with the parsed values, 0 to disable
+   * the cache
+   */
+  public long getMaxJsonValueCacheSize() {
+    return maxJsonValueCacheSize;
+  }
+
+  private void initJsonValueSharedInstances() {
+    // 1. Get from System Property
+    String enableJsonValueSharedInstances = System.getProperty("apollo.jsonValue.sharedInstances.enabled");
+    if (Strings.isNullOrEmpty(enableJsonValueSharedInstances)) {
+      // 2. Get from app.properties
+      enableJsonValueSharedInstances = Foundation.app()
+          .getProperty("apollo.jsonValue.sharedInstances.enabled", null);
+    }
+    if (!Strings.isNullOrEmpty(enableJsonValueSharedInstances)) {
+      jsonValueSharedInstancesEnabled = Boolean.parseBoolean(enableJsonValueSharedInstances.trim());
+    }
+  }
+
+  /**
+   * Whether to inject the same parsed @ApolloJsonValue instance into all the targets with the same json and type,
+   * the instances must not be modified then. Otherwise each target gets its own copy.
+   */
+  public boolean isJsonValueSharedInstancesEnabled() {
+    return jsonValueSharedInstancesEnabled;
+  }
+
+  private void initLazyNamespaceActivation() {
+    // 1. Get from System Property
+    String enableLazyNamespaceActivation = System.getProperty("apollo.lazyNamespaceActivation.enabled");
+    if (Strings.isNullOrEmpty(enableLazyNamespaceActivation)) {
+      // 2. Get from app.properties
+      enableLazyNamespaceActivation = Foundation.app()
+          .getProperty("apollo.lazyNamespaceActivation.enabled", null);
+    }
+    if (!Strings.isNullOrEmpty(enableLazyNamespaceActivation)) {
+      lazyNamespaceActivationEnabled = Boolean.parseBoolean(enableLazyNamespaceActivation.trim());
+    }
+  }
+
+  /**
+   * Whether to load and long poll a namespace only when its config properties are accessed for the first time
+   */
+  public boolean isLazyNamespaceActivationEnabled() {
+    return lazyNamespaceActivationEnabled;
+  }
 }
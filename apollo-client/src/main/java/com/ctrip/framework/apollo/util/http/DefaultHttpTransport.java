@@ -0,0 +1,164 @@
+package com.ctrip.framework.apollo.util.http;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.spi.Ordered;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Function;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The default transport based on {@link HttpURLConnection}.
+ *
+ * <p>The response body is read as a stream instead of being copied into a string first, and is always read to the
+ * end so that the connection could be put back to the keep-alive pool of the JDK and reused, see
+ * https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html. The pool size is controlled by
+ * the http.maxConnections system property.</p>
+ */
+public class DefaultHttpTransport implements HttpTransport {
+  private static final String GZIP_ENCODING = "gzip";
+  private static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+  private final ConfigUtil m_configUtil;
+
+  /**
+   * Constructor.
+   */
+  public DefaultHttpTransport() {
+    m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+  }
+
+  @Override
+  public <T> HttpResponse<T> execute(String method, HttpRequest httpRequest, String body,
+                                     Function<Reader, T> responseReader) {
+    InputStream inputStream = null;
+    InputStream errorStream = null;
+    int statusCode;
+    try {
+      HttpURLConnection conn = (HttpURLConnection) new URL(httpRequest.getUrl()).openConnection();
+
+      conn.setRequestMethod(method);
+
+      conn.setRequestProperty("Accept-Encoding", GZIP_ENCODING);
+
+      Map<String, String> headers = httpRequest.getHeaders();
+      if (headers != null && headers.size() > 0) {
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+          conn.setRequestProperty(entry.getKey(), entry.getValue());
+        }
+      }
+
+      int connectTimeout = httpRequest.getConnectTimeout();
+      if (connectTimeout < 0) {
+        connectTimeout = m_configUtil.getConnectTimeout();
+      }
+
+      int readTimeout = httpRequest.getReadTimeout();
+      if (readTimeout < 0) {
+        readTimeout = m_configUtil.getReadTimeout();
+      }
+
+      if (body != null) {
+        conn.setDoOutput(true);
+        conn.setRequestProperty("Content-Type", JSON_CONTENT_TYPE);
+      }
+
+      conn.setConnectTimeout(connectTimeout);
+      conn.setReadTimeout(readTimeout);
+
+      conn.connect();
+
+      if (body != null) {
+        OutputStream outputStream = conn.getOutputStream();
+        try {
+          outputStream.write(body.getBytes(StandardCharsets.UTF_8));
+        } finally {
+          outputStream.close();
+        }
+      }
+
+      statusCode = conn.getResponseCode();
+
+      try {
+        inputStream = conn.getInputStream();
+        //only 200 has a body, some proxies keep the encoding header of 304 though
+        if (statusCode == 200 && GZIP_ENCODING.equalsIgnoreCase(conn.getContentEncoding())) {
+          inputStream = new GZIPInputStream(inputStream);
+        }
+      } catch (IOException ex) {
+        /**
+         * according to https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html,
+         * we should clean up the connection by reading the response body so that the connection
+         * could be reused.
+         */
+        errorStream = conn.getErrorStream();
+        exhaust(errorStream);
+
+        // 200 and 304 should not trigger IOException, thus we must throw the original exception out
+        if (statusCode == 200 || statusCode == 304) {
+          throw ex;
+        }
+        // for status codes like 404, IOException is expected when calling conn.getInputStream()
+        throw new ApolloConfigStatusCodeException(statusCode, ex);
+      }
+
+      T result = null;
+      if (statusCode == 200) {
+        result = responseReader.apply(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+      }
+      //the json reader might stop before the end of the body
+      exhaust(inputStream);
+
+      if (statusCode == 200 || statusCode == 304) {
+        return new HttpResponse<>(statusCode, result);
+      }
+    } catch (ApolloConfigStatusCodeException ex) {
+      throw ex;
+    } catch (Throwable ex) {
+      throw new ApolloConfigException(String.format("Could not complete %s operation", method.toLowerCase()), ex);
+    } finally {
+      close(inputStream);
+      close(errorStream);
+    }
+
+    throw new ApolloConfigStatusCodeException(statusCode,
+        String.format("%s operation failed for %s", method, httpRequest.getUrl()));
+  }
+
+  private void exhaust(InputStream inputStream) {
+    if (inputStream == null) {
+      return;
+    }
+    try {
+      ByteStreams.copy(inputStream, ByteStreams.nullOutputStream());
+    } catch (IOException ex) {
+      //ignore
+    }
+  }
+
+  private void close(InputStream inputStream) {
+    if (inputStream == null) {
+      return;
+    }
+    try {
+      inputStream.close();
+    } catch (IOException ex) {
+      // ignore
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.LOWEST_PRECEDENCE;
+  }
+}
@@ -0,0 +1,25 @@
+package com.ctrip.framework.apollo.util.http;
+
+import com.ctrip.framework.apollo.core.spi.Ordered;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.google.common.base.Function;
+import java.io.Reader;
+
+/**
+ * The transport which sends the http requests of apollo client, the one with the highest precedence is used.
+ */
+public interface HttpTransport extends Ordered {
+
+  /**
+   * Send the request and read the response body if the status code is 200.
+   *
+   * @param method         the http method, e.g. GET, POST
+   * @param httpRequest    the request
+   * @param body           the json request body, or null if there is no body
+   * @param responseReader reads the response from the body, the reader is closed by the transport
+   * @return the response
+   * @throws ApolloConfigException if any error happened or response code is neither 200 nor 304
+   */
+  <T> HttpResponse<T> execute(String method, HttpRequest httpRequest, String body,
+                              Function<Reader, T> responseReader);
+}
@@ -2,9 +2,13 @@ package com.ctrip.framework.apollo.util.yaml;
 
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
+import java.io.StringReader;
 import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -14,8 +18,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
 import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
 import org.yaml.snakeyaml.parser.ParserException;
+import org.yaml.snakeyaml.resolver.Resolver;
 
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 
@@ -28,11 +40,166 @@ public class YamlParser {
   private static final Logger logger = LoggerFactory.getLogger(YamlParser.class);
 
   private PropertiesFactory propertiesFactory = ApolloInjector.getInstance(PropertiesFactory.class);
+  private final Resolver resolver = new Resolver();
 
   /**
    * Transform yaml content to properties
    */
   public Properties yamlToProperties(String yamlContent) {
+    Properties result = streamingYamlToProperties(yamlContent);
+    if (result != null) {
+      return result;
+    }
+    return treeYamlToProperties(yamlContent);
+  }
+
+  /**
+   * Flatten the yaml content while walking the parser events, so the intermediate node tree and the nested maps of
+   * each document are never built.
+   *
+   * @return the properties, or null if the content uses features only supported by the tree based parsing, e.g.
+   * aliases, merge keys, complex keys or explicitly tagged collections
+   */
+  private Properties streamingYamlToProperties(String yamlContent) {
+    StrictMapAppenderConstructor constructor = new StrictMapAppenderConstructor();
+    Yaml yaml = new Yaml(constructor);
+    Properties result = propertiesFactory.getPropertiesInstance();
+    Deque<Frame> frames = new ArrayDeque<>();
+    int count = 0;
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Loading from YAML: " + yamlContent);
+    }
+
+    for (Event event : yaml.parse(new StringReader(yamlContent))) {
+      if (event.is(Event.ID.DocumentStart)) {
+        frames.clear();
+        count++;
+        continue;
+      }
+      if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+        frames.pop();
+        continue;
+      }
+      if (event.is(Event.ID.Alias)) {
+        return null;
+      }
+
+      boolean isScalar = event.is(Event.ID.Scalar);
+      boolean isMapping = event.is(Event.ID.MappingStart);
+      if (!isScalar && !isMapping && !event.is(Event.ID.SequenceStart)) {
+        continue;
+      }
+
+      Frame parent = frames.peek();
+
+      // a mapping key
+      if (parent != null && parent.isExpectingKey()) {
+        if (!isScalar) {
+          return null;
+        }
+        ScalarEvent scalarEvent = (ScalarEvent) event;
+        ScalarNode node = toScalarNode(scalarEvent);
+        if (Tag.MERGE.equals(node.getTag())) {
+          return null;
+        }
+        Object key = constructScalar(constructor, node);
+        if (key == null) {
+          return null;
+        }
+        String name = key instanceof CharSequence ? key.toString() : "[" + key.toString() + "]";
+        Object previous = parent.keys.put(name, key);
+        if (previous != null) {
+          if (previous.equals(key)) {
+            throw new ParserException("while parsing MappingNode", parent.startMark, "Duplicate key: " + key,
+                scalarEvent.getEndMark());
+          }
+          // different keys with the same name, the last one wins in the tree based parsing
+          return null;
+        }
+        parent.pendingPath = join(parent.path, name);
+        continue;
+      }
+
+      String path;
+      if (parent == null) {
+        // a document can be a text literal or a list
+        path = isMapping ? null : "document";
+      } else if (parent.keys == null) {
+        path = join(parent.path, "[" + (parent.index++) + "]");
+      } else {
+        path = parent.pendingPath;
+        parent.pendingPath = null;
+      }
+
+      if (isScalar) {
+        ScalarNode node = toScalarNode((ScalarEvent) event);
+        if (Tag.MERGE.equals(node.getTag())) {
+          return null;
+        }
+        String value;
+        if (Tag.STR.equals(node.getTag())) {
+          value = node.getValue();
+        } else {
+          Object object = constructScalar(constructor, node);
+          if (object == null && parent == null) {
+            // null documents are skipped
+            count--;
+            continue;
+          }
+          value = object != null ? object.toString() : "";
+        }
+        result.put(path, value);
+        continue;
+      }
+
+      CollectionStartEvent collectionStartEvent = (CollectionStartEvent) event;
+      if (!collectionStartEvent.getImplicit()) {
+        // e.g. !!set or !!omap which are constructed as other types
+        return null;
+      }
+      frames.push(new Frame(path, isMapping, event.getStartMark()));
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("Loaded " + count + " document" + (count > 1 ? "s" : "") + " from YAML resource: " + yamlContent);
+    }
+
+    return result;
+  }
+
+  private ScalarNode toScalarNode(ScalarEvent event) {
+    String tag = event.getTag();
+    Tag nodeTag;
+    boolean resolved = false;
+    if (tag == null || tag.equals("!")) {
+      nodeTag = resolver.resolve(NodeId.scalar, event.getValue(), event.getImplicit().canOmitTagInPlainScalar());
+      resolved = true;
+    } else {
+      nodeTag = new Tag(tag);
+    }
+    return new ScalarNode(nodeTag, resolved, event.getValue(), event.getStartMark(), event.getEndMark(),
+        event.getStyle());
+  }
+
+  private Object constructScalar(StrictMapAppenderConstructor constructor, ScalarNode node) {
+    if (Tag.STR.equals(node.getTag())) {
+      return node.getValue();
+    }
+    return constructor.constructScalarObject(node);
+  }
+
+  private String join(String path, String name) {
+    if (StringUtils.isBlank(path)) {
+      return name;
+    }
+    if (name.startsWith("[")) {
+      return path + name;
+    }
+    return path + '.' + name;
+  }
+
+  private Properties treeYamlToProperties(String yamlContent) {
     Yaml yaml = createYaml();
     final Properties result = propertiesFactory.getPropertiesInstance();
     process(new MatchCallback() {
@@ -143,6 +310,28 @@ public class YamlParser {
     }
   }
 
+  /**
+   * The mapping or sequence being walked
+   */
+  private static class Frame {
+    private final String path;
+    private final Mark startMark;
+    // the constructed keys by their names, null for a sequence
+    private final Map<String, Object> keys;
+    private String pendingPath;
+    private int index;
+
+    Frame(String path, boolean isMapping, Mark startMark) {
+      this.path = path;
+      this.startMark = startMark;
+      this.keys = isMapping ? new HashMap<String, Object>() : null;
+    }
+
+    boolean isExpectingKey() {
+      return keys != null && pendingPath == null;
+    }
+  }
+
   private interface MatchCallback {
     void process(Properties properties, Map<String, Object> map);
   }
@@ -154,6 +343,10 @@ public class YamlParser {
       super();
     }
 
+    Object constructScalarObject(ScalarNode node) {
+      return getConstructor(node).construct(node);
+    }
+
     @Override
     protected Map<Object, Object> constructMapping(MappingNode node) {
       try {
@@ -0,0 +1,135 @@
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.factory.DefaultPropertiesFactory;
+import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
+import com.google.common.io.Files;
+import java.io.File;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AgentConfigRepositoryTest {
+  private static String someAppId = "someApp";
+  private static String someCluster = "someCluster";
+  private static File someAgentDir;
+  private String someNamespace;
+  private AgentConfigPublisher publisher;
+
+  @Before
+  public void setUp() throws Exception {
+    someAgentDir = Files.createTempDir();
+    someNamespace = "someNamespace";
+
+    MockInjector.reset();
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil());
+    MockInjector.setInstance(PropertiesFactory.class, new DefaultPropertiesFactory());
+
+    publisher = new AgentConfigPublisher(someAgentDir, someAppId, someCluster);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    for (File file : someAgentDir.listFiles()) {
+      file.delete();
+    }
+    someAgentDir.delete();
+  }
+
+  @Test
+  public void testLoadConfigPublishedByAgent() throws Exception {
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    publisher.publish(someNamespace, someProperties);
+
+    AgentConfigRepository repository = new AgentConfigRepository(someNamespace);
+    RepositoryChangeListener someListener = mock(RepositoryChangeListener.class);
+    repository.addChangeListener(someListener);
+
+    assertEquals(someProperties, repository.getConfig());
+
+    //not changed
+    repository.checkSequence();
+    verify(someListener, never()).onRepositoryChange(any(String.class), any(Properties.class));
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("someKey", "anotherValue");
+    publisher.publish(someNamespace, anotherProperties);
+    repository.checkSequence();
+
+    assertEquals(anotherProperties, repository.getConfig());
+    verify(someListener, times(1)).onRepositoryChange(someNamespace, anotherProperties);
+  }
+
+  @Test
+  public void testLoadConfigPublishedByAgentLater() throws Exception {
+    AgentConfigRepository repository = new AgentConfigRepository(someNamespace);
+    RepositoryChangeListener someListener = mock(RepositoryChangeListener.class);
+    repository.addChangeListener(someListener);
+
+    repository.checkSequence();
+    verify(someListener, never()).onRepositoryChange(any(String.class), any(Properties.class));
+
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    publisher.register(someNamespace, new MockConfigRepository(someProperties));
+    repository.checkSequence();
+
+    assertEquals(someProperties, repository.getConfig());
+    verify(someListener, times(1)).onRepositoryChange(eq(someNamespace), eq(someProperties));
+  }
+
+  public static class MockConfigUtil extends ConfigUtil {
+    @Override
+    public String getAppId() {
+      return someAppId;
+    }
+
+    @Override
+    public String getCluster() {
+      return someCluster;
+    }
+
+    @Override
+    public String getLocalAgentDir() {
+      return someAgentDir.getAbsolutePath();
+    }
+  }
+
+  private static class MockConfigRepository extends AbstractConfigRepository {
+    private final Properties m_properties;
+
+    MockConfigRepository(Properties properties) {
+      m_properties = properties;
+    }
+
+    @Override
+    protected void sync() {
+    }
+
+    @Override
+    public Properties getConfig() {
+      return m_properties;
+    }
+
+    @Override
+    public void setUpstreamRepository(ConfigRepository upstreamConfigRepository) {
+    }
+
+    @Override
+    public ConfigSourceType getSourceType() {
+      return ConfigSourceType.REMOTE;
+    }
+  }
+}
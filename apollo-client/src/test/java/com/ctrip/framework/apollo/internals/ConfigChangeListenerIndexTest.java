@@ -0,0 +1,68 @@
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigChangeListenerIndexTest {
+  private ConfigChangeListener interestedInAllKeys;
+  private ConfigChangeListener interestedInSomeKey;
+  private ConfigChangeListener interestedInSomePrefix;
+  private ConfigChangeListener interestedInAnotherPrefix;
+  private ConfigChangeListenerIndex index;
+
+  @Before
+  public void setUp() throws Exception {
+    interestedInAllKeys = mock(ConfigChangeListener.class);
+    interestedInSomeKey = mock(ConfigChangeListener.class);
+    interestedInSomePrefix = mock(ConfigChangeListener.class);
+    interestedInAnotherPrefix = mock(ConfigChangeListener.class);
+
+    Map<ConfigChangeListener, Set<String>> interestedKeys = ImmutableMap.<ConfigChangeListener, Set<String>>of(
+        interestedInSomeKey, Sets.newHashSet("someKey"));
+    Map<ConfigChangeListener, Set<String>> interestedKeyPrefixes = ImmutableMap.<ConfigChangeListener, Set<String>>of(
+        interestedInSomePrefix, Sets.newHashSet("some."),
+        interestedInAnotherPrefix, Sets.newHashSet("some.another.", "yetAnother"));
+
+    index = new ConfigChangeListenerIndex(Lists.newArrayList(interestedInAnotherPrefix, interestedInSomeKey,
+        interestedInAllKeys, interestedInSomePrefix), interestedKeys, interestedKeyPrefixes);
+  }
+
+  @Test
+  public void testFindInterestedListeners() throws Exception {
+    assertEquals(Lists.newArrayList(interestedInSomeKey, interestedInAllKeys),
+        index.findInterestedListeners(Sets.newHashSet("someKey")));
+    assertEquals(Lists.newArrayList(interestedInAllKeys, interestedInSomePrefix),
+        index.findInterestedListeners(Sets.newHashSet("some.key")));
+    //the listeners are returned in the order they are added
+    assertEquals(Lists.newArrayList(interestedInAnotherPrefix, interestedInAllKeys, interestedInSomePrefix),
+        index.findInterestedListeners(Sets.newHashSet("some.another.key")));
+    assertEquals(Lists.newArrayList(interestedInAnotherPrefix, interestedInSomeKey, interestedInAllKeys),
+        index.findInterestedListeners(Sets.newHashSet("someKey", "yetAnotherKey")));
+    assertEquals(Lists.newArrayList(interestedInAllKeys),
+        index.findInterestedListeners(Sets.newHashSet("some", "someKeyNotInterested")));
+  }
+
+  @Test
+  public void testFindInterestedListenersWithoutListenerInterestedInAllKeys() throws Exception {
+    ConfigChangeListenerIndex anotherIndex = new ConfigChangeListenerIndex(
+        Lists.newArrayList(interestedInSomeKey), ImmutableMap.<ConfigChangeListener, Set<String>>of(
+        interestedInSomeKey, Sets.newHashSet("someKey")), Collections.<ConfigChangeListener, Set<String>>emptyMap());
+
+    List<ConfigChangeListener> result = anotherIndex.findInterestedListeners(Sets.newHashSet("anotherKey"));
+
+    assertTrue(result.isEmpty());
+    assertTrue(ConfigChangeListenerIndex.EMPTY.findInterestedListeners(Sets.newHashSet("someKey")).isEmpty());
+  }
+}
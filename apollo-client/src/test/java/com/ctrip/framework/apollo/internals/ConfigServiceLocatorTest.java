@@ -3,6 +3,9 @@ package com.ctrip.framework.apollo.internals;
 import static org.junit.Assert.assertEquals;
 
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.google.common.collect.Lists;
 import java.util.List;
 import org.junit.After;
 import org.junit.Test;
@@ -30,4 +33,48 @@ public class ConfigServiceLocatorTest {
     assertEquals(someConfigServiceUrl.trim(), result.get(0).getHomepageUrl());
     assertEquals(anotherConfigServiceUrl.trim(), result.get(1).getHomepageUrl());
   }
+
+  @Test
+  public void testSortInPreferredOrder() throws Exception {
+    String someConfigServiceUrl = "someConfigServiceUrl";
+    String anotherConfigServiceUrl = "anotherConfigServiceUrl";
+
+    System.setProperty("apollo.configService", someConfigServiceUrl + "," + anotherConfigServiceUrl);
+
+    ConfigServiceLocator configServiceLocator = new ConfigServiceLocator();
+    List<ServiceDTO> services = configServiceLocator.getConfigServices();
+    configServiceLocator.onAccessSucceeded(services.get(0), 500);
+    configServiceLocator.onAccessSucceeded(services.get(1), 10);
+    configServiceLocator.onAccessFailed(services.get(1), new ApolloConfigStatusCodeException(404, "not found"));
+
+    //the fast one is always preferred when there are only two config services
+    for (int i = 0; i < 10; i++) {
+      List<ServiceDTO> result = Lists.newArrayList(services);
+      configServiceLocator.sortInPreferredOrder(result);
+      assertEquals(anotherConfigServiceUrl, result.get(0).getHomepageUrl());
+    }
+
+    configServiceLocator.onAccessFailed(services.get(1), new ApolloConfigException("some error"));
+    configServiceLocator.onAccessFailed(services.get(1), new ApolloConfigException("some error"));
+
+    for (int i = 0; i < 10; i++) {
+      List<ServiceDTO> result = Lists.newArrayList(services);
+      configServiceLocator.sortInPreferredOrder(result);
+      assertEquals(someConfigServiceUrl, result.get(0).getHomepageUrl());
+    }
+  }
+
+  @Test
+  public void testGetHedgeDelayInMillis() throws Exception {
+    System.setProperty("apollo.configService", "someConfigServiceUrl");
+
+    ConfigServiceLocator configServiceLocator = new ConfigServiceLocator();
+    ServiceDTO someService = configServiceLocator.getConfigServices().get(0);
+
+    assertEquals(1000, configServiceLocator.getHedgeDelayInMillis(someService));
+
+    configServiceLocator.onAccessSucceeded(someService, 100);
+
+    assertEquals(200, configServiceLocator.getHedgeDelayInMillis(someService));
+  }
 }
@@ -2,10 +2,15 @@ package com.ctrip.framework.apollo.internals;
 
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
+import com.ctrip.framework.apollo.ConfigChangeListener;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.google.common.collect.Sets;
+import java.util.Collections;
 import java.util.Properties;
 import java.util.Set;
 
@@ -59,6 +64,32 @@ public class DefaultConfigManagerTest {
         config, equalTo(anotherConfig));
   }
 
+  @Test
+  public void testGetConfigLazily() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithLazyNamespaceActivation());
+    defaultConfigManager = new DefaultConfigManager();
+
+    String someNamespace = "someName";
+    String anotherNamespace = "anotherName";
+    String someKey = "someKey";
+    ConfigChangeListener someListener = mock(ConfigChangeListener.class);
+    ConfigChangeListener anotherListener = mock(ConfigChangeListener.class);
+
+    Config config = defaultConfigManager.getConfig(someNamespace);
+    defaultConfigManager.getConfig(anotherNamespace);
+    config.addChangeListener(someListener);
+    config.addChangeListener(anotherListener);
+
+    assertEquals(Sets.newHashSet(someNamespace, anotherNamespace), defaultConfigManager.getInactiveNamespaces());
+    assertTrue(config.removeChangeListener(anotherListener));
+
+    assertEquals(someNamespace + ":" + someKey, config.getProperty(someKey, null));
+    assertEquals(Collections.singleton(anotherNamespace), defaultConfigManager.getInactiveNamespaces());
+    // the listener added before the activation is added to the actual config
+    assertTrue(config.removeChangeListener(someListener));
+    assertFalse(config.removeChangeListener(anotherListener));
+  }
+
   @Test
   public void testGetConfigFile() throws Exception {
     String someNamespace = "someName";
@@ -87,6 +118,13 @@ public class DefaultConfigManagerTest {
 
   }
 
+  public static class MockConfigUtilWithLazyNamespaceActivation extends ConfigUtil {
+    @Override
+    public boolean isLazyNamespaceActivationEnabled() {
+      return true;
+    }
+  }
+
   public static class MockConfigFactoryManager implements ConfigFactoryManager {
 
     @Override
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -22,6 +23,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Function;
@@ -163,18 +165,41 @@ public class DefaultConfigTest {
     Integer someDefaultValue = -1;
 
     //set up config repo
-    someProperties = mock(Properties.class);
-    when(someProperties.getProperty(someKey)).thenReturn(String.valueOf(someValue));
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, String.valueOf(someValue));
     when(configRepository.getConfig()).thenReturn(someProperties);
 
     DefaultConfig defaultConfig =
-        new DefaultConfig(someNamespace, configRepository);
+        spy(new DefaultConfig(someNamespace, configRepository));
 
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
 
-    verify(someProperties, times(1)).getProperty(someKey);
+    verify(defaultConfig, times(1)).getProperty(someKey, null);
+  }
+
+  @Test
+  public void testGetPropertyOfDifferentTypesWithCache() throws Exception {
+    String someKey = "someKey";
+    String someValue = "2";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, someValue);
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        spy(new DefaultConfig(someNamespace, configRepository));
+
+    assertEquals(Integer.valueOf(2), defaultConfig.getIntProperty(someKey, -1));
+    assertEquals(Long.valueOf(2), defaultConfig.getLongProperty(someKey, -1L));
+    assertArrayEquals(new String[]{someValue}, defaultConfig.getArrayProperty(someKey, ",", null));
+    assertEquals(Integer.valueOf(2), defaultConfig.getIntProperty(someKey, -1));
+    assertEquals(Long.valueOf(2), defaultConfig.getLongProperty(someKey, -1L));
+    assertArrayEquals(new String[]{someValue}, defaultConfig.getArrayProperty(someKey, ",", null));
+
+    verify(defaultConfig, times(3)).getProperty(someKey, null);
   }
 
   @Test
@@ -216,27 +241,27 @@ public class DefaultConfigTest {
     MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithSmallCache());
 
     //set up config repo
-    someProperties = mock(Properties.class);
-    when(someProperties.getProperty(someKey)).thenReturn(String.valueOf(someValue));
-    when(someProperties.getProperty(anotherKey)).thenReturn(String.valueOf(anotherValue));
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, String.valueOf(someValue));
+    someProperties.setProperty(anotherKey, String.valueOf(anotherValue));
     when(configRepository.getConfig()).thenReturn(someProperties);
 
     DefaultConfig defaultConfig =
-        new DefaultConfig(someNamespace, configRepository);
+        spy(new DefaultConfig(someNamespace, configRepository));
 
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
 
-    verify(someProperties, times(1)).getProperty(someKey);
+    verify(defaultConfig, times(1)).getProperty(someKey, null);
 
     assertEquals(anotherValue, defaultConfig.getIntProperty(anotherKey, someDefaultValue));
     assertEquals(anotherValue, defaultConfig.getIntProperty(anotherKey, someDefaultValue));
 
-    verify(someProperties, times(1)).getProperty(anotherKey);
+    verify(defaultConfig, times(1)).getProperty(anotherKey, null);
 
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
 
-    verify(someProperties, times(2)).getProperty(someKey);
+    verify(defaultConfig, times(2)).getProperty(someKey, null);
   }
 
   @Test
@@ -249,24 +274,24 @@ public class DefaultConfigTest {
     MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithShortExpireTime());
 
     //set up config repo
-    someProperties = mock(Properties.class);
-    when(someProperties.getProperty(someKey)).thenReturn(String.valueOf(someValue));
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, String.valueOf(someValue));
     when(configRepository.getConfig()).thenReturn(someProperties);
 
     DefaultConfig defaultConfig =
-        new DefaultConfig(someNamespace, configRepository);
+        spy(new DefaultConfig(someNamespace, configRepository));
 
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
 
-    verify(someProperties, times(1)).getProperty(someKey);
+    verify(defaultConfig, times(1)).getProperty(someKey, null);
 
     TimeUnit.MILLISECONDS.sleep(50);
 
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
     assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
 
-    verify(someProperties, times(2)).getProperty(someKey);
+    verify(defaultConfig, times(2)).getProperty(someKey, null);
   }
 
   @Test
@@ -443,24 +468,24 @@ public class DefaultConfigTest {
     String[] someDefaultValue = new String[]{"1", "2"};
 
     //set up config repo
-    someProperties = mock(Properties.class);
-    when(someProperties.getProperty(someKey)).thenReturn(someValue);
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, someValue);
     when(configRepository.getConfig()).thenReturn(someProperties);
 
     DefaultConfig defaultConfig =
-        new DefaultConfig(someNamespace, configRepository);
+        spy(new DefaultConfig(someNamespace, configRepository));
 
     assertArrayEquals(values, defaultConfig.getArrayProperty(someKey, someDelimiter, someDefaultValue));
     assertArrayEquals(values, defaultConfig.getArrayProperty(someKey, someDelimiter, someDefaultValue));
 
-    verify(someProperties, times(1)).getProperty(someKey);
+    verify(defaultConfig, times(1)).getProperty(someKey, null);
 
     assertArrayEquals(someDefaultValue, defaultConfig.getArrayProperty(someKey, someInvalidDelimiter,
         someDefaultValue));
     assertArrayEquals(someDefaultValue, defaultConfig.getArrayProperty(someKey, someInvalidDelimiter,
         someDefaultValue));
 
-    verify(someProperties, times(3)).getProperty(someKey);
+    verify(defaultConfig, times(3)).getProperty(someKey, null);
   }
 
   @Test
@@ -723,6 +748,37 @@ public class DefaultConfigTest {
     assertFalse(interestedInSomeKeyNotChangedFuture.isDone());
   }
 
+  @Test
+  public void testFireConfigChangeInOrder() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithOrderedConfigChange());
+
+    String someNamespace = "someNamespace";
+    int someEventCount = 20;
+    final List<ConfigChangeEvent> receivedEvents = Collections.synchronizedList(
+        Lists.<ConfigChangeEvent>newArrayList());
+    final CountDownLatch allReceived = new CountDownLatch(someEventCount);
+    ConfigChangeListener someListener = new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        receivedEvents.add(changeEvent);
+        allReceived.countDown();
+      }
+    };
+
+    DefaultConfig config = new DefaultConfig(someNamespace, mock(ConfigRepository.class));
+    config.addChangeListener(someListener);
+
+    List<ConfigChangeEvent> someEvents = Lists.newArrayList();
+    for (int i = 0; i < someEventCount; i++) {
+      ConfigChangeEvent someEvent = mock(ConfigChangeEvent.class);
+      someEvents.add(someEvent);
+      config.fireConfigChange(someEvent);
+    }
+
+    assertTrue(allReceived.await(500, TimeUnit.MILLISECONDS));
+    assertEquals(someEvents, receivedEvents);
+  }
+
   @Test
   public void testRemoveChangeListener() throws Exception {
     String someNamespace = "someNamespace";
@@ -801,6 +857,19 @@ public class DefaultConfigTest {
     assertEquals(someProperties.stringPropertyNames(), propertyNames);
   }
 
+  @Test
+  public void testGetPropertyNamesReturnsCopy() {
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig = new DefaultConfig(someNamespace, configRepository);
+
+    defaultConfig.getPropertyNames().remove("someKey");
+
+    assertEquals(Collections.singleton("someKey"), defaultConfig.getPropertyNames());
+  }
+
   @Test
   public void testGetPropertyNamesWithNullProp() {
     when(configRepository.getConfig()).thenReturn(null);
@@ -908,6 +977,13 @@ public class DefaultConfigTest {
     }
   }
 
+  public static class MockConfigUtilWithOrderedConfigChange extends MockConfigUtil {
+    @Override
+    public boolean isOrderedConfigChangeEnabled() {
+      return true;
+    }
+  }
+
   public static class MockConfigUtilWithSmallCache extends MockConfigUtil {
     @Override
     public long getMaxConfigCacheSize() {
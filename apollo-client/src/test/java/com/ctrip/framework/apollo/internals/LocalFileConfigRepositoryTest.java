@@ -6,7 +6,9 @@ import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.isIn;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -14,6 +16,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.util.OrderedProperties;
 import com.ctrip.framework.apollo.util.factory.DefaultPropertiesFactory;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import java.io.File;
@@ -21,6 +24,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.hamcrest.Matcher;
 import org.junit.After;
@@ -33,6 +37,7 @@ import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
 import com.google.common.io.Files;
 
 /**
@@ -220,6 +225,124 @@ public class LocalFileConfigRepositoryTest {
     assertEquals(anotherSourceType, localFileConfigRepository.getSourceType());
   }
 
+  @Test
+  public void testPersistAndLoadConfigWithBinaryLocalCache() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithBinaryLocalCache());
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace, upstreamRepo);
+    localRepo.setLocalCacheDir(someBaseDir, false);
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("anotherKey", "anotherValue\nxxx\u4e2d\u6587");
+    anotherProperties.setProperty("yetAnotherKey", "");
+    localRepo.onRepositoryChange(someNamespace, anotherProperties);
+
+    File snapshotFile = localRepo.assembleLocalCacheSnapshotFile(someBaseDir, someNamespace);
+    File propertiesFile = localRepo.assembleLocalCacheFile(someBaseDir, someNamespace);
+    // the initial upstream config might be persisted before the changed one
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!anotherProperties.equals(readSnapshotQuietly(snapshotFile)) && System.currentTimeMillis() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+
+    assertEquals(anotherProperties, readSnapshotQuietly(snapshotFile));
+    assertTrue(propertiesFile.exists());
+
+    // the snapshot is loaded even without the properties file
+    propertiesFile.delete();
+    LocalFileConfigRepository anotherLocalRepo = new LocalFileConfigRepository(someNamespace);
+    anotherLocalRepo.setLocalCacheDir(someBaseDir, true);
+
+    assertEquals(anotherProperties, anotherLocalRepo.getConfig());
+  }
+
+  @Test
+  public void testLoadConfigWithCorruptedBinaryLocalCache() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithBinaryLocalCache());
+
+    String someKey = "someKey";
+    String someValue = "someValue";
+
+    Properties someProperties = new Properties();
+    someProperties.setProperty(someKey, someValue);
+    createLocalCachePropertyFile(someProperties);
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace);
+    Files.write("corrupted", localRepo.assembleLocalCacheSnapshotFile(someBaseDir, someNamespace), Charsets.UTF_8);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    assertEquals(someValue, localRepo.getConfig().getProperty(someKey));
+  }
+
+  @Test
+  public void testIgnoreStaleBinaryLocalCache() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithBinaryLocalCache());
+
+    String someKey = "someKey";
+    Properties staleProperties = new Properties();
+    staleProperties.setProperty(someKey, "staleValue");
+    Properties someProperties = new Properties();
+    someProperties.setProperty(someKey, "someValue");
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace);
+    File snapshotFile = localRepo.assembleLocalCacheSnapshotFile(someBaseDir, someNamespace);
+    LocalCacheSnapshot.write(snapshotFile, staleProperties);
+    File propertiesFile = createLocalCachePropertyFile(someProperties);
+    // the properties file is persisted after the snapshot, e.g. while the binary local cache was disabled
+    propertiesFile.setLastModified(snapshotFile.lastModified() + 10000);
+
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    assertEquals("someValue", localRepo.getConfig().getProperty(someKey));
+  }
+
+  @Test
+  public void testBinaryLocalCacheKeepsPropertiesOrder() throws Exception {
+    Properties orderedProperties = new OrderedProperties();
+    for (int i = 20; i > 0; i--) {
+      orderedProperties.setProperty("key" + i, "value" + i);
+    }
+    File snapshotFile = new File(someBaseDir, "ordered.snapshot");
+
+    LocalCacheSnapshot.write(snapshotFile, orderedProperties);
+    Properties loaded = LocalCacheSnapshot.read(snapshotFile, new OrderedProperties());
+
+    assertEquals(Lists.newArrayList(orderedProperties.stringPropertyNames()),
+        Lists.newArrayList(loaded.stringPropertyNames()));
+    assertFalse(new File(someBaseDir, "ordered.snapshot.tmp").exists());
+  }
+
+  @Test
+  public void testLoadConfigFromLegacyLocalCacheFile() throws Exception {
+    String someKey = "someKey";
+    String someValue = "someValue";
+    Properties someProperties = new Properties();
+    someProperties.setProperty(someKey, someValue);
+
+    // the local cache file of the namespace requested as someName.properties before
+    File legacyFile = new File(someBaseDir, Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
+        .join(someAppId, someCluster, someNamespace + ".properties") + ".properties");
+    FileOutputStream out = new FileOutputStream(legacyFile);
+    try {
+      someProperties.store(out, null);
+    } finally {
+      out.close();
+    }
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    assertEquals(someValue, localRepo.getConfig().getProperty(someKey));
+    assertTrue(localRepo.assembleLocalCacheFile(someBaseDir, someNamespace).exists());
+  }
+
+  public static class MockConfigUtilWithBinaryLocalCache extends MockConfigUtil {
+    @Override
+    public boolean isBinaryLocalCacheEnabled() {
+      return true;
+    }
+  }
+
   public static class MockConfigUtil extends ConfigUtil {
 
     @Override
@@ -237,7 +360,15 @@ public class LocalFileConfigRepositoryTest {
     }
   }
 
-  private File createLocalCachePropertyFile(Properties properties) throws IOException {
+  private Properties readSnapshotQuietly(File snapshotFile) {
+    try {
+      return LocalCacheSnapshot.read(snapshotFile, new Properties());
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+    private File createLocalCachePropertyFile(Properties properties) throws IOException {
     File file = new File(someBaseDir, assembleLocalCacheFileName());
     FileOutputStream in = null;
     try {
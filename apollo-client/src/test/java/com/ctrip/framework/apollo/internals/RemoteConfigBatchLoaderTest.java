@@ -0,0 +1,208 @@
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigQuery;
+import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.http.HttpRequest;
+import com.ctrip.framework.apollo.util.http.HttpResponse;
+import com.ctrip.framework.apollo.util.http.HttpUtil;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RemoteConfigBatchLoaderTest {
+  private RemoteConfigBatchLoader remoteConfigBatchLoader;
+  @Mock
+  private ConfigUtil configUtil;
+  @Mock
+  private HttpUtil httpUtil;
+  @Mock
+  private ConfigServiceLocator configServiceLocator;
+  @Mock
+  private HttpResponse<List<ApolloConfig>> someResponse;
+  @Mock
+  private ServiceDTO someServiceDto;
+  @Mock
+  private RemoteConfigRepository someRepository;
+  @Mock
+  private RemoteConfigRepository anotherRepository;
+  @Mock
+  private ApolloNotificationMessages someMessages;
+  @Mock
+  private ApolloNotificationMessages anotherMessages;
+  private ApolloConfigQuery someQuery;
+  private ApolloConfigQuery anotherQuery;
+  private Map<RemoteConfigRepository, ApolloNotificationMessages> repositories;
+
+  @Before
+  public void setUp() throws Exception {
+    MockInjector.reset();
+    MockInjector.setInstance(ConfigUtil.class, configUtil);
+    MockInjector.setInstance(HttpUtil.class, httpUtil);
+    MockInjector.setInstance(ConfigServiceLocator.class, configServiceLocator);
+
+    when(configUtil.getAppId()).thenReturn("someAppId");
+    when(configUtil.getCluster()).thenReturn("someCluster");
+    when(configUtil.getRefreshInterval()).thenReturn(5);
+    when(configUtil.getRefreshIntervalTimeUnit()).thenReturn(TimeUnit.MINUTES);
+    when(someServiceDto.getHomepageUrl()).thenReturn("http://someServer");
+
+    someQuery = new ApolloConfigQuery("someNamespace", "someReleaseKey");
+    anotherQuery = new ApolloConfigQuery("anotherNamespace", "anotherReleaseKey");
+    when(someRepository.assembleBatchQuery(someMessages)).thenReturn(someQuery);
+    when(anotherRepository.assembleBatchQuery(anotherMessages)).thenReturn(anotherQuery);
+
+    repositories = Maps.newLinkedHashMap();
+    repositories.put(someRepository, someMessages);
+    repositories.put(anotherRepository, anotherMessages);
+
+    remoteConfigBatchLoader = new RemoteConfigBatchLoader();
+  }
+
+  @Test
+  public void testLoad() throws Exception {
+    ApolloConfig someConfig = new ApolloConfig("someAppId", "someCluster", "someNamespace", "someNewReleaseKey");
+
+    when(someResponse.getBody()).thenReturn(Lists.newArrayList(someConfig));
+    when(httpUtil.<List<ApolloConfig>>doPost(any(HttpRequest.class), any(), any(Type.class)))
+        .thenReturn(someResponse);
+    when(someRepository.onBatchLoaded(someQuery, someConfig)).thenReturn(true);
+
+    remoteConfigBatchLoader.load(someServiceDto, repositories);
+
+    ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+    ArgumentCaptor<Object> bodyCaptor = ArgumentCaptor.forClass(Object.class);
+    verify(httpUtil, times(1)).doPost(requestCaptor.capture(), bodyCaptor.capture(), any(Type.class));
+
+    assertTrue(requestCaptor.getValue().getUrl().startsWith("http://someServer/configs/someAppId/someCluster?"));
+    assertTrue(requestCaptor.getValue().getUrl().contains("delta=true"));
+    assertEquals(Lists.newArrayList(someQuery, anotherQuery), bodyCaptor.getValue());
+    verify(someRepository, times(1)).onBatchLoaded(someQuery, someConfig);
+    //not modified namespaces are omitted in the response
+    verify(anotherRepository, never()).onBatchLoaded(eq(anotherQuery), any(ApolloConfig.class));
+    verify(someRepository, never()).onLongPollNotified(any(ServiceDTO.class), any(ApolloNotificationMessages.class));
+    verify(anotherRepository, never()).onLongPollNotified(any(ServiceDTO.class),
+        any(ApolloNotificationMessages.class));
+  }
+
+  @Test
+  public void testLoadWithResultNotApplied() throws Exception {
+    ApolloConfig someConfig = new ApolloConfig("someAppId", "someCluster", "someNamespace", "someNewReleaseKey");
+
+    when(someResponse.getBody()).thenReturn(Lists.newArrayList(someConfig));
+    when(httpUtil.<List<ApolloConfig>>doPost(any(HttpRequest.class), any(), any(Type.class)))
+        .thenReturn(someResponse);
+    when(someRepository.onBatchLoaded(someQuery, someConfig)).thenReturn(false);
+
+    remoteConfigBatchLoader.load(someServiceDto, repositories);
+
+    verify(someRepository, times(1)).onLongPollNotified(someServiceDto, someMessages);
+    verify(anotherRepository, never()).onLongPollNotified(any(ServiceDTO.class),
+        any(ApolloNotificationMessages.class));
+  }
+
+  @Test
+  public void testLoadFailed() throws Exception {
+    when(httpUtil.doPost(any(HttpRequest.class), any(), any(Type.class)))
+        .thenThrow(new ApolloConfigException("some exception"));
+
+    remoteConfigBatchLoader.load(someServiceDto, repositories);
+
+    verify(someRepository, times(1)).onLongPollNotified(someServiceDto, someMessages);
+    verify(anotherRepository, times(1)).onLongPollNotified(someServiceDto, anotherMessages);
+  }
+
+  @Test
+  public void testLoadInMultipleBatches() throws Exception {
+    Map<RemoteConfigRepository, ApolloNotificationMessages> manyRepositories = Maps.newLinkedHashMap();
+    for (int i = 0; i <= ConfigConsts.MAX_BATCH_CONFIG_QUERY_SIZE; i++) {
+      RemoteConfigRepository repository = mock(RemoteConfigRepository.class);
+      when(repository.assembleBatchQuery(someMessages))
+          .thenReturn(new ApolloConfigQuery("someNamespace" + i, "someReleaseKey"));
+      manyRepositories.put(repository, someMessages);
+    }
+    when(someResponse.getBody()).thenReturn(Lists.<ApolloConfig>newArrayList());
+    when(httpUtil.<List<ApolloConfig>>doPost(any(HttpRequest.class), any(), any(Type.class)))
+        .thenReturn(someResponse);
+
+    remoteConfigBatchLoader.load(someServiceDto, manyRepositories);
+
+    ArgumentCaptor<Object> bodyCaptor = ArgumentCaptor.forClass(Object.class);
+    verify(httpUtil, times(2)).doPost(any(HttpRequest.class), bodyCaptor.capture(), any(Type.class));
+
+    assertEquals(ConfigConsts.MAX_BATCH_CONFIG_QUERY_SIZE, ((List<?>) bodyCaptor.getAllValues().get(0)).size());
+    assertEquals(1, ((List<?>) bodyCaptor.getAllValues().get(1)).size());
+  }
+
+  @Test
+  public void testRefresh() throws Exception {
+    ApolloConfig someConfig = new ApolloConfig("someAppId", "someCluster", "someNamespace", "someNewReleaseKey");
+
+    when(configServiceLocator.getConfigServices()).thenReturn(Lists.newArrayList(someServiceDto));
+    when(someRepository.getRemoteMessages()).thenReturn(someMessages);
+    when(anotherRepository.getRemoteMessages()).thenReturn(anotherMessages);
+    when(someResponse.getBody()).thenReturn(Lists.newArrayList(someConfig));
+    when(httpUtil.<List<ApolloConfig>>doPost(any(HttpRequest.class), any(), any(Type.class)))
+        .thenReturn(someResponse);
+    when(someRepository.onBatchLoaded(someQuery, someConfig)).thenReturn(true);
+
+    remoteConfigBatchLoader.schedulePeriodicRefresh(someRepository);
+    remoteConfigBatchLoader.schedulePeriodicRefresh(anotherRepository);
+    remoteConfigBatchLoader.refresh();
+
+    //all the namespaces are checked in one request and only the stale ones are updated
+    verify(httpUtil, times(1)).doPost(any(HttpRequest.class), any(), any(Type.class));
+    verify(someRepository, times(1)).onBatchLoaded(someQuery, someConfig);
+    verify(anotherRepository, never()).onBatchLoaded(eq(anotherQuery), any(ApolloConfig.class));
+    verify(someRepository, never()).trySync();
+    verify(anotherRepository, never()).trySync();
+    //the config service is chosen and scored like the other requests
+    verify(configServiceLocator, times(1)).sortInPreferredOrder(anyListOf(ServiceDTO.class));
+    verify(configServiceLocator, times(1)).onAccessSucceeded(eq(someServiceDto), anyLong());
+  }
+
+  @Test
+  public void testRefreshFailed() throws Exception {
+    when(configServiceLocator.getConfigServices()).thenReturn(Lists.newArrayList(someServiceDto));
+    when(someRepository.getRemoteMessages()).thenReturn(someMessages);
+    when(anotherRepository.getRemoteMessages()).thenReturn(anotherMessages);
+    when(httpUtil.doPost(any(HttpRequest.class), any(), any(Type.class)))
+        .thenThrow(new ApolloConfigException("some exception"));
+
+    remoteConfigBatchLoader.schedulePeriodicRefresh(someRepository);
+    remoteConfigBatchLoader.schedulePeriodicRefresh(anotherRepository);
+    remoteConfigBatchLoader.refresh();
+
+    verify(someRepository, times(1)).trySync();
+    verify(anotherRepository, times(1)).trySync();
+    verify(someRepository, never()).onLongPollNotified(any(ServiceDTO.class), any(ApolloNotificationMessages.class));
+    verify(configServiceLocator, times(1)).onAccessFailed(eq(someServiceDto), any(ApolloConfigException.class));
+  }
+}
@@ -18,7 +18,10 @@ import com.ctrip.framework.apollo.build.MockInjector;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
 import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+import com.ctrip.framework.apollo.core.dto.ConfigurationChange;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.core.enums.ConfigSyncType;
+import com.ctrip.framework.apollo.core.enums.ConfigurationChangeType;
 import com.ctrip.framework.apollo.core.signature.Signature;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
@@ -39,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.servlet.http.HttpServletResponse;
 import org.junit.After;
 import org.junit.Before;
@@ -172,6 +176,91 @@ public class RemoteConfigRepositoryTest {
     remoteConfigLongPollService.stopLongPollingRefresh();
   }
 
+  @Test
+  public void testLoadConfigWithHedgedRequest() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithHedgedConfigFetch());
+
+    final String anotherServerUrl = "http://anotherServer";
+    ServiceDTO someService = mock(ServiceDTO.class);
+    ServiceDTO anotherService = mock(ServiceDTO.class);
+    when(someService.getHomepageUrl()).thenReturn(someServerUrl);
+    when(anotherService.getHomepageUrl()).thenReturn(anotherServerUrl);
+    when(configServiceLocator.getConfigServices()).thenReturn(Lists.newArrayList(someService, anotherService));
+    when(configServiceLocator.getHedgeDelayInMillis(someService)).thenReturn(10L);
+
+    Map<String, String> configurations = ImmutableMap.of("someKey", "someValue");
+    ApolloConfig someApolloConfig = assembleApolloConfig(configurations);
+
+    when(someResponse.getStatusCode()).thenReturn(200);
+    when(someResponse.getBody()).thenReturn(someApolloConfig);
+    doAnswer(new Answer<HttpResponse<ApolloConfig>>() {
+      @Override
+      public HttpResponse<ApolloConfig> answer(InvocationOnMock invocation) throws Throwable {
+        HttpRequest request = invocation.getArgumentAt(0, HttpRequest.class);
+        //the first config service is too slow to respond
+        if (!request.getUrl().startsWith(anotherServerUrl)) {
+          TimeUnit.SECONDS.sleep(5);
+        }
+        return someResponse;
+      }
+    }).when(httpUtil).doGet(any(HttpRequest.class), any(Class.class));
+
+    long start = System.currentTimeMillis();
+    RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
+    Properties config = remoteConfigRepository.getConfig();
+    remoteConfigLongPollService.stopLongPollingRefresh();
+
+    assertEquals(configurations, config);
+    assertTrue(System.currentTimeMillis() - start < 5000);
+
+    ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+    verify(httpUtil, times(2)).doGet(requestCaptor.capture(), any(Class.class));
+    assertTrue(requestCaptor.getAllValues().get(0).getUrl().startsWith(someServerUrl));
+    assertTrue(requestCaptor.getAllValues().get(1).getUrl().startsWith(anotherServerUrl));
+  }
+
+  @Test
+  public void testLoadConfigWithHedgedRequestAfterLongPollNotified() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithHedgedConfigFetch());
+
+    final String anotherServerUrl = "http://anotherServer";
+    ServiceDTO someService = mock(ServiceDTO.class);
+    ServiceDTO anotherService = mock(ServiceDTO.class);
+    when(someService.getHomepageUrl()).thenReturn(someServerUrl);
+    when(anotherService.getHomepageUrl()).thenReturn(anotherServerUrl);
+    when(configServiceLocator.getConfigServices()).thenReturn(Lists.newArrayList(someService, anotherService));
+    when(configServiceLocator.getHedgeDelayInMillis(someService)).thenReturn(10L);
+
+    when(someResponse.getStatusCode()).thenReturn(200);
+    when(someResponse.getBody()).thenReturn(assembleApolloConfig(ImmutableMap.of("someKey", "someValue")));
+    doAnswer(new Answer<HttpResponse<ApolloConfig>>() {
+      @Override
+      public HttpResponse<ApolloConfig> answer(InvocationOnMock invocation) throws Throwable {
+        HttpRequest request = invocation.getArgumentAt(0, HttpRequest.class);
+        //the notifying config service is too slow to respond
+        if (!request.getUrl().startsWith(anotherServerUrl)) {
+          TimeUnit.SECONDS.sleep(5);
+        }
+        return someResponse;
+      }
+    }).when(httpUtil).doGet(any(HttpRequest.class), any(Class.class));
+
+    RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
+    remoteConfigLongPollService.stopLongPollingRefresh();
+    ((AtomicReference<ServiceDTO>) ReflectionTestUtils.getField(remoteConfigRepository, "m_longPollServiceDto"))
+        .set(someService);
+
+    long start = System.currentTimeMillis();
+    remoteConfigRepository.sync();
+    assertTrue(System.currentTimeMillis() - start < 5000);
+
+    //the notifying config service is not used as the hedge of itself
+    ArgumentCaptor<HttpRequest> requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+    verify(httpUtil, times(4)).doGet(requestCaptor.capture(), any(Class.class));
+    assertTrue(requestCaptor.getAllValues().get(2).getUrl().startsWith(someServerUrl));
+    assertTrue(requestCaptor.getAllValues().get(3).getUrl().startsWith(anotherServerUrl));
+  }
+
   @Test(expected = ApolloConfigException.class)
   public void testGetRemoteConfigWithServerError() throws Exception {
 
@@ -212,6 +301,43 @@ public class RemoteConfigRepositoryTest {
     remoteConfigLongPollService.stopLongPollingRefresh();
   }
 
+  @Test
+  public void testLoadConfigWithDelta() throws Exception {
+    Map<String, String> configurations = ImmutableMap.of("someKey", "someValue", "anotherKey", "anotherValue");
+    ApolloConfig someApolloConfig = assembleApolloConfig(configurations);
+
+    when(someResponse.getStatusCode()).thenReturn(200);
+    when(someResponse.getBody()).thenReturn(someApolloConfig);
+
+    RepositoryChangeListener someListener = mock(RepositoryChangeListener.class);
+    RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
+    remoteConfigRepository.addChangeListener(someListener);
+    final ArgumentCaptor<Properties> captor = ArgumentCaptor.forClass(Properties.class);
+
+    ApolloConfig deltaApolloConfig = new ApolloConfig("appId", "cluster", someNamespace, "2");
+    deltaApolloConfig.setConfigSyncType(ConfigSyncType.DELTA);
+    deltaApolloConfig.setConfigurationChanges(Lists.newArrayList(
+        new ConfigurationChange("someKey", "someNewValue", ConfigurationChangeType.MODIFIED),
+        new ConfigurationChange("anotherKey", null, ConfigurationChangeType.DELETED),
+        new ConfigurationChange("newKey", "newValue", ConfigurationChangeType.ADDED)));
+
+    when(someResponse.getBody()).thenReturn(deltaApolloConfig);
+
+    remoteConfigRepository.sync();
+
+    verify(someListener, times(1)).onRepositoryChange(eq(someNamespace), captor.capture());
+
+    assertEquals(ImmutableMap.of("someKey", "someNewValue", "newKey", "newValue"), captor.getValue());
+
+    final ArgumentCaptor<HttpRequest> httpRequestArgumentCaptor = ArgumentCaptor
+        .forClass(HttpRequest.class);
+    verify(httpUtil, times(2)).doGet(httpRequestArgumentCaptor.capture(), eq(ApolloConfig.class));
+
+    assertTrue(httpRequestArgumentCaptor.getValue().getUrl().contains("delta=true"));
+
+    remoteConfigLongPollService.stopLongPollingRefresh();
+  }
+
   @Test
   public void testLongPollingRefresh() throws Exception {
     Map<String, String> configurations = ImmutableMap.of("someKey", "someValue");
@@ -364,6 +490,13 @@ public class RemoteConfigRepositoryTest {
     }
   }
 
+  public static class MockConfigUtilWithHedgedConfigFetch extends MockConfigUtil {
+    @Override
+    public boolean isHedgedConfigFetchEnabled() {
+      return true;
+    }
+  }
+
   public static class MockHttpUtil extends HttpUtil {
 
     @Override
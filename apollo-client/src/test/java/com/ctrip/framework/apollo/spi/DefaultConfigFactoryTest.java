@@ -8,6 +8,8 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.internals.PropertiesCompatibleFileConfigRepository;
@@ -148,6 +150,29 @@ public class DefaultConfigFactoryTest {
 
   }
 
+  @Test
+  public void testShareLocalConfigRepository() throws Exception {
+    String someNamespace = "someName";
+    String somePropertiesNamespace = someNamespace + "." + ConfigFileFormat.Properties.getValue();
+    Properties someProperties = new Properties();
+
+    LocalFileConfigRepository someLocalConfigRepo = mock(LocalFileConfigRepository.class);
+    when(someLocalConfigRepo.getConfig()).thenReturn(someProperties);
+
+    doReturn(someLocalConfigRepo).when(defaultConfigFactory).createLocalConfigRepository(someNamespace);
+
+    Config config = defaultConfigFactory.create(someNamespace);
+    Config propertiesConfig = defaultConfigFactory.create(somePropertiesNamespace);
+    ConfigFile propertiesConfigFile = defaultConfigFactory
+        .createConfigFile(somePropertiesNamespace, ConfigFileFormat.Properties);
+
+    verify(defaultConfigFactory, times(1)).createLocalConfigRepository(someNamespace);
+    verify(someLocalConfigRepo, times(1)).addChangeListener((DefaultConfig) config);
+    verify(someLocalConfigRepo, times(1)).addChangeListener((DefaultConfig) propertiesConfig);
+    verify(someLocalConfigRepo, times(1)).addChangeListener((PropertiesConfigFile) propertiesConfigFile);
+    assertEquals(somePropertiesNamespace, propertiesConfigFile.getNamespace());
+  }
+
   @Test
   public void testDetermineFileFormat() throws Exception {
     checkFileFormat("abc", ConfigFileFormat.Properties);
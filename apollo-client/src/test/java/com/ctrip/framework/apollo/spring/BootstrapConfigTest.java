@@ -138,6 +138,54 @@ public class BootstrapConfigTest {
     }
   }
 
+  @RunWith(SpringJUnit4ClassRunner.class)
+  @SpringBootTest(classes = ConfigurationWithConditionalOnProperty.class)
+  @DirtiesContext
+  public static class TestWithBootstrapEnabledAndNamespacesAndTimeout extends
+      AbstractSpringIntegrationTest {
+
+    @Autowired(required = false)
+    private TestBean testBean;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+      doSetUp();
+
+      System.setProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_ENABLED, "true");
+      System.setProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_NAMESPACES,
+          String.format("%s, %s", ConfigConsts.NAMESPACE_APPLICATION, FX_APOLLO_NAMESPACE));
+      System.setProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_TIMEOUT_IN_MILLIS, "0");
+
+      Config config = mock(Config.class);
+      Config anotherConfig = mock(Config.class);
+
+      when(config.getPropertyNames()).thenReturn(Sets.newHashSet(TEST_BEAN_CONDITIONAL_ON_KEY));
+      when(config.getProperty(eq(TEST_BEAN_CONDITIONAL_ON_KEY), anyString())).thenReturn(Boolean.TRUE.toString());
+      when(anotherConfig.getPropertyNames()).thenReturn(Sets.newHashSet(TEST_BEAN_CONDITIONAL_ON_KEY));
+      when(anotherConfig.getProperty(eq(TEST_BEAN_CONDITIONAL_ON_KEY), anyString()))
+          .thenReturn(Boolean.FALSE.toString());
+
+      // the namespaces are loaded concurrently, but the property sources should still be in the configured order
+      mockConfig(ConfigConsts.NAMESPACE_APPLICATION, config);
+      mockConfig(FX_APOLLO_NAMESPACE, anotherConfig);
+    }
+
+    @AfterClass
+    public static void afterClass() throws Exception {
+      System.clearProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_ENABLED);
+      System.clearProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_NAMESPACES);
+      System.clearProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_TIMEOUT_IN_MILLIS);
+
+      doTearDown();
+    }
+
+    @Test
+    public void test() throws Exception {
+      Assert.assertNotNull(testBean);
+      Assert.assertTrue(testBean.execute());
+    }
+  }
+
   @RunWith(SpringJUnit4ClassRunner.class)
   @SpringBootTest(classes = ConfigurationWithConditionalOnProperty.class)
   @DirtiesContext
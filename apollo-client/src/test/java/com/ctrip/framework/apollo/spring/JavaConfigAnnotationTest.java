@@ -123,8 +123,8 @@ public class JavaConfigAnnotationTest extends AbstractSpringIntegrationTest {
 
     TestApolloConfigChangeListenerBean1 bean = getBean(TestApolloConfigChangeListenerBean1.class, AppConfig3.class);
 
-    //PropertySourcesProcessor add listeners to listen config changed of all namespace
-    assertEquals(4, applicationListeners.size());
+    //PropertySourcesProcessor and ConfigPropertySource add listeners to listen config changed of all namespace
+    assertEquals(5, applicationListeners.size());
     assertEquals(1, fxApolloListeners.size());
 
     for (ConfigChangeListener listener : applicationListeners) {
@@ -196,8 +196,8 @@ public class JavaConfigAnnotationTest extends AbstractSpringIntegrationTest {
 
     TestApolloChildConfigChangeListener bean = getBean(TestApolloChildConfigChangeListener.class, AppConfig7.class);
 
-    //PropertySourcesProcessor add listeners to listen config changed of all namespace
-    assertEquals(5, applicationListeners.size());
+    //PropertySourcesProcessor and ConfigPropertySource add listeners to listen config changed of all namespace
+    assertEquals(6, applicationListeners.size());
     assertEquals(1, fxApolloListeners.size());
 
     for (ConfigChangeListener listener : applicationListeners) {
@@ -0,0 +1,164 @@
+package com.ctrip.framework.apollo.spring;
+
+import static org.junit.Assert.assertEquals;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.internals.ConfigManager;
+import com.ctrip.framework.apollo.internals.DefaultConfigManager;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.spring.annotation.ApolloConfig;
+import com.ctrip.framework.apollo.spring.annotation.ApolloConfigChangeListener;
+import com.ctrip.framework.apollo.spring.annotation.EnableApolloConfig;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+import java.io.File;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+public class LazyNamespaceActivationTest extends AbstractSpringIntegrationTest {
+  private static final String someAppId = "someAppId";
+  private static final String someCluster = "someCluster";
+  private static final String OTHER_NAMESPACE = "otherNamespace";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private DefaultConfigManager configManager;
+
+  @Before
+  public void setUpLazyNamespaceActivation() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithLazyNamespaceActivation(
+        temporaryFolder.getRoot().getAbsolutePath()));
+    configManager = new DefaultConfigManager();
+    MockInjector.setInstance(ConfigManager.class, configManager);
+
+    File cacheDir = temporaryFolder.newFolder("config-cache");
+    writeLocalCache(cacheDir, ConfigConsts.NAMESPACE_APPLICATION, "timeout=1000");
+    writeLocalCache(cacheDir, OTHER_NAMESPACE, "batch=2000");
+  }
+
+  @Test
+  public void testInjectedNamespaceStaysInactiveUntilAccessed() throws Exception {
+    AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig1.class);
+    TestBean1 bean = context.getBean(TestBean1.class);
+
+    assertEquals(1000, bean.getTimeout());
+    assertEquals(Collections.singleton(OTHER_NAMESPACE), configManager.getInactiveNamespaces());
+
+    assertEquals(2000, bean.getOtherConfig().getIntProperty("batch", 200).intValue());
+    assertEquals(Collections.<String>emptySet(), configManager.getInactiveNamespaces());
+  }
+
+  @Test
+  public void testPropertySourceNamespaceActivatedOnRefresh() throws Exception {
+    AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig2.class);
+    TestBean2 bean = context.getBean(TestBean2.class);
+
+    assertEquals(1000, bean.getTimeout());
+    assertEquals(2000, bean.getBatch());
+    // spring looks up its own properties in every property source while refreshing
+    assertEquals(Collections.<String>emptySet(), configManager.getInactiveNamespaces());
+  }
+
+  private void writeLocalCache(File cacheDir, String namespace, String content) throws Exception {
+    String fileName = String.format("%s.properties",
+        Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR).join(someAppId, someCluster, namespace));
+    Files.write(content, new File(cacheDir, fileName), Charsets.UTF_8);
+  }
+
+  @Configuration
+  @EnableApolloConfig
+  static class AppConfig1 {
+    @Bean
+    TestBean1 testBean() {
+      return new TestBean1();
+    }
+  }
+
+  @Configuration
+  @EnableApolloConfig({ConfigConsts.NAMESPACE_APPLICATION, OTHER_NAMESPACE})
+  static class AppConfig2 {
+    @Bean
+    TestBean2 testBean() {
+      return new TestBean2();
+    }
+  }
+
+  static class TestBean1 {
+    @Value("${timeout:100}")
+    private int timeout;
+    @ApolloConfig(OTHER_NAMESPACE)
+    private Config otherConfig;
+
+    int getTimeout() {
+      return timeout;
+    }
+
+    Config getOtherConfig() {
+      return otherConfig;
+    }
+
+    @ApolloConfigChangeListener(OTHER_NAMESPACE)
+    private void onChange(ConfigChangeEvent changeEvent) {
+    }
+  }
+
+  static class TestBean2 {
+    @Value("${timeout:100}")
+    private int timeout;
+    @Value("${batch:200}")
+    private int batch;
+
+    int getTimeout() {
+      return timeout;
+    }
+
+    int getBatch() {
+      return batch;
+    }
+  }
+
+  private static class MockConfigUtilWithLazyNamespaceActivation extends ConfigUtil {
+    private final String localCacheDir;
+
+    MockConfigUtilWithLazyNamespaceActivation(String localCacheDir) {
+      this.localCacheDir = localCacheDir;
+    }
+
+    @Override
+    public String getAppId() {
+      return someAppId;
+    }
+
+    @Override
+    public String getCluster() {
+      return someCluster;
+    }
+
+    @Override
+    public boolean isInLocalMode() {
+      return true;
+    }
+
+    @Override
+    public String getDefaultLocalCacheDir() {
+      return localCacheDir;
+    }
+
+    @Override
+    public boolean isLazyNamespaceActivationEnabled() {
+      return true;
+    }
+  }
+}
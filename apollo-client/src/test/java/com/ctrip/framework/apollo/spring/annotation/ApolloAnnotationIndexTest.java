@@ -0,0 +1,100 @@
+package com.ctrip.framework.apollo.spring.annotation;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.annotation.Value;
+
+public class ApolloAnnotationIndexTest {
+  private static final String SOME_INDEX_LOCATION = "META-INF/apollo-index-test/apollo.components";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ApolloAnnotationIndex index;
+
+  @Before
+  public void setUp() throws Exception {
+    // the index location is relative to the test classes directory
+    index = new ApolloAnnotationIndex(getClass().getClassLoader(), SOME_INDEX_LOCATION);
+  }
+
+  @Test
+  public void testMayHaveAnnotatedMembersOfIndexedJar() throws Exception {
+    File jar = temporaryFolder.newFile("indexed.jar");
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    try {
+      out.putNextEntry(new JarEntry(SOME_INDEX_LOCATION));
+      out.write(AnnotatedBean.class.getName().getBytes(Charsets.UTF_8));
+      for (Class<?> clazz : new Class<?>[]{AnnotatedBean.class, SubClassOfAnnotatedBean.class, PlainBean.class}) {
+        String resourceName = clazz.getName().replace('.', '/') + ".class";
+        out.putNextEntry(new JarEntry(resourceName));
+        InputStream in = getClass().getClassLoader().getResourceAsStream(resourceName);
+        try {
+          ByteStreams.copy(in, out);
+        } finally {
+          in.close();
+        }
+      }
+    } finally {
+      out.close();
+    }
+
+    // no parent, so the classes are loaded from the jar
+    URLClassLoader jarClassLoader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, null);
+    try {
+      ApolloAnnotationIndex jarIndex = new ApolloAnnotationIndex(jarClassLoader, SOME_INDEX_LOCATION);
+
+      assertTrue(jarIndex.mayHaveAnnotatedMembers(jarClassLoader.loadClass(AnnotatedBean.class.getName())));
+      assertTrue(jarIndex.mayHaveAnnotatedMembers(jarClassLoader.loadClass(SubClassOfAnnotatedBean.class.getName())));
+      assertFalse(jarIndex.mayHaveAnnotatedMembers(jarClassLoader.loadClass(PlainBean.class.getName())));
+      assertFalse(jarIndex.mayHaveAnnotatedMembers(ArrayList.class));
+    } finally {
+      jarClassLoader.close();
+    }
+  }
+
+  @Test
+  public void testMayHaveAnnotatedMembersOfIndexedDirectory() throws Exception {
+    assertTrue(index.mayHaveAnnotatedMembers(AnnotatedBean.class));
+    assertTrue(index.mayHaveAnnotatedMembers(SubClassOfAnnotatedBean.class));
+    // the index of a class directory might be partial, so it's only a positive hint
+    assertTrue(index.mayHaveAnnotatedMembers(PlainBean.class));
+    // classes of the locations without index
+    assertTrue(index.mayHaveAnnotatedMembers(Lists.class));
+  }
+
+  @Test
+  public void testMayHaveAnnotatedMembersWithoutIndex() throws Exception {
+    ApolloAnnotationIndex emptyIndex = new ApolloAnnotationIndex(getClass().getClassLoader(),
+        "META-INF/apollo-index-test/not-exist.components");
+
+    assertTrue(emptyIndex.mayHaveAnnotatedMembers(PlainBean.class));
+  }
+
+  public static class AnnotatedBean {
+    @Value("${someKey}")
+    private String someValue;
+  }
+
+  public static class SubClassOfAnnotatedBean extends AnnotatedBean {
+  }
+
+  public static class PlainBean extends ArrayList<String> {
+  }
+}
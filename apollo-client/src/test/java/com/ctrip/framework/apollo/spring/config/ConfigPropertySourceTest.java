@@ -2,6 +2,9 @@ package com.ctrip.framework.apollo.spring.config;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
@@ -12,6 +15,7 @@ import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.util.List;
@@ -19,6 +23,7 @@ import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -53,6 +58,39 @@ public class ConfigPropertySourceTest {
     assertArrayEquals(somePropertyNames.toArray(), result);
   }
 
+  @Test
+  public void testGetPropertyNamesCachedUntilChanged() throws Exception {
+    Set<String> somePropertyNames = Sets.newHashSet("somePropertyName");
+    Set<String> anotherPropertyNames = Sets.newHashSet("somePropertyName", "anotherPropertyName");
+
+    ArgumentCaptor<ConfigChangeListener> listenerCaptor = ArgumentCaptor.forClass(ConfigChangeListener.class);
+    verify(someConfig, times(1)).addChangeListener(listenerCaptor.capture());
+
+    when(someConfig.getPropertyNames()).thenReturn(somePropertyNames);
+
+    String[] result = configPropertySource.getPropertyNames();
+
+    assertSame(result, configPropertySource.getPropertyNames());
+    assertTrue(configPropertySource.containsProperty("somePropertyName"));
+    verify(someConfig, times(1)).getPropertyNames();
+
+    when(someConfig.getPropertyNames()).thenReturn(anotherPropertyNames);
+    listenerCaptor.getValue().onChange(mock(ConfigChangeEvent.class));
+
+    String[] anotherResult = configPropertySource.getPropertyNames();
+
+    assertNotSame(result, anotherResult);
+    assertArrayEquals(anotherPropertyNames.toArray(), anotherResult);
+  }
+
+  @Test
+  public void testContainsProperty() throws Exception {
+    when(someConfig.getPropertyNames()).thenReturn(Sets.newHashSet("somePropertyName"));
+
+    assertTrue(configPropertySource.containsProperty("somePropertyName"));
+    assertFalse(configPropertySource.containsProperty("anotherPropertyName"));
+  }
+
   @Test
   public void testGetEmptyPropertyNames() throws Exception {
     when(someConfig.getPropertyNames()).thenReturn(Sets.<String>newHashSet());
@@ -0,0 +1,103 @@
+package com.ctrip.framework.apollo.spring.property;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.collect.Lists;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JsonValueParserTest {
+  private static final Type SOME_TYPE = new TypeToken<List<String>>() {
+  }.getType();
+  private static final String SOME_JSON = "[\"a\", \"b\"]";
+
+  @Before
+  public void setUp() throws Exception {
+    MockInjector.reset();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    MockInjector.reset();
+  }
+
+  @Test
+  public void testParseWithCopies() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil(1024, false));
+    JsonValueParser jsonValueParser = new JsonValueParser();
+
+    Object someValue = jsonValueParser.parse(SOME_JSON, SOME_TYPE);
+    Object anotherValue = jsonValueParser.parse(SOME_JSON, SOME_TYPE);
+
+    assertEquals(Lists.newArrayList("a", "b"), someValue);
+    assertEquals(someValue, anotherValue);
+    assertNotSame(someValue, anotherValue);
+  }
+
+  @Test
+  public void testParseWithSharedInstances() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil(1024, true));
+    JsonValueParser jsonValueParser = new JsonValueParser();
+
+    Object someValue = jsonValueParser.parse(SOME_JSON, SOME_TYPE);
+    Object anotherValue = jsonValueParser.parse(SOME_JSON, SOME_TYPE);
+    Object valueOfAnotherType = jsonValueParser.parse(SOME_JSON, Object.class);
+    Object valueOfAnotherJson = jsonValueParser.parse("[\"c\"]", SOME_TYPE);
+
+    assertSame(someValue, anotherValue);
+    assertNotSame(someValue, valueOfAnotherType);
+    assertEquals(Lists.newArrayList("c"), valueOfAnotherJson);
+  }
+
+  @Test
+  public void testParseJsonLongerThanCache() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil(SOME_JSON.length() - 1, true));
+    JsonValueParser jsonValueParser = new JsonValueParser();
+
+    Object someValue = jsonValueParser.parse(SOME_JSON, SOME_TYPE);
+    Object anotherValue = jsonValueParser.parse(SOME_JSON, SOME_TYPE);
+
+    assertEquals(someValue, anotherValue);
+    assertNotSame(someValue, anotherValue);
+  }
+
+  @Test
+  public void testParseWithoutCache() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil(0, true));
+    JsonValueParser jsonValueParser = new JsonValueParser();
+
+    Object someValue = jsonValueParser.parse(SOME_JSON, SOME_TYPE);
+    Object anotherValue = jsonValueParser.parse(SOME_JSON, SOME_TYPE);
+
+    assertEquals(someValue, anotherValue);
+    assertNotSame(someValue, anotherValue);
+  }
+
+  private static class MockConfigUtil extends ConfigUtil {
+    private final long jsonValueCacheSize;
+    private final boolean jsonValueSharedInstancesEnabled;
+
+    MockConfigUtil(long jsonValueCacheSize, boolean jsonValueSharedInstancesEnabled) {
+      this.jsonValueCacheSize = jsonValueCacheSize;
+      this.jsonValueSharedInstancesEnabled = jsonValueSharedInstancesEnabled;
+    }
+
+    @Override
+    public long getMaxJsonValueCacheSize() {
+      return jsonValueCacheSize;
+    }
+
+    @Override
+    public boolean isJsonValueSharedInstancesEnabled() {
+      return jsonValueSharedInstancesEnabled;
+    }
+  }
+}
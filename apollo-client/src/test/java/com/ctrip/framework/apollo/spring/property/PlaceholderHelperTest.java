@@ -2,10 +2,17 @@ package com.ctrip.framework.apollo.spring.property;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 
 public class PlaceholderHelperTest {
 
@@ -56,6 +63,22 @@ public class PlaceholderHelperTest {
     assertTrue(placeholderHelper.extractPlaceholderKeys("some.key:100").isEmpty());
   }
 
+  @Test
+  public void testResolvePropertyValueWithResolvedPlaceholders() throws Exception {
+    String placeholder = "${some.key}";
+    String someValue = "someValue";
+    ConfigurableBeanFactory beanFactory = mock(ConfigurableBeanFactory.class);
+    when(beanFactory.resolveEmbeddedValue(placeholder)).thenReturn(someValue);
+    Map<String, String> resolvedPlaceholders = Maps.newHashMap();
+
+    assertEquals(someValue,
+        placeholderHelper.resolvePropertyValue(beanFactory, "someBean", placeholder, resolvedPlaceholders));
+    assertEquals(someValue,
+        placeholderHelper.resolvePropertyValue(beanFactory, "anotherBean", placeholder, resolvedPlaceholders));
+
+    verify(beanFactory, times(1)).resolveEmbeddedValue(placeholder);
+  }
+
   private void check(String propertyString, String... expectedPlaceholders) {
     assertEquals(Sets.newHashSet(expectedPlaceholders), placeholderHelper.extractPlaceholderKeys(propertyString));
   }
@@ -0,0 +1,55 @@
+package com.ctrip.framework.apollo.spring.property;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import org.junit.Test;
+
+public class SpringValueTest {
+
+  @Test
+  public void testUpdateField() throws Exception {
+    Field field = TestBean.class.getDeclaredField("timeout");
+    TestBean someBean = new TestBean();
+    TestBean anotherBean = new TestBean();
+
+    new SpringValue("timeout", "${timeout}", someBean, "someBean", field, false).update(100);
+    new SpringValue("timeout", "${timeout}", anotherBean, "anotherBean", field, false).update(200);
+
+    assertEquals(100, someBean.timeout);
+    assertEquals(200, anotherBean.timeout);
+  }
+
+  @Test
+  public void testUpdateMethod() throws Exception {
+    Method method = TestBean.class.getDeclaredMethod("setBatch", int.class);
+    TestBean someBean = new TestBean();
+
+    SpringValue springValue = new SpringValue("batch", "${batch}", someBean, "someBean", method, false);
+    springValue.update(10);
+    springValue.update(20);
+
+    assertEquals(20, someBean.batch);
+  }
+
+  @Test
+  public void testUpdateAfterBeanCollected() throws Exception {
+    Field field = TestBean.class.getDeclaredField("timeout");
+
+    SpringValue springValue = new SpringValue("timeout", "${timeout}", new TestBean(), "someBean", field, false);
+    System.gc();
+
+    // no exception even if the bean is collected
+    springValue.update(100);
+  }
+
+  private static class TestBean {
+    private int timeout;
+    private int batch;
+
+    private void setBatch(int batch) {
+      this.batch = batch;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package com.ctrip.framework.apollo.util.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Function;
+import com.google.common.io.CharStreams;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefaultHttpTransportTest {
+  private DefaultHttpTransport defaultHttpTransport;
+  private Server server;
+  private String someUrl;
+  private int responseStatus;
+  private String responseBody;
+  private boolean gzipResponse;
+  private AtomicReference<String> receivedMethod;
+  private AtomicReference<String> receivedAcceptEncoding;
+  private AtomicReference<String> receivedContentType;
+  private AtomicReference<String> receivedBody;
+  private Function<Reader, String> stringReader;
+
+  @Before
+  public void setUp() throws Exception {
+    ConfigUtil configUtil = mock(ConfigUtil.class);
+    when(configUtil.getConnectTimeout()).thenReturn(1000);
+    when(configUtil.getReadTimeout()).thenReturn(5000);
+    MockInjector.reset();
+    MockInjector.setInstance(ConfigUtil.class, configUtil);
+
+    defaultHttpTransport = new DefaultHttpTransport();
+    receivedMethod = new AtomicReference<>();
+    receivedAcceptEncoding = new AtomicReference<>();
+    receivedContentType = new AtomicReference<>();
+    receivedBody = new AtomicReference<>();
+    responseStatus = HttpServletResponse.SC_OK;
+    responseBody = "someBody";
+    stringReader = new Function<Reader, String>() {
+      @Override
+      public String apply(Reader input) {
+        try {
+          return CharStreams.toString(input);
+        } catch (IOException ex) {
+          throw new IllegalStateException(ex);
+        }
+      }
+    };
+
+    server = new Server(0);
+    server.setHandler(new AbstractHandler() {
+      @Override
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+          HttpServletResponse response) throws IOException {
+        //the request is recycled after being handled, so keep what's needed
+        receivedMethod.set(request.getMethod());
+        receivedAcceptEncoding.set(request.getHeader("Accept-Encoding"));
+        receivedContentType.set(request.getContentType());
+        receivedBody.set(CharStreams.toString(request.getReader()));
+
+        response.setStatus(responseStatus);
+        //some proxies keep the header even if there is no body
+        if (gzipResponse) {
+          response.setHeader("Content-Encoding", "gzip");
+        }
+        if (responseStatus == HttpServletResponse.SC_OK) {
+          byte[] content = responseBody.getBytes(StandardCharsets.UTF_8);
+          if (gzipResponse) {
+            OutputStream outputStream = new GZIPOutputStream(response.getOutputStream());
+            outputStream.write(content);
+            outputStream.close();
+          } else {
+            response.getOutputStream().write(content);
+          }
+        }
+        baseRequest.setHandled(true);
+      }
+    });
+    server.start();
+    someUrl = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort() + "/some/path";
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.stop();
+    MockInjector.reset();
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    HttpResponse<String> response = defaultHttpTransport.execute("GET", new HttpRequest(someUrl), null,
+        stringReader);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals(responseBody, response.getBody());
+    assertEquals("GET", receivedMethod.get());
+    assertEquals("gzip", receivedAcceptEncoding.get());
+  }
+
+  @Test
+  public void testGetWithGzipResponse() throws Exception {
+    gzipResponse = true;
+
+    HttpResponse<String> response = defaultHttpTransport.execute("GET", new HttpRequest(someUrl), null,
+        stringReader);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals(responseBody, response.getBody());
+  }
+
+  @Test
+  public void testPostWithBody() throws Exception {
+    String someBody = "{\"someKey\":\"someValue\"}";
+
+    HttpResponse<String> response = defaultHttpTransport.execute("POST", new HttpRequest(someUrl), someBody,
+        stringReader);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals("POST", receivedMethod.get());
+    assertEquals("application/json;charset=UTF-8", receivedContentType.get());
+    assertEquals(someBody, receivedBody.get());
+  }
+
+  @Test
+  public void testNotModified() throws Exception {
+    responseStatus = HttpServletResponse.SC_NOT_MODIFIED;
+
+    HttpResponse<String> response = defaultHttpTransport.execute("GET", new HttpRequest(someUrl), null,
+        stringReader);
+
+    assertEquals(304, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  public void testNotModifiedWithGzipEncoding() throws Exception {
+    responseStatus = HttpServletResponse.SC_NOT_MODIFIED;
+    gzipResponse = true;
+
+    HttpResponse<String> response = defaultHttpTransport.execute("GET", new HttpRequest(someUrl), null,
+        stringReader);
+
+    assertEquals(304, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  public void testErrorStatusCode() throws Exception {
+    responseStatus = HttpServletResponse.SC_NOT_FOUND;
+
+    try {
+      defaultHttpTransport.execute("GET", new HttpRequest(someUrl), null, stringReader);
+      fail("Should throw ApolloConfigStatusCodeException");
+    } catch (ApolloConfigStatusCodeException ex) {
+      assertEquals(404, ex.getStatusCode());
+    }
+
+    responseStatus = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+
+    try {
+      defaultHttpTransport.execute("GET", new HttpRequest(someUrl), null, stringReader);
+      fail("Should throw ApolloConfigStatusCodeException");
+    } catch (ApolloConfigStatusCodeException ex) {
+      assertEquals(500, ex.getStatusCode());
+    }
+  }
+}
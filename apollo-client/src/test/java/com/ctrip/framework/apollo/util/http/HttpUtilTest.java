@@ -0,0 +1,136 @@
+package com.ctrip.framework.apollo.util.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.core.spi.Ordered;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class HttpUtilTest {
+  private ClassLoader originalClassLoader;
+  private File someServicesDir;
+
+  @Before
+  public void setUp() throws Exception {
+    MockInjector.reset();
+    MockInjector.setInstance(ConfigUtil.class, mock(ConfigUtil.class));
+    originalClassLoader = Thread.currentThread().getContextClassLoader();
+    someServicesDir = Files.createTempDir();
+    MockHttpTransport.reset();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Thread.currentThread().setContextClassLoader(originalClassLoader);
+    MockInjector.reset();
+  }
+
+  @Test
+  public void testLoadDefaultTransport() throws Exception {
+    HttpUtil httpUtil = new HttpUtil();
+
+    assertTrue(transportOf(httpUtil) instanceof DefaultHttpTransport);
+  }
+
+  @Test
+  public void testOverrideTransportWithSpi() throws Exception {
+    useTransport(MockHttpTransport.class);
+
+    HttpUtil httpUtil = new HttpUtil();
+
+    assertTrue(transportOf(httpUtil) instanceof MockHttpTransport);
+  }
+
+  @Test
+  public void testDoGetAndDoPost() throws Exception {
+    useTransport(MockHttpTransport.class);
+    HttpRequest someRequest = new HttpRequest("http://someServer/some/path");
+    MockHttpTransport.responseBody = "{\"someKey\":\"someValue\"}";
+
+    HttpUtil httpUtil = new HttpUtil();
+
+    HttpResponse<Map> response = httpUtil.doGet(someRequest, Map.class);
+
+    assertEquals("GET", MockHttpTransport.method);
+    assertSame(someRequest, MockHttpTransport.request);
+    assertEquals(200, response.getStatusCode());
+    assertEquals("someValue", response.getBody().get("someKey"));
+
+    httpUtil.doPost(someRequest, Collections.singletonMap("anotherKey", "anotherValue"), Map.class);
+
+    assertEquals("POST", MockHttpTransport.method);
+    assertEquals("{\"anotherKey\":\"anotherValue\"}", MockHttpTransport.body);
+  }
+
+  @Test(expected = ApolloConfigStatusCodeException.class)
+  public void testErrorStatusCodePropagated() throws Exception {
+    useTransport(MockHttpTransport.class);
+    MockHttpTransport.statusCode = 404;
+
+    new HttpUtil().doGet(new HttpRequest("http://someServer/some/path"), Map.class);
+  }
+
+  private void useTransport(Class<? extends HttpTransport> transportClass) throws Exception {
+    File servicesFile = new File(someServicesDir, "META-INF/services/" + HttpTransport.class.getName());
+    Files.createParentDirs(servicesFile);
+    Files.write(transportClass.getName(), servicesFile, Charsets.UTF_8);
+    Thread.currentThread().setContextClassLoader(
+        new URLClassLoader(new URL[]{someServicesDir.toURI().toURL()}, originalClassLoader));
+  }
+
+  private HttpTransport transportOf(HttpUtil httpUtil) {
+    return (HttpTransport) ReflectionTestUtils.getField(httpUtil, "m_httpTransport");
+  }
+
+  public static class MockHttpTransport implements HttpTransport {
+    private static String method;
+    private static HttpRequest request;
+    private static String body;
+    private static String responseBody;
+    private static int statusCode;
+
+    static void reset() {
+      method = null;
+      request = null;
+      body = null;
+      responseBody = null;
+      statusCode = 200;
+    }
+
+    @Override
+    public <T> HttpResponse<T> execute(String method, HttpRequest httpRequest, String body,
+        Function<Reader, T> responseReader) {
+      MockHttpTransport.method = method;
+      MockHttpTransport.request = httpRequest;
+      MockHttpTransport.body = body;
+      if (statusCode != 200) {
+        throw new ApolloConfigStatusCodeException(statusCode, "some error");
+      }
+      return new HttpResponse<>(statusCode,
+          responseBody == null ? null : responseReader.apply(new StringReader(responseBody)));
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.HIGHEST_PRECEDENCE;
+    }
+  }
+}
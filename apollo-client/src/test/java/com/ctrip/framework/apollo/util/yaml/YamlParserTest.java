@@ -25,6 +25,27 @@ public class YamlParserTest {
     test("case5.yaml");
     test("case6.yaml");
     test("case7.yaml");
+    test("case9.yaml");
+    test("case10.yaml");
+  }
+
+  @Test
+  public void testLargeDocument() throws Exception {
+    StringBuilder yamlContent = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      yamlContent.append("module").append(i).append(":\n");
+      for (int j = 0; j < 10; j++) {
+        yamlContent.append("  key").append(j).append(": value").append(i).append('-').append(j).append('\n');
+        yamlContent.append("  number").append(j).append(": ").append(i * j).append('\n');
+      }
+      yamlContent.append("  list:\n");
+      for (int j = 0; j < 10; j++) {
+        yamlContent.append("  - name: item").append(j).append('\n');
+        yamlContent.append("    enabled: ").append(j % 2 == 0).append('\n');
+      }
+    }
+
+    check(yamlContent.toString());
   }
 
   @Test(expected = ParserException.class)
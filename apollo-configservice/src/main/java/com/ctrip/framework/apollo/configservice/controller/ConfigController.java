@@ -1,35 +1,57 @@
 package com.ctrip.framework.apollo.configservice.controller;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.service.ReleaseService;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
+import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
 import com.ctrip.framework.apollo.configservice.util.InstanceConfigAuditUtil;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigQuery;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+import com.ctrip.framework.apollo.core.dto.ConfigurationChange;
+import com.ctrip.framework.apollo.core.enums.ConfigSyncType;
+import com.ctrip.framework.apollo.core.enums.ConfigurationChangeType;
 import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -39,10 +61,29 @@ import java.util.stream.Collectors;
 public class ConfigController {
   private static final Splitter X_FORWARDED_FOR_SPLITTER = Splitter.on(",").omitEmptyStrings()
       .trimResults();
+  private static final Splitter RELEASE_KEY_SPLITTER = Splitter.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+  private static final Joiner RELEASE_KEY_PAIR_JOINER = Joiner.on("->");
+  private static final String GZIP_ENCODING = "gzip";
+  private static final String ANY_ENCODING = "*";
+  private static final Splitter CONTENT_CODING_SPLITTER = Splitter.on(",").omitEmptyStrings().trimResults();
+  private static final Splitter CONTENT_CODING_PARAMETER_SPLITTER = Splitter.on(";").trimResults();
+  private static final int GZIP_MIN_SIZE = 2048;
+  //a merged release key contains at most the app release and the public release
+  private static final int MAX_MERGED_RELEASES = 2;
+  private static final long MAX_CONFIGURATIONS_CACHE_SIZE = 50 * 1024 * 1024; // 50MB
+  private static final long MAX_RESPONSE_CACHE_SIZE = 50 * 1024 * 1024; // 50MB
+  private static final long EXPIRE_AFTER_ACCESS = 30;
+  //release contents are immutable, so the caches are keyed by release key and never need to be invalidated
+  private final Cache<String, Map<String, String>> configurationsCache;
+  private final Cache<String, byte[]> responseCache;
+  private final Cache<String, List<ConfigurationChange>> configurationChangesCache;
   private final ConfigService configService;
   private final AppNamespaceServiceWithCache appNamespaceService;
   private final NamespaceUtil namespaceUtil;
   private final InstanceConfigAuditUtil instanceConfigAuditUtil;
+  private final ReleaseService releaseService;
+  private final BizConfig bizConfig;
   private final Gson gson;
 
   private static final Type configurationTypeReference = new TypeToken<Map<String, String>>() {
@@ -53,87 +94,413 @@ public class ConfigController {
       final AppNamespaceServiceWithCache appNamespaceService,
       final NamespaceUtil namespaceUtil,
       final InstanceConfigAuditUtil instanceConfigAuditUtil,
+      final ReleaseService releaseService,
+      final BizConfig bizConfig,
       final Gson gson) {
     this.configService = configService;
     this.appNamespaceService = appNamespaceService;
     this.namespaceUtil = namespaceUtil;
     this.instanceConfigAuditUtil = instanceConfigAuditUtil;
+    this.releaseService = releaseService;
+    this.bizConfig = bizConfig;
     this.gson = gson;
+    configurationsCache = CacheBuilder.newBuilder()
+        .expireAfterAccess(EXPIRE_AFTER_ACCESS, TimeUnit.MINUTES)
+        .weigher((Weigher<String, Map<String, String>>) (key, value) -> weightOf(value))
+        .maximumWeight(MAX_CONFIGURATIONS_CACHE_SIZE)
+        .build();
+    responseCache = CacheBuilder.newBuilder()
+        .expireAfterAccess(EXPIRE_AFTER_ACCESS, TimeUnit.MINUTES)
+        .weigher((Weigher<String, byte[]>) (key, value) -> value.length)
+        .maximumWeight(MAX_RESPONSE_CACHE_SIZE)
+        .build();
+    configurationChangesCache = CacheBuilder.newBuilder()
+        .expireAfterAccess(EXPIRE_AFTER_ACCESS, TimeUnit.MINUTES)
+        .weigher((Weigher<String, List<ConfigurationChange>>) (key, value) -> weightOf(value))
+        .maximumWeight(MAX_CONFIGURATIONS_CACHE_SIZE)
+        .build();
   }
 
   @GetMapping(value = "/{appId}/{clusterName}/{namespace:.+}")
-  public ApolloConfig queryConfig(@PathVariable String appId, @PathVariable String clusterName,
-                                  @PathVariable String namespace,
-                                  @RequestParam(value = "dataCenter", required = false) String dataCenter,
-                                  @RequestParam(value = "releaseKey", defaultValue = "-1") String clientSideReleaseKey,
-                                  @RequestParam(value = "ip", required = false) String clientIp,
-                                  @RequestParam(value = "messages", required = false) String messagesAsString,
-                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
-    String originalNamespace = namespace;
-    //strip out .properties suffix
-    namespace = namespaceUtil.filterNamespaceName(namespace);
-    //fix the character case issue, such as FX.apollo <-> fx.apollo
-    namespace = namespaceUtil.normalizeNamespace(appId, namespace);
+  public void queryConfigAsJson(@PathVariable String appId, @PathVariable String clusterName,
+                                @PathVariable String namespace,
+                                @RequestParam(value = "dataCenter", required = false) String dataCenter,
+                                @RequestParam(value = "releaseKey", defaultValue = "-1") String clientSideReleaseKey,
+                                @RequestParam(value = "ip", required = false) String clientIp,
+                                @RequestParam(value = "messages", required = false) String messagesAsString,
+                                @RequestParam(value = "delta", defaultValue = "false") boolean deltaAccepted,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+    ConfigQueryResult result = doQueryConfig(appId, clusterName, namespace, dataCenter, clientSideReleaseKey,
+        clientIp, messagesAsString, request, response);
+
+    //not found or not modified, the response is already set
+    if (result == null) {
+      return;
+    }
+
+    ApolloConfig apolloConfig = result.apolloConfig;
+    if (deltaAccepted) {
+      apolloConfig = tryToAssembleDeltaConfig(apolloConfig, result.releases, clientSideReleaseKey);
+    }
+    String responseCacheKey = responseCacheKey(apolloConfig, clientSideReleaseKey);
+    byte[] content = serialize(responseCacheKey, apolloConfig);
+
+    response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+    if (content.length >= GZIP_MIN_SIZE && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+      String gzipCacheKey = STRING_JOINER.join(responseCacheKey, GZIP_ENCODING);
+      byte[] gzippedContent = responseCache.getIfPresent(gzipCacheKey);
+      if (gzippedContent == null) {
+        gzippedContent = gzip(content);
+        responseCache.put(gzipCacheKey, gzippedContent);
+      }
+      content = gzippedContent;
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING);
+    }
+
+    response.setContentLength(content.length);
+    response.getOutputStream().write(content);
+  }
+
+  private ApolloConfig tryToAssembleDeltaConfig(ApolloConfig apolloConfig, List<Release> releases,
+                                                String clientSideReleaseKey) {
+    if (!bizConfig.isConfigServiceDeltaSyncEnabled()) {
+      return apolloConfig;
+    }
+    ApolloConfig deltaConfig = assembleDeltaConfig(apolloConfig, releases, clientSideReleaseKey);
+    return deltaConfig == null ? apolloConfig : deltaConfig;
+  }
+
+  private String responseCacheKey(ApolloConfig apolloConfig, String clientSideReleaseKey) {
+    String responseCacheKey = STRING_JOINER.join(apolloConfig.getAppId(), apolloConfig.getCluster(),
+        apolloConfig.getNamespaceName(), apolloConfig.getReleaseKey());
+    //the changes depend on the client side release as well
+    if (apolloConfig.getConfigSyncType() == ConfigSyncType.DELTA) {
+      responseCacheKey = RELEASE_KEY_PAIR_JOINER.join(clientSideReleaseKey, responseCacheKey);
+    }
+    return responseCacheKey;
+  }
+
+  private byte[] serialize(String responseCacheKey, ApolloConfig apolloConfig) {
+    byte[] content = responseCache.getIfPresent(responseCacheKey);
+    if (content == null) {
+      content = gson.toJson(apolloConfig).getBytes(StandardCharsets.UTF_8);
+      responseCache.put(responseCacheKey, content);
+    }
+    return content;
+  }
+
+  /**
+   * @return the changes from the client side release to the current one, or null if the client side release is
+   * unknown so that all the configurations should be returned
+   */
+  private ApolloConfig assembleDeltaConfig(ApolloConfig apolloConfig, List<Release> releases,
+                                           String clientSideReleaseKey) {
+    if (Strings.isNullOrEmpty(clientSideReleaseKey) || "-1".equals(clientSideReleaseKey)) {
+      return null;
+    }
+
+    String changesCacheKey = RELEASE_KEY_PAIR_JOINER.join(clientSideReleaseKey, apolloConfig.getReleaseKey());
+    List<ConfigurationChange> changes = configurationChangesCache.getIfPresent(changesCacheKey);
+
+    if (changes == null) {
+      Map<String, String> clientSideConfigurations = loadClientSideConfigurations(releases, clientSideReleaseKey);
+      if (clientSideConfigurations == null) {
+        Tracer.logEvent("Apollo.Config.Delta.BaseNotFound", clientSideReleaseKey);
+        return null;
+      }
+      changes = calcConfigurationChanges(clientSideConfigurations, apolloConfig.getConfigurations());
+      configurationChangesCache.put(changesCacheKey, changes);
+    }
+
+    ApolloConfig deltaConfig = new ApolloConfig(apolloConfig.getAppId(), apolloConfig.getCluster(),
+        apolloConfig.getNamespaceName(), apolloConfig.getReleaseKey());
+    deltaConfig.setConfigSyncType(ConfigSyncType.DELTA);
+    deltaConfig.setConfigurationChanges(changes);
+    return deltaConfig;
+  }
+
+  /**
+   * Load the configurations of the releases in the merged release key. The release keys are supplied by the client,
+   * so each release is only trusted if it's of the same app and namespace as the current release at its position,
+   * i.e. the app release or the public release.
+   *
+   * @param currentReleases the current releases of the namespace
+   */
+  private Map<String, String> loadClientSideConfigurations(List<Release> currentReleases, String mergedReleaseKey) {
+    List<String> releaseKeys = RELEASE_KEY_SPLITTER.splitToList(mergedReleaseKey);
+    if (releaseKeys.size() > MAX_MERGED_RELEASES || releaseKeys.size() != currentReleases.size()) {
+      return null;
+    }
+
+    Map<String, Release> releasesByKey = Maps.newHashMap();
+    for (Release release : releaseService.findByReleaseKeys(Sets.newHashSet(releaseKeys))) {
+      releasesByKey.put(release.getReleaseKey(), release);
+    }
+
+    List<Release> releases = Lists.newArrayList();
+    for (int i = 0; i < releaseKeys.size(); i++) {
+      Release release = releasesByKey.get(releaseKeys.get(i));
+      if (release == null || !isOfSameNamespace(release, currentReleases.get(i))) {
+        return null;
+      }
+      releases.add(release);
+    }
+
+    return loadConfigurations(mergedReleaseKey, releases);
+  }
+
+  private boolean isOfSameNamespace(Release release, Release anotherRelease) {
+    return release.getAppId() != null && release.getAppId().equalsIgnoreCase(anotherRelease.getAppId())
+        && release.getNamespaceName() != null
+        && release.getNamespaceName().equalsIgnoreCase(anotherRelease.getNamespaceName());
+  }
+
+  List<ConfigurationChange> calcConfigurationChanges(Map<String, String> previousConfigurations,
+                                                     Map<String, String> currentConfigurations) {
+    List<ConfigurationChange> changes = Lists.newArrayList();
+    for (Map.Entry<String, String> entry : currentConfigurations.entrySet()) {
+      if (!previousConfigurations.containsKey(entry.getKey())) {
+        changes.add(new ConfigurationChange(entry.getKey(), entry.getValue(), ConfigurationChangeType.ADDED));
+      } else if (!Objects.equals(previousConfigurations.get(entry.getKey()), entry.getValue())) {
+        changes.add(new ConfigurationChange(entry.getKey(), entry.getValue(), ConfigurationChangeType.MODIFIED));
+      }
+    }
+    for (String key : previousConfigurations.keySet()) {
+      if (!currentConfigurations.containsKey(key)) {
+        changes.add(new ConfigurationChange(key, null, ConfigurationChangeType.DELETED));
+      }
+    }
+    return Collections.unmodifiableList(changes);
+  }
+
+  /**
+   * @return whether gzip is acceptable per the Accept-Encoding header, i.e. gzip, or * if gzip is not listed, with a
+   * non zero quality value
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (Strings.isNullOrEmpty(acceptEncoding)) {
+      return false;
+    }
+    Boolean gzipAccepted = null;
+    boolean anyAccepted = false;
+    for (String contentCoding : CONTENT_CODING_SPLITTER.split(acceptEncoding)) {
+      List<String> parts = CONTENT_CODING_PARAMETER_SPLITTER.splitToList(contentCoding);
+      if (GZIP_ENCODING.equalsIgnoreCase(parts.get(0))) {
+        gzipAccepted = qualityOf(parts) > 0;
+      } else if (ANY_ENCODING.equals(parts.get(0))) {
+        anyAccepted = qualityOf(parts) > 0;
+      }
+    }
+    return gzipAccepted != null ? gzipAccepted : anyAccepted;
+  }
+
+  /**
+   * @return the quality value of the content coding, 1 if absent and 0 if malformed
+   */
+  private static double qualityOf(List<String> contentCodingParts) {
+    for (String parameter : contentCodingParts.subList(1, contentCodingParts.size())) {
+      int index = parameter.indexOf('=');
+      if (index < 0 || !"q".equalsIgnoreCase(parameter.substring(0, index).trim())) {
+        continue;
+      }
+      try {
+        return Double.parseDouble(parameter.substring(index + 1).trim());
+      } catch (NumberFormatException ex) {
+        return 0;
+      }
+    }
+    return 1;
+  }
+
+  private byte[] gzip(byte[] content) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length / 4);
+    try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+      gzipOutputStream.write(content);
+    }
+    return outputStream.toByteArray();
+  }
+
+  /**
+   * Query the config as {@link #queryConfigAsJson}, but return it as an object, e.g. for {@link ConfigFileController}
+   *
+   * @return the config, or null if not found or not modified, in which case the response status is set
+   */
+  ApolloConfig queryConfig(String appId, String clusterName, String namespace, String dataCenter,
+                           String clientSideReleaseKey, String clientIp, String messagesAsString,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+    ConfigQueryResult result = doQueryConfig(appId, clusterName, namespace, dataCenter, clientSideReleaseKey,
+        clientIp, messagesAsString, request, response);
+    return result == null ? null : result.apolloConfig;
+  }
 
+  /**
+   * @return the query result with the config, or null if not found or not modified, in which case the response
+   * status is set
+   */
+  private ConfigQueryResult doQueryConfig(String appId, String clusterName, String namespace, String dataCenter,
+                                          String clientSideReleaseKey, String clientIp, String messagesAsString,
+                                          HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
     if (Strings.isNullOrEmpty(clientIp)) {
       clientIp = tryToGetClientIp(request);
     }
 
     ApolloNotificationMessages clientMessages = transformMessages(messagesAsString);
 
-    List<Release> releases = Lists.newLinkedList();
+    ConfigQueryResult result = queryConfig(appId, clusterName, namespace, dataCenter, clientSideReleaseKey,
+        clientIp, clientMessages);
 
-    String appClusterNameLoaded = clusterName;
-    if (!ConfigConsts.NO_APPID_PLACEHOLDER.equalsIgnoreCase(appId)) {
-      Release currentAppRelease = configService.loadConfig(appId, clientIp, appId, clusterName, namespace,
-          dataCenter, clientMessages);
+    if (result.releases.isEmpty()) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND,
+          String.format(
+              "Could not load configurations with appId: %s, clusterName: %s, namespace: %s",
+              appId, clusterName, namespace));
+      return null;
+    }
 
-      if (currentAppRelease != null) {
-        releases.add(currentAppRelease);
-        //we have cluster search process, so the cluster name might be overridden
-        appClusterNameLoaded = currentAppRelease.getClusterName();
+    if (result.apolloConfig == null) {
+      // Client side configuration is the same with server side, return 304
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return null;
+    }
+
+    return result;
+  }
+
+  /**
+   * Query the configs of multiple namespaces in one request, e.g. the namespaces notified by the same long polling
+   * response.
+   *
+   * @return the configs of the namespaces which are changed, the namespaces not modified or not found are omitted
+   */
+  @PostMapping(value = "/{appId}/{clusterName}")
+  public void queryConfigs(@PathVariable String appId, @PathVariable String clusterName,
+                           @RequestParam(value = "dataCenter", required = false) String dataCenter,
+                           @RequestParam(value = "ip", required = false) String clientIp,
+                           @RequestParam(value = "delta", defaultValue = "false") boolean deltaAccepted,
+                           @RequestBody List<ApolloConfigQuery> configQueries,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (configQueries.size() > ConfigConsts.MAX_BATCH_CONFIG_QUERY_SIZE) {
+      throw new BadRequestException(String.format("Too many namespaces in one batch: %d, the limit is %d",
+          configQueries.size(), ConfigConsts.MAX_BATCH_CONFIG_QUERY_SIZE));
+    }
+
+    if (Strings.isNullOrEmpty(clientIp)) {
+      clientIp = tryToGetClientIp(request);
+    }
+
+    List<byte[]> contents = Lists.newArrayList();
+    for (ApolloConfigQuery configQuery : configQueries) {
+      String namespace = configQuery.getNamespaceName();
+      //the namespaces not modified or not found are omitted
+      ConfigQueryResult result = queryConfig(appId, clusterName, namespace, dataCenter,
+          configQuery.getReleaseKey(), clientIp, configQuery.getMessages());
+      ApolloConfig apolloConfig = result.apolloConfig;
+      if (apolloConfig == null) {
+        continue;
       }
+      if (deltaAccepted) {
+        apolloConfig = tryToAssembleDeltaConfig(apolloConfig, result.releases, configQuery.getReleaseKey());
+      }
+      contents.add(serialize(responseCacheKey(apolloConfig, configQuery.getReleaseKey()), apolloConfig));
     }
 
-    //if namespace does not belong to this appId, should check if there is a public configuration
-    if (!namespaceBelongsToAppId(appId, namespace)) {
-      Release publicRelease = this.findPublicConfig(appId, clientIp, clusterName, namespace,
-          dataCenter, clientMessages);
-      if (!Objects.isNull(publicRelease)) {
-        releases.add(publicRelease);
+    Tracer.logEvent("Apollo.Config.Batch", STRING_JOINER.join(appId, clusterName), Transaction.SUCCESS,
+        String.format("queried=%d&changed=%d", configQueries.size(), contents.size()));
+
+    //the cached responses of the namespaces are reused as the elements of the json array
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    outputStream.write('[');
+    for (int i = 0; i < contents.size(); i++) {
+      if (i > 0) {
+        outputStream.write(',');
       }
+      outputStream.write(contents.get(i));
     }
+    outputStream.write(']');
+
+    response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+    response.setContentLength(outputStream.size());
+    outputStream.writeTo(response.getOutputStream());
+  }
+
+  /**
+   * Load the releases of the namespace and assemble the config if it's changed compared with the client side release
+   */
+  private ConfigQueryResult queryConfig(String appId, String clusterName, String originalNamespace,
+                                        String dataCenter, String clientSideReleaseKey, String clientIp,
+                                        ApolloNotificationMessages clientMessages) {
+    //strip out .properties suffix
+    String namespace = namespaceUtil.filterNamespaceName(originalNamespace);
+    //fix the character case issue, such as FX.apollo <-> fx.apollo
+    namespace = namespaceUtil.normalizeNamespace(appId, namespace);
+
+    List<Release> releases = loadReleases(appId, clientIp, clusterName, namespace, dataCenter, clientMessages);
 
     if (releases.isEmpty()) {
-      response.sendError(HttpServletResponse.SC_NOT_FOUND,
-          String.format(
-              "Could not load configurations with appId: %s, clusterName: %s, namespace: %s",
-              appId, clusterName, originalNamespace));
       Tracer.logEvent("Apollo.Config.NotFound",
           assembleKey(appId, clusterName, originalNamespace, dataCenter));
-      return null;
+      return new ConfigQueryResult(releases, null);
     }
 
     auditReleases(appId, clusterName, dataCenter, clientIp, releases);
 
+    String appClusterNameLoaded = loadedClusterName(appId, clusterName, releases);
     String mergedReleaseKey = releases.stream().map(Release::getReleaseKey)
-            .collect(Collectors.joining(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR));
+        .collect(Collectors.joining(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR));
 
     if (mergedReleaseKey.equals(clientSideReleaseKey)) {
-      // Client side configuration is the same with server side, return 304
-      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
       Tracer.logEvent("Apollo.Config.NotModified",
           assembleKey(appId, appClusterNameLoaded, originalNamespace, dataCenter));
-      return null;
+      return new ConfigQueryResult(releases, null);
     }
 
     ApolloConfig apolloConfig = new ApolloConfig(appId, appClusterNameLoaded, originalNamespace,
         mergedReleaseKey);
-    apolloConfig.setConfigurations(mergeReleaseConfigurations(releases));
+    apolloConfig.setConfigurations(loadConfigurations(mergedReleaseKey, releases));
 
     Tracer.logEvent("Apollo.Config.Found", assembleKey(appId, appClusterNameLoaded,
         originalNamespace, dataCenter));
-    return apolloConfig;
+    return new ConfigQueryResult(releases, apolloConfig);
+  }
+
+  /**
+   * @return the app release and the public release of the namespace, the app release goes first
+   */
+  private List<Release> loadReleases(String appId, String clientIp, String clusterName, String namespace,
+                                     String dataCenter, ApolloNotificationMessages clientMessages) {
+    List<Release> releases = Lists.newLinkedList();
+
+    if (!ConfigConsts.NO_APPID_PLACEHOLDER.equalsIgnoreCase(appId)) {
+      Release currentAppRelease = configService.loadConfig(appId, clientIp, appId, clusterName, namespace,
+          dataCenter, clientMessages);
+
+      if (currentAppRelease != null) {
+        releases.add(currentAppRelease);
+      }
+    }
+
+    //if namespace does not belong to this appId, should check if there is a public configuration
+    if (!namespaceBelongsToAppId(appId, namespace)) {
+      Release publicRelease = this.findPublicConfig(appId, clientIp, clusterName, namespace,
+          dataCenter, clientMessages);
+      if (!Objects.isNull(publicRelease)) {
+        releases.add(publicRelease);
+      }
+    }
+
+    return releases;
+  }
+
+  private String loadedClusterName(String appId, String clusterName, List<Release> releases) {
+    Release firstRelease = releases.get(0);
+    //we have cluster search process, so the cluster name might be overridden
+    if (appId.equalsIgnoreCase(firstRelease.getAppId())) {
+      return firstRelease.getClusterName();
+    }
+    return clusterName;
   }
 
   private boolean namespaceBelongsToAppId(String appId, String namespaceName) {
@@ -172,6 +539,31 @@ public class ConfigController {
         clientMessages);
   }
 
+  private Map<String, String> loadConfigurations(String mergedReleaseKey, List<Release> releases) {
+    Map<String, String> configurations = configurationsCache.getIfPresent(mergedReleaseKey);
+    if (configurations == null) {
+      configurations = Collections.unmodifiableMap(mergeReleaseConfigurations(releases));
+      configurationsCache.put(mergedReleaseKey, configurations);
+    }
+    return configurations;
+  }
+
+  private int weightOf(List<ConfigurationChange> changes) {
+    int weight = 0;
+    for (ConfigurationChange change : changes) {
+      weight += change.getKey().length() + (change.getNewValue() == null ? 0 : change.getNewValue().length());
+    }
+    return weight;
+  }
+
+  private int weightOf(Map<String, String> configurations) {
+    int weight = 0;
+    for (Map.Entry<String, String> entry : configurations.entrySet()) {
+      weight += entry.getKey().length() + (entry.getValue() == null ? 0 : entry.getValue().length());
+    }
+    return weight;
+  }
+
   /**
    * Merge configurations of releases.
    * Release in lower index override those in higher index
@@ -225,4 +617,16 @@ public class ConfigController {
 
     return notificationMessages;
   }
+
+  private static class ConfigQueryResult {
+    //the releases loaded, empty if not found
+    private final List<Release> releases;
+    //the config assembled, null if not found or not modified
+    private final ApolloConfig apolloConfig;
+
+    ConfigQueryResult(List<Release> releases, ApolloConfig apolloConfig) {
+      this.releases = releases;
+      this.apolloConfig = apolloConfig;
+    }
+  }
 }
@@ -22,9 +22,11 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -37,6 +39,7 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -55,10 +58,14 @@ public class ConfigFileController implements ReleaseMessageListener {
       .trimResults();
   private static final long MAX_CACHE_SIZE = 50 * 1024 * 1024; // 50MB
   private static final long EXPIRE_AFTER_WRITE = 30;
+  private static final Splitter ETAG_SPLITTER = Splitter.on(",").omitEmptyStrings().trimResults();
+  private static final String WEAK_ETAG_PREFIX = "W/";
+  //clients could keep the content, but should always revalidate it with the etag
+  private static final String CACHE_CONTROL = CacheControl.noCache().getHeaderValue();
   private final HttpHeaders propertiesResponseHeaders;
   private final HttpHeaders jsonResponseHeaders;
   private final ResponseEntity<String> NOT_FOUND_RESPONSE;
-  private Cache<String, String> localCache;
+  private Cache<String, CachedConfigFile> localCache;
   private final Multimap<String, String>
       watchedKeys2CacheKey = Multimaps.synchronizedSetMultimap(HashMultimap.create());
   private final Multimap<String, String>
@@ -77,7 +84,8 @@ public class ConfigFileController implements ReleaseMessageListener {
       final GrayReleaseRulesHolder grayReleaseRulesHolder) {
     localCache = CacheBuilder.newBuilder()
         .expireAfterWrite(EXPIRE_AFTER_WRITE, TimeUnit.MINUTES)
-        .weigher((Weigher<String, String>) (key, value) -> value == null ? 0 : value.length())
+        .weigher((Weigher<String, CachedConfigFile>) (key, value) ->
+            value == null ? 0 : value.getContent().length())
         .maximumWeight(MAX_CACHE_SIZE)
         .removalListener(notification -> {
           String cacheKey = notification.getKey();
@@ -115,15 +123,11 @@ public class ConfigFileController implements ReleaseMessageListener {
                                                         HttpServletResponse response)
       throws IOException {
 
-    String result =
+    CachedConfigFile result =
         queryConfig(ConfigFileOutputFormat.PROPERTIES, appId, clusterName, namespace, dataCenter,
             clientIp, request, response);
 
-    if (result == null) {
-      return NOT_FOUND_RESPONSE;
-    }
-
-    return new ResponseEntity<>(result, propertiesResponseHeaders, HttpStatus.OK);
+    return assembleResponse(result, propertiesResponseHeaders, request);
   }
 
   @GetMapping(value = "/json/{appId}/{clusterName}/{namespace:.+}")
@@ -135,18 +139,52 @@ public class ConfigFileController implements ReleaseMessageListener {
                                                   HttpServletRequest request,
                                                   HttpServletResponse response) throws IOException {
 
-    String result =
+    CachedConfigFile result =
         queryConfig(ConfigFileOutputFormat.JSON, appId, clusterName, namespace, dataCenter,
             clientIp, request, response);
 
-    if (result == null) {
+    return assembleResponse(result, jsonResponseHeaders, request);
+  }
+
+  /**
+   * Return 304 without the content if the client already has the same release, judged by the If-None-Match header
+   */
+  private ResponseEntity<String> assembleResponse(CachedConfigFile configFile, HttpHeaders contentHeaders,
+                                                  HttpServletRequest request) {
+    if (configFile == null) {
       return NOT_FOUND_RESPONSE;
     }
 
-    return new ResponseEntity<>(result, jsonResponseHeaders, HttpStatus.OK);
+    HttpHeaders responseHeaders = new HttpHeaders();
+    responseHeaders.putAll(contentHeaders);
+    responseHeaders.setETag(configFile.getETag());
+    responseHeaders.setCacheControl(CACHE_CONTROL);
+
+    if (eTagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), configFile.getETag())) {
+      Tracer.logEvent("ConfigFile.NotModified", configFile.getETag());
+      return new ResponseEntity<>(responseHeaders, HttpStatus.NOT_MODIFIED);
+    }
+
+    return new ResponseEntity<>(configFile.getContent(), responseHeaders, HttpStatus.OK);
+  }
+
+  private boolean eTagMatches(String ifNoneMatch, String eTag) {
+    if (Strings.isNullOrEmpty(ifNoneMatch)) {
+      return false;
+    }
+    //If-None-Match uses the weak comparison, see RFC 7232
+    for (String candidate : ETAG_SPLITTER.split(ifNoneMatch)) {
+      if (candidate.startsWith(WEAK_ETAG_PREFIX)) {
+        candidate = candidate.substring(WEAK_ETAG_PREFIX.length());
+      }
+      if (candidate.equals(eTag)) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  String queryConfig(ConfigFileOutputFormat outputFormat, String appId, String clusterName,
+  CachedConfigFile queryConfig(ConfigFileOutputFormat outputFormat, String appId, String clusterName,
                      String namespace, String dataCenter, String clientIp,
                      HttpServletRequest request,
                      HttpServletResponse response) throws IOException {
@@ -173,10 +211,10 @@ public class ConfigFileController implements ReleaseMessageListener {
     }
 
     //3. if not gray release, check weather cache exists, if exists, return
-    String result = localCache.getIfPresent(cacheKey);
+    CachedConfigFile result = localCache.getIfPresent(cacheKey);
 
     //4. if not exists, load from ConfigController
-    if (Strings.isNullOrEmpty(result)) {
+    if (result == null) {
       Tracer.logEvent("ConfigFile.Cache.Miss", cacheKey);
       result = loadConfig(outputFormat, appId, clusterName, namespace, dataCenter, clientIp,
           request, response);
@@ -211,7 +249,7 @@ public class ConfigFileController implements ReleaseMessageListener {
     return result;
   }
 
-  private String loadConfig(ConfigFileOutputFormat outputFormat, String appId, String clusterName,
+  private CachedConfigFile loadConfig(ConfigFileOutputFormat outputFormat, String appId, String clusterName,
                             String namespace, String dataCenter, String clientIp,
                             HttpServletRequest request,
                             HttpServletResponse response) throws IOException {
@@ -235,7 +273,16 @@ public class ConfigFileController implements ReleaseMessageListener {
         break;
     }
 
-    return result;
+    return new CachedConfigFile(result, assembleETag(outputFormat, apolloConfig.getReleaseKey()));
+  }
+
+  /**
+   * The release key changes whenever the content changes, so it's enough to tell whether the client is up to date
+   */
+  private String assembleETag(ConfigFileOutputFormat outputFormat, String releaseKey) {
+    String eTag = Hashing.sha1().hashString(STRING_JOINER.join(outputFormat.getValue(),
+        Strings.nullToEmpty(releaseKey)), StandardCharsets.UTF_8).toString();
+    return "\"" + eTag + "\"";
   }
 
   String assembleCacheKey(ConfigFileOutputFormat outputFormat, String appId, String clusterName,
@@ -285,6 +332,24 @@ public class ConfigFileController implements ReleaseMessageListener {
     }
   }
 
+  static class CachedConfigFile {
+    private final String content;
+    private final String eTag;
+
+    CachedConfigFile(String content, String eTag) {
+      this.content = content;
+      this.eTag = eTag;
+    }
+
+    String getContent() {
+      return content;
+    }
+
+    String getETag() {
+      return eTag;
+    }
+  }
+
   private String tryToGetClientIp(HttpServletRequest request) {
     String forwardedFor = request.getHeader("X-FORWARDED-FOR");
     if (!Strings.isNullOrEmpty(forwardedFor)) {
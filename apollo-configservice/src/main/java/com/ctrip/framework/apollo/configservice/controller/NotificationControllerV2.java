@@ -8,22 +8,20 @@ import com.ctrip.framework.apollo.biz.utils.EntityManagerUtil;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
+import com.ctrip.framework.apollo.configservice.util.NotificationFanOutScheduler;
+import com.ctrip.framework.apollo.configservice.util.WatchKeyDictionary;
 import com.ctrip.framework.apollo.configservice.util.WatchKeysUtil;
 import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.configservice.wrapper.WatchKeyRegistry;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
-import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
-import com.google.common.collect.TreeMultimap;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
@@ -43,9 +41,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -55,20 +50,18 @@ import java.util.function.Function;
 @RequestMapping("/notifications/v2")
 public class NotificationControllerV2 implements ReleaseMessageListener {
   private static final Logger logger = LoggerFactory.getLogger(NotificationControllerV2.class);
-  private final Multimap<String, DeferredResultWrapper> deferredResults =
-      Multimaps.synchronizedSetMultimap(TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural()));
+  private final WatchKeyRegistry<DeferredResultWrapper> deferredResults;
   private static final Splitter STRING_SPLITTER =
       Splitter.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR).omitEmptyStrings();
   private static final Type notificationsTypeReference =
       new TypeToken<List<ApolloConfigNotification>>() {
       }.getType();
 
-  private final ExecutorService largeNotificationBatchExecutorService;
-
   private final WatchKeysUtil watchKeysUtil;
   private final ReleaseMessageServiceWithCache releaseMessageService;
   private final EntityManagerUtil entityManagerUtil;
   private final NamespaceUtil namespaceUtil;
+  private final NotificationFanOutScheduler notificationFanOutScheduler;
   private final Gson gson;
   private final BizConfig bizConfig;
 
@@ -78,14 +71,17 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
       final ReleaseMessageServiceWithCache releaseMessageService,
       final EntityManagerUtil entityManagerUtil,
       final NamespaceUtil namespaceUtil,
+      final NotificationFanOutScheduler notificationFanOutScheduler,
+      final WatchKeyDictionary watchKeyDictionary,
       final Gson gson,
       final BizConfig bizConfig) {
-    largeNotificationBatchExecutorService = Executors.newSingleThreadExecutor(ApolloThreadFactory.create
-        ("NotificationControllerV2", true));
+    //share the normalized watch keys among the long polling requests
+    this.deferredResults = new WatchKeyRegistry<>(watchKeyDictionary::normalize);
     this.watchKeysUtil = watchKeysUtil;
     this.releaseMessageService = releaseMessageService;
     this.entityManagerUtil = entityManagerUtil;
     this.namespaceUtil = namespaceUtil;
+    this.notificationFanOutScheduler = notificationFanOutScheduler;
     this.gson = gson;
     this.bizConfig = bizConfig;
   }
@@ -260,33 +256,18 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
       return;
     }
 
-    if (!deferredResults.containsKey(content)) {
+    //the registry returns a snapshot, so it's safe against concurrent registration
+    List<DeferredResultWrapper> results = deferredResults.get(content);
+    if (results == null) {
       return;
     }
 
-    //create a new list to avoid ConcurrentModificationException
-    List<DeferredResultWrapper> results = Lists.newArrayList(deferredResults.get(content));
-
     ApolloConfigNotification configNotification = new ApolloConfigNotification(changedNamespace, message.getId());
     configNotification.addMessage(content, message.getId());
 
     //do async notification if too many clients
     if (results.size() > bizConfig.releaseMessageNotificationBatch()) {
-      largeNotificationBatchExecutorService.submit(() -> {
-        logger.debug("Async notify {} clients for key {} with batch {}", results.size(), content,
-            bizConfig.releaseMessageNotificationBatch());
-        for (int i = 0; i < results.size(); i++) {
-          if (i > 0 && i % bizConfig.releaseMessageNotificationBatch() == 0) {
-            try {
-              TimeUnit.MILLISECONDS.sleep(bizConfig.releaseMessageNotificationBatchIntervalInMilli());
-            } catch (InterruptedException e) {
-              //ignore
-            }
-          }
-          logger.debug("Async notify {}", results.get(i));
-          results.get(i).setResult(configNotification);
-        }
-      });
+      notificationFanOutScheduler.schedule(content, results, configNotification);
       return;
     }
 
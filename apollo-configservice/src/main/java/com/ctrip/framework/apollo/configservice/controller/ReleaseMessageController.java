@@ -0,0 +1,78 @@
+package com.ctrip.framework.apollo.configservice.controller;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessageScanner;
+import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Strings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+
+/**
+ * Receives the new release messages pushed by admin service, so that they could be delivered without waiting for
+ * the next database scan.
+ *
+ * <p>Only registered when apollo.release-message.push.enabled is true, and only accepts the pushes carrying the
+ * access token configured by apollo.release-message.push.access-token.</p>
+ */
+@RestController
+@RequestMapping("/release-messages")
+@ConditionalOnProperty(name = "apollo.release-message.push.enabled", havingValue = "true")
+public class ReleaseMessageController {
+  private final ReleaseMessageScanner releaseMessageScanner;
+  private final ReleaseMessageRepository releaseMessageRepository;
+  private final BizConfig bizConfig;
+
+  public ReleaseMessageController(
+      final ReleaseMessageScanner releaseMessageScanner,
+      final ReleaseMessageRepository releaseMessageRepository,
+      final BizConfig bizConfig) {
+    this.releaseMessageScanner = releaseMessageScanner;
+    this.releaseMessageRepository = releaseMessageRepository;
+    this.bizConfig = bizConfig;
+  }
+
+  @PostMapping("/notify")
+  public ResponseEntity<Void> notifyReleaseMessage(@RequestParam(value = "message") String message,
+      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String accessToken) {
+    if (!isAuthorized(accessToken)) {
+      Tracer.logEvent("Apollo.ReleaseMessage.PushUnauthorized", message);
+      return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+
+    //only trigger the scan for the messages which are really saved, e.g. not for a forged or rolled back one
+    ReleaseMessage releaseMessage =
+        releaseMessageRepository.findTopByMessageInOrderByIdDesc(Collections.singletonList(message));
+    if (releaseMessage == null) {
+      Tracer.logEvent("Apollo.ReleaseMessage.PushNotFound", message);
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    Tracer.logEvent("Apollo.ReleaseMessage.Pushed", message);
+    //always load the messages from database, which keeps them in order and is the only trusted source
+    releaseMessageScanner.scanImmediately();
+    return new ResponseEntity<>(HttpStatus.OK);
+  }
+
+  private boolean isAuthorized(String accessToken) {
+    String expectedAccessToken = bizConfig.releaseMessagePushAccessToken();
+    if (Strings.isNullOrEmpty(expectedAccessToken) || Strings.isNullOrEmpty(accessToken)) {
+      return false;
+    }
+    //constant time comparison
+    return MessageDigest.isEqual(expectedAccessToken.getBytes(StandardCharsets.UTF_8),
+        accessToken.getBytes(StandardCharsets.UTF_8));
+  }
+}
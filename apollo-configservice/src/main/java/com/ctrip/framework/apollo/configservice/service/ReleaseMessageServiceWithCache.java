@@ -5,6 +5,7 @@ import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.message.ReleaseMessageListener;
 import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
+import com.ctrip.framework.apollo.configservice.util.WatchKeyDictionary;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
@@ -35,6 +36,7 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
       .class);
   private final ReleaseMessageRepository releaseMessageRepository;
   private final BizConfig bizConfig;
+  private final WatchKeyDictionary watchKeyDictionary;
 
   private int scanInterval;
   private TimeUnit scanIntervalTimeUnit;
@@ -48,9 +50,11 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
 
   public ReleaseMessageServiceWithCache(
       final ReleaseMessageRepository releaseMessageRepository,
-      final BizConfig bizConfig) {
+      final BizConfig bizConfig,
+      final WatchKeyDictionary watchKeyDictionary) {
     this.releaseMessageRepository = releaseMessageRepository;
     this.bizConfig = bizConfig;
+    this.watchKeyDictionary = watchKeyDictionary;
     initialize();
   }
 
@@ -146,9 +150,11 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
   }
 
   private synchronized void mergeReleaseMessage(ReleaseMessage releaseMessage) {
-    ReleaseMessage old = releaseMessageCache.get(releaseMessage.getMessage());
+    //share the same watch key instance with the long polling requests
+    String message = watchKeyDictionary.intern(releaseMessage.getMessage());
+    ReleaseMessage old = releaseMessageCache.get(message);
     if (old == null || releaseMessage.getId() > old.getId()) {
-      releaseMessageCache.put(releaseMessage.getMessage(), releaseMessage);
+      releaseMessageCache.put(message, releaseMessage);
       maxIdScanned = releaseMessage.getId();
     }
   }
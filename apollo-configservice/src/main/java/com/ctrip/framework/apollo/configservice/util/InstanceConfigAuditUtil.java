@@ -5,6 +5,7 @@ import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 
 import com.ctrip.framework.apollo.biz.entity.Instance;
@@ -13,20 +14,24 @@ import com.ctrip.framework.apollo.biz.service.InstanceService;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -34,12 +39,17 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @Service
 public class InstanceConfigAuditUtil implements InitializingBean {
   private static final int INSTANCE_CONFIG_AUDIT_MAX_SIZE = 10000;
+  private static final int INSTANCE_CONFIG_AUDIT_BATCH_SIZE = 500;
+  private static final long INSTANCE_CONFIG_AUDIT_BATCH_WINDOW_IN_MILLI = 1000;
   private static final int INSTANCE_CACHE_MAX_SIZE = 50000;
   private static final int INSTANCE_CONFIG_CACHE_MAX_SIZE = 50000;
   private static final long OFFER_TIME_LAST_MODIFIED_TIME_THRESHOLD_IN_MILLI = TimeUnit.MINUTES.toMillis(10);//10 minutes
   private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
   private final ExecutorService auditExecutorService;
   private final AtomicBoolean auditStopped;
+  private final AtomicLong auditedCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
   private BlockingQueue<InstanceConfigAuditModel> audits = Queues.newLinkedBlockingQueue
       (INSTANCE_CONFIG_AUDIT_MAX_SIZE);
   private Cache<String, Long> instanceCache;
@@ -60,53 +70,149 @@ public class InstanceConfigAuditUtil implements InitializingBean {
 
   public boolean audit(String appId, String clusterName, String dataCenter, String
       ip, String configAppId, String configClusterName, String configNamespace, String releaseKey) {
-    return this.audits.offer(new InstanceConfigAuditModel(appId, clusterName, dataCenter, ip,
+    boolean offered = this.audits.offer(new InstanceConfigAuditModel(appId, clusterName, dataCenter, ip,
         configAppId, configClusterName, configNamespace, releaseKey));
+    if (!offered) {
+      droppedCount.incrementAndGet();
+      Tracer.logEvent("Apollo.InstanceConfigAudit.Dropped", STRING_JOINER.join(configAppId, configNamespace));
+    }
+    return offered;
   }
 
-  void doAudit(InstanceConfigAuditModel auditModel) {
-    String instanceCacheKey = assembleInstanceKey(auditModel.getAppId(), auditModel
-        .getClusterName(), auditModel.getIp(), auditModel.getDataCenter());
-    Long instanceId = instanceCache.getIfPresent(instanceCacheKey);
-    if (instanceId == null) {
-      instanceId = prepareInstanceId(auditModel);
-      instanceCache.put(instanceCacheKey, instanceId);
+  void doAudit(List<InstanceConfigAuditModel> auditModels) {
+    Collection<InstanceConfigAuditModel> models = coalesce(auditModels);
+    Map<String, Long> instanceIds = prepareInstanceIds(models);
+
+    //group by config app id and namespace, so that the instance configs could be loaded in one query per group
+    Map<String, Map<Long, InstanceConfigAuditModel>> modelsToAudit = Maps.newLinkedHashMap();
+    for (InstanceConfigAuditModel auditModel : models) {
+      long instanceId = instanceIds.get(assembleInstanceKey(auditModel.getAppId(), auditModel.getClusterName(),
+          auditModel.getIp(), auditModel.getDataCenter()));
+
+      //load instance config release key from cache, and check if release key is the same
+      String instanceConfigCacheKey = assembleInstanceConfigKey(instanceId, auditModel
+          .getConfigAppId(), auditModel.getConfigNamespace());
+      String cacheReleaseKey = instanceConfigReleaseKeyCache.getIfPresent(instanceConfigCacheKey);
+
+      //if release key is the same, then skip audit
+      if (cacheReleaseKey != null && Objects.equals(cacheReleaseKey, auditModel.getReleaseKey())) {
+        continue;
+      }
+
+      instanceConfigReleaseKeyCache.put(instanceConfigCacheKey, auditModel.getReleaseKey());
+
+      modelsToAudit.computeIfAbsent(STRING_JOINER.join(auditModel.getConfigAppId(), auditModel.getConfigNamespace()),
+          key -> Maps.newLinkedHashMap()).put(instanceId, auditModel);
+    }
+
+    List<InstanceConfig> instanceConfigsToUpdate = Lists.newArrayList();
+    List<InstanceConfig> instanceConfigsToCreate = Lists.newArrayList();
+
+    for (Map<Long, InstanceConfigAuditModel> namespaceModels : modelsToAudit.values()) {
+      InstanceConfigAuditModel someModel = namespaceModels.values().iterator().next();
+      //if release key is not the same or cannot find in cache, then do audit
+      List<InstanceConfig> instanceConfigs = instanceService.findInstanceConfigs(someModel.getConfigAppId(),
+          someModel.getConfigNamespace(), namespaceModels.keySet());
+
+      for (InstanceConfig instanceConfig : instanceConfigs) {
+        InstanceConfigAuditModel auditModel = namespaceModels.remove(instanceConfig.getInstanceId());
+        if (auditModel == null) {
+          continue;
+        }
+        if (!Objects.equals(instanceConfig.getReleaseKey(), auditModel.getReleaseKey())) {
+          instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
+          instanceConfig.setReleaseKey(auditModel.getReleaseKey());
+          instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
+        } else if (offerTimeAndLastModifiedTimeCloseEnough(auditModel.getOfferTime(),
+            instanceConfig.getDataChangeLastModifiedTime())) {
+          //when releaseKey is the same, optimize to reduce writes if the record was updated not long ago
+          continue;
+        }
+        //we need to update no matter the release key is the same or not, to ensure the
+        //last modified time is updated each day
+        instanceConfig.setDataChangeLastModifiedTime(auditModel.getOfferTime());
+        instanceConfigsToUpdate.add(instanceConfig);
+      }
+
+      for (Map.Entry<Long, InstanceConfigAuditModel> entry : namespaceModels.entrySet()) {
+        instanceConfigsToCreate.add(assembleInstanceConfig(entry.getKey(), entry.getValue()));
+      }
     }
 
-    //load instance config release key from cache, and check if release key is the same
-    String instanceConfigCacheKey = assembleInstanceConfigKey(instanceId, auditModel
-        .getConfigAppId(), auditModel.getConfigNamespace());
-    String cacheReleaseKey = instanceConfigReleaseKeyCache.getIfPresent(instanceConfigCacheKey);
+    if (!instanceConfigsToUpdate.isEmpty()) {
+      instanceService.batchUpdateInstanceConfigs(instanceConfigsToUpdate);
+    }
 
-    //if release key is the same, then skip audit
-    if (cacheReleaseKey != null && Objects.equals(cacheReleaseKey, auditModel.getReleaseKey())) {
-      return;
+    if (!instanceConfigsToCreate.isEmpty()) {
+      createInstanceConfigs(instanceConfigsToCreate);
     }
 
-    instanceConfigReleaseKeyCache.put(instanceConfigCacheKey, auditModel.getReleaseKey());
-
-    //if release key is not the same or cannot find in cache, then do audit
-    InstanceConfig instanceConfig = instanceService.findInstanceConfig(instanceId, auditModel
-        .getConfigAppId(), auditModel.getConfigNamespace());
-
-    if (instanceConfig != null) {
-      if (!Objects.equals(instanceConfig.getReleaseKey(), auditModel.getReleaseKey())) {
-        instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
-        instanceConfig.setReleaseKey(auditModel.getReleaseKey());
-        instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
-      } else if (offerTimeAndLastModifiedTimeCloseEnough(auditModel.getOfferTime(),
-          instanceConfig.getDataChangeLastModifiedTime())) {
-        //when releaseKey is the same, optimize to reduce writes if the record was updated not long ago
-        return;
+    auditedCount.addAndGet(instanceConfigsToUpdate.size() + instanceConfigsToCreate.size());
+  }
+
+  /**
+   * Only keep the latest audit of the same instance and namespace
+   */
+  private Collection<InstanceConfigAuditModel> coalesce(List<InstanceConfigAuditModel> auditModels) {
+    Map<String, InstanceConfigAuditModel> models = Maps.newLinkedHashMap();
+    for (InstanceConfigAuditModel auditModel : auditModels) {
+      models.put(STRING_JOINER.join(assembleInstanceKey(auditModel.getAppId(), auditModel.getClusterName(),
+          auditModel.getIp(), auditModel.getDataCenter()), auditModel.getConfigAppId(),
+          auditModel.getConfigNamespace()), auditModel);
+    }
+    coalescedCount.addAndGet(auditModels.size() - models.size());
+    return models.values();
+  }
+
+  /**
+   * @return instance key to instance id, instances not in cache are loaded with one query per app, cluster and
+   * data center
+   */
+  private Map<String, Long> prepareInstanceIds(Collection<InstanceConfigAuditModel> auditModels) {
+    Map<String, Long> instanceIds = Maps.newHashMap();
+    Map<String, Map<String, InstanceConfigAuditModel>> instancesToLoad = Maps.newLinkedHashMap();
+
+    for (InstanceConfigAuditModel auditModel : auditModels) {
+      String instanceCacheKey = assembleInstanceKey(auditModel.getAppId(), auditModel
+          .getClusterName(), auditModel.getIp(), auditModel.getDataCenter());
+      Long instanceId = instanceCache.getIfPresent(instanceCacheKey);
+      if (instanceId != null) {
+        instanceIds.put(instanceCacheKey, instanceId);
+        continue;
       }
-      //we need to update no matter the release key is the same or not, to ensure the
-      //last modified time is updated each day
-      instanceConfig.setDataChangeLastModifiedTime(auditModel.getOfferTime());
-      instanceService.updateInstanceConfig(instanceConfig);
-      return;
+      instancesToLoad.computeIfAbsent(STRING_JOINER.join(auditModel.getAppId(), auditModel.getClusterName(),
+          auditModel.getDataCenter()), key -> Maps.newHashMap()).put(auditModel.getIp(), auditModel);
     }
 
-    instanceConfig = new InstanceConfig();
+    for (Map<String, InstanceConfigAuditModel> ipModels : instancesToLoad.values()) {
+      InstanceConfigAuditModel someModel = ipModels.values().iterator().next();
+      List<Instance> instances = instanceService.findInstances(someModel.getAppId(), someModel.getClusterName(),
+          someModel.getDataCenter(), ipModels.keySet());
+      for (Instance instance : instances) {
+        InstanceConfigAuditModel auditModel = ipModels.remove(instance.getIp());
+        if (auditModel != null) {
+          cacheInstanceId(instanceIds, auditModel, instance.getId());
+        }
+      }
+
+      //the rest are new instances
+      for (InstanceConfigAuditModel auditModel : ipModels.values()) {
+        cacheInstanceId(instanceIds, auditModel, prepareInstanceId(auditModel));
+      }
+    }
+
+    return instanceIds;
+  }
+
+  private void cacheInstanceId(Map<String, Long> instanceIds, InstanceConfigAuditModel auditModel, long instanceId) {
+    String instanceCacheKey = assembleInstanceKey(auditModel.getAppId(), auditModel.getClusterName(),
+        auditModel.getIp(), auditModel.getDataCenter());
+    instanceIds.put(instanceCacheKey, instanceId);
+    instanceCache.put(instanceCacheKey, instanceId);
+  }
+
+  private InstanceConfig assembleInstanceConfig(long instanceId, InstanceConfigAuditModel auditModel) {
+    InstanceConfig instanceConfig = new InstanceConfig();
     instanceConfig.setInstanceId(instanceId);
     instanceConfig.setConfigAppId(auditModel.getConfigAppId());
     instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
@@ -114,11 +220,21 @@ public class InstanceConfigAuditUtil implements InitializingBean {
     instanceConfig.setReleaseKey(auditModel.getReleaseKey());
     instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
     instanceConfig.setDataChangeCreatedTime(auditModel.getOfferTime());
+    return instanceConfig;
+  }
 
+  private void createInstanceConfigs(List<InstanceConfig> instanceConfigs) {
     try {
-      instanceService.createInstanceConfig(instanceConfig);
+      instanceService.batchCreateInstanceConfigs(instanceConfigs);
     } catch (DataIntegrityViolationException ex) {
-      //concurrent insertion, safe to ignore
+      //concurrent insertion by other config services, fall back to create one by one
+      for (InstanceConfig instanceConfig : instanceConfigs) {
+        try {
+          instanceService.createInstanceConfig(instanceConfig);
+        } catch (DataIntegrityViolationException e) {
+          //concurrent insertion, safe to ignore
+        }
+      }
     }
   }
 
@@ -128,12 +244,7 @@ public class InstanceConfigAuditUtil implements InitializingBean {
   }
 
   private long prepareInstanceId(InstanceConfigAuditModel auditModel) {
-    Instance instance = instanceService.findInstance(auditModel.getAppId(), auditModel
-        .getClusterName(), auditModel.getDataCenter(), auditModel.getIp());
-    if (instance != null) {
-      return instance.getId();
-    }
-    instance = new Instance();
+    Instance instance = new Instance();
     instance.setAppId(auditModel.getAppId());
     instance.setClusterName(auditModel.getClusterName());
     instance.setDataCenter(auditModel.getDataCenter());
@@ -154,12 +265,19 @@ public class InstanceConfigAuditUtil implements InitializingBean {
     auditExecutorService.submit(() -> {
       while (!auditStopped.get() && !Thread.currentThread().isInterrupted()) {
         try {
-          InstanceConfigAuditModel model = audits.poll();
-          if (model == null) {
-            TimeUnit.SECONDS.sleep(1);
+          List<InstanceConfigAuditModel> auditModels = Lists.newArrayList();
+          //wait for a while so that the audits could be coalesced and written in batch
+          Queues.drain(audits, auditModels, INSTANCE_CONFIG_AUDIT_BATCH_SIZE,
+              INSTANCE_CONFIG_AUDIT_BATCH_WINDOW_IN_MILLI, TimeUnit.MILLISECONDS);
+          if (auditModels.isEmpty()) {
             continue;
           }
-          doAudit(model);
+          doAudit(auditModels);
+          Tracer.logEvent("Apollo.InstanceConfigAudit.Batch", String.valueOf(auditModels.size()),
+              Transaction.SUCCESS, String.format("audited=%d&coalesced=%d&dropped=%d", auditedCount.get(),
+                  coalescedCount.get(), droppedCount.get()));
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
         } catch (Throwable ex) {
           Tracer.logError(ex);
         }
@@ -167,6 +285,27 @@ public class InstanceConfigAuditUtil implements InitializingBean {
     });
   }
 
+  /**
+   * @return the number of instance configs created or updated
+   */
+  public long getAuditedCount() {
+    return auditedCount.get();
+  }
+
+  /**
+   * @return the number of audits merged into a later one of the same instance and namespace
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /**
+   * @return the number of audits dropped because the queue is full
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
   private String assembleInstanceKey(String appId, String cluster, String ip, String datacenter) {
     List<String> keyParts = Lists.newArrayList(appId, cluster, ip);
     if (!Strings.isNullOrEmpty(datacenter)) {
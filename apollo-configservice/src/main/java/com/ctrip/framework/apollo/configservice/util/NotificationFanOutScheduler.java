@@ -0,0 +1,236 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Notifies the long polling clients of one watch key in batches, used when there are too many clients to notify in
+ * the release message thread.
+ *
+ * <ul>
+ *   <li>Batches of all the watch keys share one pace: at most
+ *   {@link BizConfig#releaseMessageNotificationBatch()} clients per
+ *   {@link BizConfig#releaseMessageNotificationBatchIntervalInMilli()} for this config service instance</li>
+ *   <li>Each watch key only gets one batch at a time and then goes to the back of the queue, so a hot key doesn't
+ *   block the others</li>
+ *   <li>A new message for a watch key which is still being notified is merged into the ongoing fan out, so the
+ *   remaining clients only receive the latest one</li>
+ * </ul>
+ *
+ * <p>Each completed fan out is logged as an Apollo.LongPoll.FanOut.Completed event with the p99 notification latency
+ * of its clients, i.e. the time from the message to the notification, and the fan out rate in clients per second.</p>
+ */
+@Component
+public class NotificationFanOutScheduler {
+  private static final Logger logger = LoggerFactory.getLogger(NotificationFanOutScheduler.class);
+  private final ScheduledExecutorService fanOutExecutorService;
+  private final ConcurrentMap<String, FanOut> fanOuts = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingClients = new AtomicInteger();
+  private long nextBatchTimeInNanos;
+
+  private final BizConfig bizConfig;
+  private final Ticker ticker;
+
+  @Autowired
+  public NotificationFanOutScheduler(final BizConfig bizConfig) {
+    this(bizConfig, Executors.newScheduledThreadPool(bizConfig.releaseMessageNotificationThreads(),
+        ApolloThreadFactory.create("NotificationFanOutScheduler", true)), Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  NotificationFanOutScheduler(final BizConfig bizConfig, final ScheduledExecutorService fanOutExecutorService,
+                              final Ticker ticker) {
+    this.bizConfig = bizConfig;
+    this.fanOutExecutorService = fanOutExecutorService;
+    this.ticker = ticker;
+  }
+
+  /**
+   * Notify the clients watching the key with the notification
+   */
+  public void schedule(String watchKey, List<DeferredResultWrapper> results,
+                       ApolloConfigNotification notification) {
+    FanOut newFanOut = new FanOut(watchKey, results, notification);
+    FanOut fanOut = fanOuts.compute(watchKey, (key, ongoing) -> {
+      if (ongoing != null && ongoing.merge(results, notification)) {
+        return ongoing;
+      }
+      return newFanOut;
+    });
+
+    if (fanOut != newFanOut) {
+      Tracer.logEvent("Apollo.LongPoll.FanOut.Coalesced", watchKey);
+      return;
+    }
+
+    pendingClients.addAndGet(results.size());
+    logger.debug("Async notify {} clients for key {} with batch {}", results.size(), watchKey,
+        bizConfig.releaseMessageNotificationBatch());
+    scheduleNextBatch(fanOut);
+  }
+
+  /**
+   * @return the number of clients waiting to be notified
+   */
+  public int getPendingClients() {
+    return pendingClients.get();
+  }
+
+  private void scheduleNextBatch(FanOut fanOut) {
+    fanOutExecutorService.schedule(fanOut, reserveNextBatch(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return the delay in nanoseconds until the reserved batch could run
+   */
+  private synchronized long reserveNextBatch() {
+    long now = ticker.read();
+    long batchTime = Math.max(now, nextBatchTimeInNanos);
+    nextBatchTimeInNanos =
+        batchTime + TimeUnit.MILLISECONDS.toNanos(bizConfig.releaseMessageNotificationBatchIntervalInMilli());
+    return batchTime - now;
+  }
+
+  private class FanOut implements Runnable {
+    private final String watchKey;
+    private final long startTimeInNanos;
+    private List<DeferredResultWrapper> results;
+    private ApolloConfigNotification notification;
+    private long notificationTimeInNanos;
+    private int nextIndex;
+    private int notified;
+    private boolean finished;
+    //the notification latency and the number of clients notified of each batch, in the order of the batches
+    private final List<Long> batchLatenciesInNanos = Lists.newArrayList();
+    private final List<Integer> batchNotified = Lists.newArrayList();
+
+    FanOut(String watchKey, List<DeferredResultWrapper> results, ApolloConfigNotification notification) {
+      this.watchKey = watchKey;
+      this.results = results;
+      this.notification = notification;
+      this.startTimeInNanos = ticker.read();
+      this.notificationTimeInNanos = startTimeInNanos;
+    }
+
+    /**
+     * @return false if this fan out is already finished and could not take the new notification
+     */
+    synchronized boolean merge(List<DeferredResultWrapper> results, ApolloConfigNotification notification) {
+      if (finished) {
+        return false;
+      }
+      //the new results contain all the clients still watching, so start over with them
+      pendingClients.addAndGet(results.size() - (this.results.size() - nextIndex));
+      this.results = results;
+      this.notification = notification;
+      this.notificationTimeInNanos = ticker.read();
+      this.nextIndex = 0;
+      return true;
+    }
+
+    @Override
+    public void run() {
+      Transaction transaction = Tracer.newTransaction("Apollo.LongPoll.FanOut", watchKey);
+      try {
+        notifyNextBatch();
+        transaction.setStatus(Transaction.SUCCESS);
+      } catch (Throwable ex) {
+        transaction.setStatus(ex);
+        logger.error("Notify clients for key {} failed", watchKey, ex);
+      } finally {
+        transaction.complete();
+      }
+
+      if (hasMore()) {
+        scheduleNextBatch(this);
+        return;
+      }
+
+      fanOuts.remove(watchKey, this);
+      long costInNanos = ticker.read() - startTimeInNanos;
+      Tracer.logEvent("Apollo.LongPoll.FanOut.Completed", watchKey, Transaction.SUCCESS,
+          String.format("notified=%d&costInMs=%d&p99LatencyInMs=%d&clientsPerSecond=%d&pendingKeys=%d"
+                  + "&pendingClients=%d", notified, TimeUnit.NANOSECONDS.toMillis(costInNanos),
+              TimeUnit.NANOSECONDS.toMillis(p99LatencyInNanos()), clientsPerSecond(costInNanos), fanOuts.size(),
+              pendingClients.get()));
+    }
+
+    /**
+     * @return the notification latency which 99% of the notified clients are within
+     */
+    private long p99LatencyInNanos() {
+      //the batches are notified one after another, so the latencies are already in ascending order
+      long target = (long) Math.ceil(notified * 0.99);
+      long count = 0;
+      for (int i = 0; i < batchNotified.size(); i++) {
+        count += batchNotified.get(i);
+        if (count >= target) {
+          return batchLatenciesInNanos.get(i);
+        }
+      }
+      return 0;
+    }
+
+    private long clientsPerSecond(long costInNanos) {
+      if (costInNanos <= 0) {
+        return notified;
+      }
+      return notified * TimeUnit.SECONDS.toNanos(1) / costInNanos;
+    }
+
+    private void notifyNextBatch() {
+      List<DeferredResultWrapper> batch;
+      ApolloConfigNotification currentNotification;
+      long currentNotificationTimeInNanos;
+      synchronized (this) {
+        int end = Math.min(results.size(), nextIndex + bizConfig.releaseMessageNotificationBatch());
+        batch = results.subList(nextIndex, end);
+        currentNotification = notification;
+        currentNotificationTimeInNanos = notificationTimeInNanos;
+        nextIndex = end;
+      }
+      pendingClients.addAndGet(-batch.size());
+
+      int batchNotifiedCount = 0;
+      for (DeferredResultWrapper result : batch) {
+        //the client might have been notified or timed out already
+        if (result.getResult().isSetOrExpired()) {
+          continue;
+        }
+        logger.debug("Async notify {}", result);
+        result.setResult(currentNotification);
+        batchNotifiedCount++;
+      }
+      notified += batchNotifiedCount;
+      batchLatenciesInNanos.add(ticker.read() - currentNotificationTimeInNanos);
+      batchNotified.add(batchNotifiedCount);
+    }
+
+    private synchronized boolean hasMore() {
+      if (nextIndex < results.size()) {
+        return true;
+      }
+      finished = true;
+      return false;
+    }
+  }
+}
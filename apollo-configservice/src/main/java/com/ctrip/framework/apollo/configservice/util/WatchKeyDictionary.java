@@ -0,0 +1,48 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Dictionary of watch keys(appId+cluster+namespace), so that all the long polling requests, release message cache and
+ * config file cache share one canonical instance of each key.
+ *
+ * <p>Canonical instances are shared and have their hash code computed once, and {@link String#equals} returns on its
+ * reference check when both sides are the same instance, which makes the lookups on the notification hot path cheaper.
+ * The caches are still plain string maps compared with {@code equals}. The instances are weakly interned, so the keys
+ * no longer referenced by any request or cache are garbage collected instead of piling up.</p>
+ */
+@Component
+public class WatchKeyDictionary {
+  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+
+  private final Interner<String> interner = Interners.newWeakInterner();
+  private final Interner<String> normalizedInterner = Interners.newWeakInterner();
+
+  /**
+   * Get the canonical watch key for the given appId, cluster and namespace
+   */
+  public String assembleKey(String appId, String cluster, String namespace) {
+    return intern(STRING_JOINER.join(appId, cluster, namespace));
+  }
+
+  /**
+   * Get the canonical instance of the watch key, e.g. the message of a release message
+   */
+  public String intern(String watchKey) {
+    return interner.intern(watchKey);
+  }
+
+  /**
+   * Get the canonical instance of the lower cased watch key, which is used to match the watch keys case insensitively
+   */
+  public String normalize(String watchKey) {
+    //String.toLowerCase returns the same instance if there is nothing to lower case
+    return normalizedInterner.intern(watchKey.toLowerCase(Locale.ROOT));
+  }
+}
@@ -3,7 +3,6 @@ package com.ctrip.framework.apollo.configservice.util;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
 import com.ctrip.framework.apollo.core.ConfigConsts;
-import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
@@ -21,11 +20,13 @@ import java.util.stream.Collectors;
  */
 @Component
 public class WatchKeysUtil {
-  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
   private final AppNamespaceServiceWithCache appNamespaceService;
+  private final WatchKeyDictionary watchKeyDictionary;
 
-  public WatchKeysUtil(final AppNamespaceServiceWithCache appNamespaceService) {
+  public WatchKeysUtil(final AppNamespaceServiceWithCache appNamespaceService,
+                       final WatchKeyDictionary watchKeyDictionary) {
     this.appNamespaceService = appNamespaceService;
+    this.watchKeyDictionary = watchKeyDictionary;
   }
 
   /**
@@ -87,7 +88,7 @@ public class WatchKeysUtil {
   }
 
   private String assembleKey(String appId, String cluster, String namespace) {
-    return STRING_JOINER.join(appId, cluster, namespace);
+    return watchKeyDictionary.assembleKey(appId, cluster, namespace);
   }
 
   private Set<String> assembleWatchKeys(String appId, String clusterName, String namespace,
@@ -0,0 +1,90 @@
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A concurrent, case insensitive registry from watch keys to their watchers.
+ *
+ * <p>Keys are normalized once on registration, each key holds its own concurrent set, so register/unregister are O(1)
+ * and only contend with operations on the same key.</p>
+ */
+public class WatchKeyRegistry<T> {
+  private final ConcurrentMap<String, Set<T>> registry = new ConcurrentHashMap<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final Function<String, String> normalizer;
+
+  public WatchKeyRegistry() {
+    //watch keys are ascii, so normalize them regardless of the default locale, e.g. the dotless i in tr_TR
+    this(key -> key.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * @param normalizer the function to normalize the keys, which should lower case them
+   */
+  public WatchKeyRegistry(Function<String, String> normalizer) {
+    this.normalizer = normalizer;
+  }
+
+  public boolean put(String key, T value) {
+    boolean[] added = new boolean[1];
+    registry.compute(normalize(key), (k, values) -> {
+      if (values == null) {
+        values = ConcurrentHashMap.newKeySet();
+      }
+      added[0] = values.add(value);
+      return values;
+    });
+    if (added[0]) {
+      size.incrementAndGet();
+    }
+    return added[0];
+  }
+
+  public boolean remove(String key, T value) {
+    boolean[] removed = new boolean[1];
+    registry.computeIfPresent(normalize(key), (k, values) -> {
+      removed[0] = values.remove(value);
+      //drop the empty set so that keys no longer watched do not pile up
+      return values.isEmpty() ? null : values;
+    });
+    if (removed[0]) {
+      size.decrementAndGet();
+    }
+    return removed[0];
+  }
+
+  public boolean containsKey(String key) {
+    return registry.containsKey(normalize(key));
+  }
+
+  /**
+   * @return a snapshot of the watchers of the key, which is safe to iterate while others register or unregister, or
+   * null if the key is not watched
+   */
+  public List<T> get(String key) {
+    Set<T> values = registry.get(normalize(key));
+    if (values == null) {
+      return null;
+    }
+    return ImmutableList.copyOf(values);
+  }
+
+  /**
+   * @return the total number of (key, watcher) pairs
+   */
+  public int size() {
+    return size.get();
+  }
+
+  private String normalize(String key) {
+    return normalizer.apply(key);
+  }
+}
@@ -1,17 +1,26 @@
 package com.ctrip.framework.apollo.configservice.controller;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.service.ReleaseService;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
+import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
 import com.ctrip.framework.apollo.configservice.util.InstanceConfigAuditUtil;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigQuery;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+import com.ctrip.framework.apollo.core.enums.ConfigSyncType;
+import com.ctrip.framework.apollo.core.enums.ConfigurationChangeType;
 import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import org.junit.Before;
@@ -19,13 +28,25 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -60,12 +81,16 @@ public class ConfigControllerTest {
   private InstanceConfigAuditUtil instanceConfigAuditUtil;
   @Mock
   private HttpServletRequest someRequest;
+  @Mock
+  private ReleaseService releaseService;
+  @Mock
+  private BizConfig bizConfig;
   private Gson gson = new Gson();
 
   @Before
   public void setUp() throws Exception {
     configController = spy(new ConfigController(
-        configService, appNamespaceService, namespaceUtil, instanceConfigAuditUtil, gson
+        configService, appNamespaceService, namespaceUtil, instanceConfigAuditUtil, releaseService, bizConfig, gson
     ));
 
     someAppId = "1";
@@ -116,6 +141,214 @@ public class ConfigControllerTest {
         someClientIp, someAppId, someClusterName, defaultNamespaceName, someServerSideNewReleaseKey);
   }
 
+  @Test
+  public void testQueryConfigAsJsonWithCachedResponse() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+
+    MockHttpServletResponse someResponse = new MockHttpServletResponse();
+    MockHttpServletResponse anotherResponse = new MockHttpServletResponse();
+
+    configController.queryConfigAsJson(someAppId, someClusterName, defaultNamespaceName, someDataCenter,
+        someClientSideReleaseKey, someClientIp, someMessagesAsString, false, someRequest, someResponse);
+    configController.queryConfigAsJson(someAppId, someClusterName, defaultNamespaceName, someDataCenter,
+        someClientSideReleaseKey, someClientIp, someMessagesAsString, false, someRequest, anotherResponse);
+
+    ApolloConfig result = gson.fromJson(someResponse.getContentAsString(), ApolloConfig.class);
+
+    assertEquals(someAppId, result.getAppId());
+    assertEquals(someClusterName, result.getCluster());
+    assertEquals(defaultNamespaceName, result.getNamespaceName());
+    assertEquals(someServerSideNewReleaseKey, result.getReleaseKey());
+    assertEquals("foo", result.getConfigurations().get("apollo.bar"));
+    assertArrayEquals(someResponse.getContentAsByteArray(), anotherResponse.getContentAsByteArray());
+    verify(configController, times(1)).mergeReleaseConfigurations(anyList());
+    verify(instanceConfigAuditUtil, times(2)).audit(someAppId, someClusterName, someDataCenter,
+        someClientIp, someAppId, someClusterName, defaultNamespaceName, someServerSideNewReleaseKey);
+  }
+
+  @Test
+  public void testQueryConfigAsJsonWithDelta() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+    Release someClientSideRelease = new Release();
+    someClientSideRelease.setReleaseKey(someClientSideReleaseKey);
+    someClientSideRelease.setAppId(someAppId);
+    someClientSideRelease.setNamespaceName(defaultNamespaceName);
+    someClientSideRelease.setConfigurations("{\"apollo.bar\": \"bar\", \"apollo.foo\": \"foo\"}");
+
+    when(bizConfig.isConfigServiceDeltaSyncEnabled()).thenReturn(true);
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+    when(releaseService.findByReleaseKeys(Sets.newHashSet(someClientSideReleaseKey)))
+        .thenReturn(Lists.newArrayList(someClientSideRelease));
+
+    MockHttpServletResponse someResponse = new MockHttpServletResponse();
+
+    configController.queryConfigAsJson(someAppId, someClusterName, defaultNamespaceName, someDataCenter,
+        someClientSideReleaseKey, someClientIp, someMessagesAsString, true, someRequest, someResponse);
+
+    ApolloConfig result = gson.fromJson(someResponse.getContentAsString(), ApolloConfig.class);
+
+    assertEquals(someServerSideNewReleaseKey, result.getReleaseKey());
+    assertEquals(ConfigSyncType.DELTA, result.getConfigSyncType());
+    assertNull(result.getConfigurations());
+    assertEquals(2, result.getConfigurationChanges().size());
+    assertEquals("apollo.bar", result.getConfigurationChanges().get(0).getKey());
+    assertEquals("foo", result.getConfigurationChanges().get(0).getNewValue());
+    assertEquals(ConfigurationChangeType.MODIFIED,
+        result.getConfigurationChanges().get(0).getConfigurationChangeType());
+    assertEquals("apollo.foo", result.getConfigurationChanges().get(1).getKey());
+    assertEquals(ConfigurationChangeType.DELETED,
+        result.getConfigurationChanges().get(1).getConfigurationChangeType());
+  }
+
+  @Test
+  public void testQueryConfigAsJsonWithDeltaFromUnknownRelease() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+
+    when(bizConfig.isConfigServiceDeltaSyncEnabled()).thenReturn(true);
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+    when(releaseService.findByReleaseKeys(Sets.newHashSet(someClientSideReleaseKey)))
+        .thenReturn(Collections.emptyList());
+
+    MockHttpServletResponse someResponse = new MockHttpServletResponse();
+
+    configController.queryConfigAsJson(someAppId, someClusterName, defaultNamespaceName, someDataCenter,
+        someClientSideReleaseKey, someClientIp, someMessagesAsString, true, someRequest, someResponse);
+
+    ApolloConfig result = gson.fromJson(someResponse.getContentAsString(), ApolloConfig.class);
+
+    assertEquals(someServerSideNewReleaseKey, result.getReleaseKey());
+    assertNull(result.getConfigSyncType());
+    assertEquals("foo", result.getConfigurations().get("apollo.bar"));
+  }
+
+  @Test
+  public void testQueryConfigAsJsonWithDeltaFromReleaseOfAnotherApp() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+    Release anotherAppRelease = new Release();
+    anotherAppRelease.setReleaseKey(someClientSideReleaseKey);
+    anotherAppRelease.setAppId("anotherAppId");
+    anotherAppRelease.setNamespaceName(defaultNamespaceName);
+    anotherAppRelease.setConfigurations("{\"apollo.bar\": \"bar\"}");
+
+    when(bizConfig.isConfigServiceDeltaSyncEnabled()).thenReturn(true);
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+    when(releaseService.findByReleaseKeys(Sets.newHashSet(someClientSideReleaseKey)))
+        .thenReturn(Lists.newArrayList(anotherAppRelease));
+
+    MockHttpServletResponse someResponse = new MockHttpServletResponse();
+
+    configController.queryConfigAsJson(someAppId, someClusterName, defaultNamespaceName, someDataCenter,
+        someClientSideReleaseKey, someClientIp, someMessagesAsString, true, someRequest, someResponse);
+
+    ApolloConfig result = gson.fromJson(someResponse.getContentAsString(), ApolloConfig.class);
+
+    //the release of another app is not trusted as the base of the changes
+    assertNull(result.getConfigSyncType());
+    assertEquals("foo", result.getConfigurations().get("apollo.bar"));
+  }
+
+  @Test
+  public void testQueryConfigAsJsonWithGzip() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+    String someLargeValue = Strings.repeat("someValue", 1000);
+
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+    when(someRelease.getConfigurations()).thenReturn(gson.toJson(ImmutableMap.of("someKey", someLargeValue)));
+    when(someRequest.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip, deflate");
+
+    MockHttpServletResponse someResponse = new MockHttpServletResponse();
+
+    configController.queryConfigAsJson(someAppId, someClusterName, defaultNamespaceName, someDataCenter,
+        someClientSideReleaseKey, someClientIp, someMessagesAsString, false, someRequest, someResponse);
+
+    assertEquals("gzip", someResponse.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertTrue(someResponse.getContentAsByteArray().length < someLargeValue.length());
+
+    String content;
+    try (InputStream inputStream = new GZIPInputStream(
+        new ByteArrayInputStream(someResponse.getContentAsByteArray()))) {
+      content = new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8);
+    }
+    ApolloConfig result = gson.fromJson(content, ApolloConfig.class);
+
+    assertEquals(someLargeValue, result.getConfigurations().get("someKey"));
+  }
+
+  @Test
+  public void testAcceptsGzip() throws Exception {
+    assertTrue(ConfigController.acceptsGzip("gzip"));
+    assertTrue(ConfigController.acceptsGzip("deflate, GZIP;q=0.5"));
+    assertTrue(ConfigController.acceptsGzip("*"));
+    assertTrue(ConfigController.acceptsGzip("gzip;q=1, *;q=0"));
+
+    assertFalse(ConfigController.acceptsGzip(null));
+    assertFalse(ConfigController.acceptsGzip("deflate"));
+    assertFalse(ConfigController.acceptsGzip("gzip;q=0"));
+    assertFalse(ConfigController.acceptsGzip("gzip; q=0.0, deflate"));
+    assertFalse(ConfigController.acceptsGzip("gzip;q=0, *"));
+    assertFalse(ConfigController.acceptsGzip("x-gzipped"));
+  }
+
+  @Test
+  public void testQueryConfigsInBatch() throws Exception {
+    String someServerSideReleaseKey = "2";
+    ApolloConfigQuery someQuery = new ApolloConfigQuery(defaultNamespaceName, "1");
+    ApolloConfigQuery notModifiedQuery = new ApolloConfigQuery(defaultNamespaceName, someServerSideReleaseKey);
+    ApolloConfigQuery notFoundQuery = new ApolloConfigQuery(somePublicNamespaceName, "1");
+
+    when(configService.loadConfig(someAppId, someClientIp, someAppId, someClusterName, defaultNamespaceName,
+        someDataCenter, null)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+
+    MockHttpServletResponse someResponse = new MockHttpServletResponse();
+
+    configController.queryConfigs(someAppId, someClusterName, someDataCenter, someClientIp, false,
+        Lists.newArrayList(someQuery, notModifiedQuery, notFoundQuery), someRequest, someResponse);
+
+    ApolloConfig[] result = gson.fromJson(someResponse.getContentAsString(), ApolloConfig[].class);
+
+    assertEquals(1, result.length);
+    assertEquals(defaultNamespaceName, result[0].getNamespaceName());
+    assertEquals(someServerSideReleaseKey, result[0].getReleaseKey());
+    assertEquals("foo", result[0].getConfigurations().get("apollo.bar"));
+    verify(instanceConfigAuditUtil, times(2)).audit(someAppId, someClusterName, someDataCenter,
+        someClientIp, someAppId, someClusterName, defaultNamespaceName, someServerSideReleaseKey);
+  }
+
+  @Test(expected = BadRequestException.class)
+  public void testQueryConfigsWithTooManyNamespaces() throws Exception {
+    List<ApolloConfigQuery> someQueries = Lists.newArrayList();
+    for (int i = 0; i <= ConfigConsts.MAX_BATCH_CONFIG_QUERY_SIZE; i++) {
+      someQueries.add(new ApolloConfigQuery(somePublicNamespaceName + i, "1"));
+    }
+
+    configController.queryConfigs(someAppId, someClusterName, someDataCenter, someClientIp, false,
+        someQueries, someRequest, new MockHttpServletResponse());
+  }
+
   @Test
   public void testQueryConfigFile() throws Exception {
     String someClientSideReleaseKey = "1";
@@ -18,6 +18,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -29,6 +30,9 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -168,6 +172,68 @@ public class ConfigFileControllerTest {
     assertEquals(configurations, gson.fromJson(response.getBody(), responseType));
   }
 
+  @Test
+  public void testQueryConfigWithETag() throws Exception {
+    String someReleaseKey = "someReleaseKey";
+    String anotherReleaseKey = "anotherReleaseKey";
+    Map<String, String> configurations = ImmutableMap.of("someKey", "someValue");
+
+    ApolloConfig someApolloConfig = mock(ApolloConfig.class);
+    when(someApolloConfig.getConfigurations()).thenReturn(configurations);
+    when(someApolloConfig.getReleaseKey()).thenReturn(someReleaseKey);
+    when(configController
+        .queryConfig(someAppId, someClusterName, someNamespace, someDataCenter, "-1", someClientIp, null,
+            someRequest, someResponse)).thenReturn(someApolloConfig);
+    when(watchKeysUtil
+        .assembleAllWatchKeys(someAppId, someClusterName, someNamespace, someDataCenter))
+        .thenReturn(Sets.newHashSet("someWatchKey"));
+
+    ResponseEntity<String> response =
+        configFileController
+            .queryConfigAsJson(someAppId, someClusterName, someNamespace, someDataCenter,
+                someClientIp, someRequest, someResponse);
+
+    String someETag = response.getHeaders().getETag();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(someETag);
+    assertEquals("no-cache", response.getHeaders().getCacheControl());
+
+    when(someRequest.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn("W/" + someETag);
+
+    ResponseEntity<String> notModifiedResponse =
+        configFileController
+            .queryConfigAsJson(someAppId, someClusterName, someNamespace, someDataCenter,
+                someClientIp, someRequest, someResponse);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, notModifiedResponse.getStatusCode());
+    assertNull(notModifiedResponse.getBody());
+    assertEquals(someETag, notModifiedResponse.getHeaders().getETag());
+    verify(configController, times(1))
+        .queryConfig(someAppId, someClusterName, someNamespace, someDataCenter, "-1", someClientIp, null,
+            someRequest, someResponse);
+
+    //the properties format has its own etag
+    ResponseEntity<String> propertiesResponse =
+        configFileController
+            .queryConfigAsProperties(someAppId, someClusterName, someNamespace, someDataCenter,
+                someClientIp, someRequest, someResponse);
+
+    assertEquals(HttpStatus.OK, propertiesResponse.getStatusCode());
+
+    //new release
+    when(someApolloConfig.getReleaseKey()).thenReturn(anotherReleaseKey);
+    configFileController.handleMessage(assembleReleaseMessage("someWatchKey"), Topics.APOLLO_RELEASE_TOPIC);
+
+    ResponseEntity<String> anotherResponse =
+        configFileController
+            .queryConfigAsJson(someAppId, someClusterName, someNamespace, someDataCenter,
+                someClientIp, someRequest, someResponse);
+
+    assertEquals(HttpStatus.OK, anotherResponse.getStatusCode());
+    assertNotEquals(someETag, anotherResponse.getHeaders().getETag());
+  }
+
   @Test
   public void testQueryConfigWithGrayRelease() throws Exception {
     String someKey = "someKey";
@@ -213,13 +279,14 @@ public class ConfigFileControllerTest {
     String anotherWatchKey = "anotherWatchKey";
     String someCacheKey = "someCacheKey";
     String anotherCacheKey = "anotherCacheKey";
-    String someValue = "someValue";
+    ConfigFileController.CachedConfigFile someValue =
+        new ConfigFileController.CachedConfigFile("someValue", "\"someETag\"");
 
     ReleaseMessage someReleaseMessage = mock(ReleaseMessage.class);
     when(someReleaseMessage.getMessage()).thenReturn(someWatchKey);
 
-    Cache<String, String> cache =
-        (Cache<String, String>) ReflectionTestUtils.getField(configFileController, "localCache");
+    Cache<String, ConfigFileController.CachedConfigFile> cache =
+        (Cache<String, ConfigFileController.CachedConfigFile>) ReflectionTestUtils.getField(configFileController, "localCache");
     cache.put(someCacheKey, someValue);
     cache.put(anotherCacheKey, someValue);
 
@@ -234,4 +301,10 @@ public class ConfigFileControllerTest {
     assertTrue(watchedKeys2CacheKey.isEmpty());
     assertTrue(cacheKey2WatchedKeys.isEmpty());
   }
+
+  private ReleaseMessage assembleReleaseMessage(String message) {
+    ReleaseMessage releaseMessage = mock(ReleaseMessage.class);
+    when(releaseMessage.getMessage()).thenReturn(message);
+    return releaseMessage;
+  }
 }
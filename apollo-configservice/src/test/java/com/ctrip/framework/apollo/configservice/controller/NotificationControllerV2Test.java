@@ -6,8 +6,11 @@ import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.biz.utils.EntityManagerUtil;
 import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
+import com.ctrip.framework.apollo.configservice.util.NotificationFanOutScheduler;
+import com.ctrip.framework.apollo.configservice.util.WatchKeyDictionary;
 import com.ctrip.framework.apollo.configservice.util.WatchKeysUtil;
 import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.configservice.wrapper.WatchKeyRegistry;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
@@ -62,13 +65,15 @@ public class NotificationControllerV2Test {
 
   private Gson gson;
 
-  private Multimap<String, DeferredResultWrapper> deferredResults;
+  private WatchKeyRegistry<DeferredResultWrapper> deferredResults;
 
   @Before
   public void setUp() throws Exception {
     gson = new Gson();
+    when(bizConfig.releaseMessageNotificationThreads()).thenReturn(2);
     controller = new NotificationControllerV2(
-        watchKeysUtil, releaseMessageService, entityManagerUtil, namespaceUtil, gson, bizConfig
+        watchKeysUtil, releaseMessageService, entityManagerUtil, namespaceUtil,
+        new NotificationFanOutScheduler(bizConfig), new WatchKeyDictionary(), gson, bizConfig
     );
 
     when(bizConfig.releaseMessageNotificationBatch()).thenReturn(100);
@@ -89,7 +94,7 @@ public class NotificationControllerV2Test {
     when(namespaceUtil.normalizeNamespace(someAppId, somePublicNamespace)).thenReturn(somePublicNamespace);
 
     deferredResults =
-        (Multimap<String, DeferredResultWrapper>) ReflectionTestUtils.getField(controller, "deferredResults");
+        (WatchKeyRegistry<DeferredResultWrapper>) ReflectionTestUtils.getField(controller, "deferredResults");
   }
 
   @Test
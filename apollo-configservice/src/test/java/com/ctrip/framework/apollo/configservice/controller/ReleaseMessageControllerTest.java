@@ -0,0 +1,89 @@
+package com.ctrip.framework.apollo.configservice.controller;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessageScanner;
+import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReleaseMessageControllerTest {
+  private ReleaseMessageController releaseMessageController;
+  @Mock
+  private ReleaseMessageScanner releaseMessageScanner;
+  @Mock
+  private ReleaseMessageRepository releaseMessageRepository;
+  @Mock
+  private BizConfig bizConfig;
+  private String someMessage;
+  private String someAccessToken;
+
+  @Before
+  public void setUp() throws Exception {
+    releaseMessageController =
+        new ReleaseMessageController(releaseMessageScanner, releaseMessageRepository, bizConfig);
+
+    someMessage = "someAppId+default+application";
+    someAccessToken = "someAccessToken";
+  }
+
+  @Test
+  public void testNotifyReleaseMessage() throws Exception {
+    when(bizConfig.releaseMessagePushAccessToken()).thenReturn(someAccessToken);
+    when(releaseMessageRepository.findTopByMessageInOrderByIdDesc(Collections.singletonList(someMessage)))
+        .thenReturn(new ReleaseMessage(someMessage));
+
+    ResponseEntity<Void> response = releaseMessageController.notifyReleaseMessage(someMessage, someAccessToken);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    verify(releaseMessageScanner, times(1)).scanImmediately();
+  }
+
+  @Test
+  public void testNotifyReleaseMessageWithWrongAccessToken() throws Exception {
+    when(bizConfig.releaseMessagePushAccessToken()).thenReturn(someAccessToken);
+
+    ResponseEntity<Void> response = releaseMessageController.notifyReleaseMessage(someMessage, "anotherAccessToken");
+
+    assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    verify(releaseMessageRepository, never()).findTopByMessageInOrderByIdDesc(any());
+    verify(releaseMessageScanner, never()).scanImmediately();
+  }
+
+  @Test
+  public void testNotifyReleaseMessageWithoutAccessTokenConfigured() throws Exception {
+    when(bizConfig.releaseMessagePushAccessToken()).thenReturn("");
+
+    ResponseEntity<Void> response = releaseMessageController.notifyReleaseMessage(someMessage, "");
+
+    assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    verify(releaseMessageScanner, never()).scanImmediately();
+  }
+
+  @Test
+  public void testNotifyReleaseMessageNotSaved() throws Exception {
+    when(bizConfig.releaseMessagePushAccessToken()).thenReturn(someAccessToken);
+    when(releaseMessageRepository.findTopByMessageInOrderByIdDesc(Collections.singletonList(someMessage)))
+        .thenReturn(null);
+
+    ResponseEntity<Void> response = releaseMessageController.notifyReleaseMessage(someMessage, someAccessToken);
+
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    verify(releaseMessageScanner, never()).scanImmediately();
+  }
+}
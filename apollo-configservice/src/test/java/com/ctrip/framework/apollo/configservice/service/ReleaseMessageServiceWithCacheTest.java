@@ -4,6 +4,7 @@ import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
+import com.ctrip.framework.apollo.configservice.util.WatchKeyDictionary;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.junit.Before;
@@ -44,7 +45,7 @@ public class ReleaseMessageServiceWithCacheTest {
 
   public void setUp() throws Exception {
     releaseMessageServiceWithCache = new ReleaseMessageServiceWithCache(
-        releaseMessageRepository, bizConfig
+        releaseMessageRepository, bizConfig, new WatchKeyDictionary()
     );
 
     scanInterval = 10;
@@ -3,6 +3,8 @@ package com.ctrip.framework.apollo.configservice.util;
 import com.ctrip.framework.apollo.biz.entity.Instance;
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
 import com.ctrip.framework.apollo.biz.service.InstanceService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,8 +15,11 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -79,15 +84,55 @@ public class InstanceConfigAuditUtilTest {
     when(someInstance.getId()).thenReturn(someInstanceId);
     when(instanceService.createInstance(any(Instance.class))).thenReturn(someInstance);
 
-    instanceConfigAuditUtil.doAudit(someAuditModel);
+    instanceConfigAuditUtil.doAudit(Lists.newArrayList(someAuditModel));
 
-    verify(instanceService, times(1)).findInstance(someAppId, someClusterName, someDataCenter,
-        someIp);
+    verify(instanceService, times(1)).findInstances(someAppId, someClusterName, someDataCenter,
+        Sets.newHashSet(someIp));
     verify(instanceService, times(1)).createInstance(any(Instance.class));
-    verify(instanceService, times(1)).findInstanceConfig(someInstanceId, someConfigAppId,
-        someConfigNamespace);
-    verify(instanceService, times(1)).createInstanceConfig(any(InstanceConfig.class));
+    verify(instanceService, times(1)).findInstanceConfigs(someConfigAppId, someConfigNamespace,
+        Sets.newHashSet(someInstanceId));
+    verify(instanceService, times(1)).batchCreateInstanceConfigs(anyList());
   }
 
+  @Test
+  public void testDoAuditInBatch() throws Exception {
+    String anotherIp = "anotherIp";
+    String anotherReleaseKey = "anotherReleaseKey";
+    long someInstanceId = 1;
+    long anotherInstanceId = 2;
+    Instance someInstance = mock(Instance.class);
+    Instance anotherInstance = mock(Instance.class);
+    InstanceConfig someInstanceConfig = mock(InstanceConfig.class);
 
+    when(someInstance.getId()).thenReturn(someInstanceId);
+    when(someInstance.getIp()).thenReturn(someIp);
+    when(anotherInstance.getId()).thenReturn(anotherInstanceId);
+    when(anotherInstance.getIp()).thenReturn(anotherIp);
+    when(instanceService.findInstances(someAppId, someClusterName, someDataCenter,
+        Sets.newHashSet(someIp, anotherIp))).thenReturn(Lists.newArrayList(someInstance, anotherInstance));
+    when(someInstanceConfig.getInstanceId()).thenReturn(someInstanceId);
+    when(someInstanceConfig.getReleaseKey()).thenReturn(someReleaseKey);
+    when(instanceService.findInstanceConfigs(someConfigAppId, someConfigNamespace,
+        Sets.newHashSet(someInstanceId, anotherInstanceId))).thenReturn(Lists.newArrayList(someInstanceConfig));
+
+    InstanceConfigAuditUtil.InstanceConfigAuditModel outdatedAuditModel =
+        new InstanceConfigAuditUtil.InstanceConfigAuditModel(someAppId, someClusterName, someDataCenter, someIp,
+            someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey);
+    InstanceConfigAuditUtil.InstanceConfigAuditModel latestAuditModel =
+        new InstanceConfigAuditUtil.InstanceConfigAuditModel(someAppId, someClusterName, someDataCenter, someIp,
+            someConfigAppId, someConfigClusterName, someConfigNamespace, anotherReleaseKey);
+    InstanceConfigAuditUtil.InstanceConfigAuditModel anotherAuditModel =
+        new InstanceConfigAuditUtil.InstanceConfigAuditModel(someAppId, someClusterName, someDataCenter, anotherIp,
+            someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey);
+
+    instanceConfigAuditUtil.doAudit(Lists.newArrayList(outdatedAuditModel, anotherAuditModel, latestAuditModel));
+
+    verify(instanceService, never()).createInstance(any(Instance.class));
+    verify(someInstanceConfig, times(1)).setReleaseKey(anotherReleaseKey);
+    verify(instanceService, times(1)).batchUpdateInstanceConfigs(Lists.newArrayList(someInstanceConfig));
+    verify(instanceService, times(1)).batchCreateInstanceConfigs(argThat(instanceConfigs ->
+        instanceConfigs.size() == 1 && instanceConfigs.get(0).getInstanceId() == anotherInstanceId));
+    assertEquals(1, instanceConfigAuditUtil.getCoalescedCount());
+    assertEquals(2, instanceConfigAuditUtil.getAuditedCount());
+  }
 }
@@ -0,0 +1,184 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NotificationFanOutSchedulerTest {
+  private NotificationFanOutScheduler notificationFanOutScheduler;
+  @Mock
+  private BizConfig bizConfig;
+  @Mock
+  private ScheduledExecutorService fanOutExecutorService;
+  private AtomicLong nanoTime;
+  private List<ScheduledTask> scheduledTasks;
+  private int someBatch;
+  private int someBatchInterval;
+  private String someWatchKey;
+  private String someNamespace;
+
+  @Before
+  public void setUp() throws Exception {
+    someBatch = 1;
+    someBatchInterval = 50;
+    someWatchKey = "someAppId+default+someNamespace";
+    someNamespace = "someNamespace";
+    nanoTime = new AtomicLong();
+    scheduledTasks = Lists.newArrayList();
+
+    when(bizConfig.releaseMessageNotificationBatch()).thenReturn(someBatch);
+    when(bizConfig.releaseMessageNotificationBatchIntervalInMilli()).thenReturn(someBatchInterval);
+    when(fanOutExecutorService.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.NANOSECONDS)))
+        .thenAnswer(invocation -> {
+          long delay = invocation.getArgument(1);
+          Runnable task = invocation.getArgument(0);
+          scheduledTasks.add(new ScheduledTask(nanoTime.get() + delay, task));
+          return null;
+        });
+
+    notificationFanOutScheduler = new NotificationFanOutScheduler(bizConfig, fanOutExecutorService, new Ticker() {
+      @Override
+      public long read() {
+        return nanoTime.get();
+      }
+    });
+  }
+
+  @Test
+  public void testScheduleInBatches() throws Exception {
+    DeferredResultWrapper someResult = new DeferredResultWrapper(10000);
+    DeferredResultWrapper anotherResult = new DeferredResultWrapper(10000);
+
+    notificationFanOutScheduler.schedule(someWatchKey, Lists.newArrayList(someResult, anotherResult),
+        assembleNotification(1));
+
+    runTasksDueIn(someBatchInterval / 2);
+
+    assertTrue(someResult.getResult().hasResult());
+    assertFalse(anotherResult.getResult().hasResult());
+    assertEquals(1, notificationFanOutScheduler.getPendingClients());
+
+    runTasksDueIn(someBatchInterval);
+
+    assertTrue(anotherResult.getResult().hasResult());
+    assertEquals(0, notificationFanOutScheduler.getPendingClients());
+    assertTrue(scheduledTasks.isEmpty());
+  }
+
+  @Test
+  public void testScheduleWithCoalescedMessages() throws Exception {
+    long someNotificationId = 1;
+    long anotherNotificationId = 2;
+    DeferredResultWrapper someResult = new DeferredResultWrapper(10000);
+    DeferredResultWrapper anotherResult = new DeferredResultWrapper(10000);
+    List<DeferredResultWrapper> results = Lists.newArrayList(someResult, anotherResult);
+
+    notificationFanOutScheduler.schedule(someWatchKey, results, assembleNotification(someNotificationId));
+    runTasksDueIn(someBatchInterval / 2);
+    notificationFanOutScheduler.schedule(someWatchKey, results, assembleNotification(anotherNotificationId));
+
+    //the new message is merged into the ongoing fan out
+    assertEquals(1, scheduledTasks.size());
+
+    runTasksDueIn(someBatchInterval * 2);
+
+    assertEquals(someNotificationId, notificationIdOf(someResult));
+    assertEquals(anotherNotificationId, notificationIdOf(anotherResult));
+    assertEquals(0, notificationFanOutScheduler.getPendingClients());
+  }
+
+  @Test
+  public void testScheduleWithMultipleKeysInTurn() throws Exception {
+    String anotherWatchKey = "someAppId+default+anotherNamespace";
+    DeferredResultWrapper someResult = new DeferredResultWrapper(10000);
+    DeferredResultWrapper anotherResult = new DeferredResultWrapper(10000);
+    DeferredResultWrapper yetAnotherResult = new DeferredResultWrapper(10000);
+
+    notificationFanOutScheduler.schedule(someWatchKey, Lists.newArrayList(someResult, anotherResult),
+        assembleNotification(1));
+    notificationFanOutScheduler.schedule(anotherWatchKey, Lists.newArrayList(yetAnotherResult),
+        assembleNotification(1));
+
+    runTasksDueIn(someBatchInterval + someBatchInterval / 2);
+
+    //the other key should not wait for all the clients of the first key
+    assertTrue(someResult.getResult().hasResult());
+    assertTrue(yetAnotherResult.getResult().hasResult());
+    assertFalse(anotherResult.getResult().hasResult());
+
+    runTasksDueIn(someBatchInterval);
+
+    assertTrue(anotherResult.getResult().hasResult());
+  }
+
+  /**
+   * Advance the clock by the given time and run the tasks due by then in the order of their due time
+   */
+  private void runTasksDueIn(long timeInMilli) {
+    long deadline = nanoTime.get() + TimeUnit.MILLISECONDS.toNanos(timeInMilli);
+    while (true) {
+      ScheduledTask next = null;
+      for (ScheduledTask task : scheduledTasks) {
+        if (task.dueTime <= deadline && (next == null || task.dueTime < next.dueTime)) {
+          next = task;
+        }
+      }
+      if (next == null) {
+        break;
+      }
+      for (Iterator<ScheduledTask> iterator = scheduledTasks.iterator(); iterator.hasNext(); ) {
+        if (iterator.next() == next) {
+          iterator.remove();
+          break;
+        }
+      }
+      nanoTime.set(Math.max(nanoTime.get(), next.dueTime));
+      next.task.run();
+    }
+    nanoTime.set(deadline);
+  }
+
+  private ApolloConfigNotification assembleNotification(long notificationId) {
+    return new ApolloConfigNotification(someNamespace, notificationId);
+  }
+
+  @SuppressWarnings("unchecked")
+  private long notificationIdOf(DeferredResultWrapper result) {
+    ResponseEntity<List<ApolloConfigNotification>> response =
+        (ResponseEntity<List<ApolloConfigNotification>>) result.getResult().getResult();
+    return response.getBody().get(0).getNotificationId();
+  }
+
+  private static class ScheduledTask {
+    private final long dueTime;
+    private final Runnable task;
+
+    ScheduledTask(long dueTime, Runnable task) {
+      this.dueTime = dueTime;
+      this.task = task;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.ctrip.framework.apollo.configservice.util;
+
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.google.common.base.Joiner;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class WatchKeyDictionaryTest {
+  private WatchKeyDictionary watchKeyDictionary;
+  private String someAppId;
+  private String someCluster;
+  private String someNamespace;
+
+  @Before
+  public void setUp() throws Exception {
+    watchKeyDictionary = new WatchKeyDictionary();
+
+    someAppId = "someAppId";
+    someCluster = "someCluster";
+    someNamespace = "someNamespace";
+  }
+
+  @Test
+  public void testAssembleKey() throws Exception {
+    String expected = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR).join(someAppId, someCluster, someNamespace);
+
+    String key = watchKeyDictionary.assembleKey(someAppId, someCluster, someNamespace);
+
+    assertEquals(expected, key);
+    assertSame(key, watchKeyDictionary.assembleKey(someAppId, someCluster, someNamespace));
+  }
+
+  @Test
+  public void testInternSharesInstanceWithAssembledKey() throws Exception {
+    String key = watchKeyDictionary.assembleKey(someAppId, someCluster, someNamespace);
+    String someMessage = new String(key);
+
+    assertSame(key, watchKeyDictionary.intern(someMessage));
+  }
+
+  @Test
+  public void testNormalize() throws Exception {
+    String key = watchKeyDictionary.assembleKey(someAppId, someCluster, someNamespace);
+
+    String normalized = watchKeyDictionary.normalize(key);
+
+    assertEquals(key.toLowerCase(), normalized);
+    assertSame(normalized, watchKeyDictionary.normalize(key.toUpperCase()));
+    assertSame(normalized, watchKeyDictionary.normalize(new String(normalized)));
+  }
+}
@@ -45,7 +45,7 @@ public class WatchKeysUtilTest {
 
   @Before
   public void setUp() throws Exception {
-    watchKeysUtil = new WatchKeysUtil(appNamespaceService);
+    watchKeysUtil = new WatchKeysUtil(appNamespaceService, new WatchKeyDictionary());
 
     someAppId = "someId";
     someCluster = "someCluster";
@@ -0,0 +1,89 @@
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class WatchKeyRegistryTest {
+  private WatchKeyRegistry<Object> watchKeyRegistry;
+
+  @Before
+  public void setUp() throws Exception {
+    watchKeyRegistry = new WatchKeyRegistry<>();
+  }
+
+  @Test
+  public void testPutAndGetWithCaseInsensitiveKey() throws Exception {
+    String someKey = "someAppId+default+application";
+    Object someValue = new Object();
+    Object anotherValue = new Object();
+
+    assertTrue(watchKeyRegistry.put(someKey, someValue));
+    assertTrue(watchKeyRegistry.put(someKey.toUpperCase(), anotherValue));
+    assertFalse(watchKeyRegistry.put(someKey, someValue));
+
+    List<Object> values = watchKeyRegistry.get(someKey.toLowerCase());
+
+    assertEquals(2, values.size());
+    assertTrue(values.contains(someValue));
+    assertTrue(values.contains(anotherValue));
+    assertTrue(watchKeyRegistry.containsKey(someKey));
+    assertEquals(2, watchKeyRegistry.size());
+  }
+
+  @Test
+  public void testRemove() throws Exception {
+    String someKey = "someKey";
+    String anotherKey = "anotherKey";
+    Object someValue = new Object();
+
+    watchKeyRegistry.put(someKey, someValue);
+    watchKeyRegistry.put(anotherKey, someValue);
+
+    assertTrue(watchKeyRegistry.remove(someKey.toUpperCase(), someValue));
+    assertFalse(watchKeyRegistry.remove(someKey, someValue));
+
+    assertFalse(watchKeyRegistry.containsKey(someKey));
+    assertNull(watchKeyRegistry.get(someKey));
+    assertTrue(watchKeyRegistry.containsKey(anotherKey));
+    assertEquals(1, watchKeyRegistry.size());
+  }
+
+  @Test
+  public void testGetReturnsSnapshot() throws Exception {
+    String someKey = "someKey";
+    Object someValue = new Object();
+
+    watchKeyRegistry.put(someKey, someValue);
+
+    List<Object> values = watchKeyRegistry.get(someKey);
+
+    watchKeyRegistry.remove(someKey, someValue);
+
+    assertEquals(1, values.size());
+    assertTrue(values.contains(someValue));
+  }
+
+  @Test
+  public void testNormalizeKeyRegardlessOfDefaultLocale() throws Exception {
+    Locale defaultLocale = Locale.getDefault();
+    Object someValue = new Object();
+
+    try {
+      Locale.setDefault(new Locale("tr", "TR"));
+
+      watchKeyRegistry.put("SOMEAPPID+default+APPLICATION", someValue);
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+
+    List<Object> values = watchKeyRegistry.get("someappid+default+application");
+
+    assertEquals(1, values.size());
+    assertTrue(values.contains(someValue));
+  }
+}
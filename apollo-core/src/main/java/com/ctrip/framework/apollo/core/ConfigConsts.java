@@ -9,4 +9,6 @@ public interface ConfigConsts {
   String CONFIG_FILE_CONTENT_KEY = "content";
   String NO_APPID_PLACEHOLDER = "ApolloNoAppIdPlaceHolder";
   long NOTIFICATION_ID_PLACEHOLDER = -1;
+  //the max number of namespaces queried in one batch config request
+  int MAX_BATCH_CONFIG_QUERY_SIZE = 100;
 }
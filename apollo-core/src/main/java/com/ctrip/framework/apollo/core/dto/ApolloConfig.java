@@ -1,5 +1,8 @@
 package com.ctrip.framework.apollo.core.dto;
 
+import com.ctrip.framework.apollo.core.enums.ConfigSyncType;
+
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,6 +20,10 @@ public class ApolloConfig {
 
   private String releaseKey;
 
+  private ConfigSyncType configSyncType;
+
+  private List<ConfigurationChange> configurationChanges;
+
   public ApolloConfig() {
   }
 
@@ -50,6 +57,21 @@ public class ApolloConfig {
     return configurations;
   }
 
+  /**
+   * @return null is the same as {@link ConfigSyncType#FULL}, e.g. responses from the old config services
+   */
+  public ConfigSyncType getConfigSyncType() {
+    return configSyncType;
+  }
+
+  /**
+   * @return the changes relative to the client side release, only available when the sync type is
+   * {@link ConfigSyncType#DELTA}
+   */
+  public List<ConfigurationChange> getConfigurationChanges() {
+    return configurationChanges;
+  }
+
   public void setAppId(String appId) {
     this.appId = appId;
   }
@@ -70,6 +92,14 @@ public class ApolloConfig {
     this.configurations = configurations;
   }
 
+  public void setConfigSyncType(ConfigSyncType configSyncType) {
+    this.configSyncType = configSyncType;
+  }
+
+  public void setConfigurationChanges(List<ConfigurationChange> configurationChanges) {
+    this.configurationChanges = configurationChanges;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("ApolloConfig{");
@@ -78,6 +108,8 @@ public class ApolloConfig {
     sb.append(", namespaceName='").append(namespaceName).append('\'');
     sb.append(", configurations=").append(configurations);
     sb.append(", releaseKey='").append(releaseKey).append('\'');
+    sb.append(", configSyncType=").append(configSyncType);
+    sb.append(", configurationChanges=").append(configurationChanges);
     sb.append('}');
     return sb.toString();
   }
@@ -0,0 +1,43 @@
+package com.ctrip.framework.apollo.core.dto;
+
+import com.ctrip.framework.apollo.core.enums.ConfigurationChangeType;
+
+/**
+ * A changed key of a delta config response
+ */
+public class ConfigurationChange {
+  private String key;
+  private String newValue;
+  private ConfigurationChangeType configurationChangeType;
+
+  //for json converter
+  public ConfigurationChange() {
+  }
+
+  public ConfigurationChange(String key, String newValue, ConfigurationChangeType configurationChangeType) {
+    this.key = key;
+    this.newValue = newValue;
+    this.configurationChangeType = configurationChangeType;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public String getNewValue() {
+    return newValue;
+  }
+
+  public ConfigurationChangeType getConfigurationChangeType() {
+    return configurationChangeType;
+  }
+
+  @Override
+  public String toString() {
+    return "ConfigurationChange{" +
+        "key='" + key + '\'' +
+        ", newValue='" + newValue + '\'' +
+        ", configurationChangeType=" + configurationChangeType +
+        '}';
+  }
+}
@@ -0,0 +1,15 @@
+package com.ctrip.framework.apollo.core.enums;
+
+/**
+ * How the configurations are delivered in an {@link com.ctrip.framework.apollo.core.dto.ApolloConfig}
+ */
+public enum ConfigSyncType {
+  /**
+   * all the configurations of the release
+   */
+  FULL,
+  /**
+   * only the changes relative to the release key sent by the client
+   */
+  DELTA
+}
@@ -0,0 +1,64 @@
+package com.ctrip.framework.apollo.mockserver;
+
+import static org.junit.Assert.assertEquals;
+
+import com.ctrip.framework.apollo.internals.AgentConfigRepository;
+import com.ctrip.framework.apollo.internals.ConfigAgent;
+import com.ctrip.framework.apollo.internals.RepositoryChangeListener;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.SettableFuture;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConfigAgentTest {
+  private static final String someAppId = "someAppId";
+  private static final String someCluster = "default";
+  private static final String otherNamespace = "otherNamespace";
+
+  @ClassRule
+  public static EmbeddedApollo embeddedApollo = new EmbeddedApollo();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testServeSeveralReaders() throws Exception {
+    File agentDir = temporaryFolder.newFolder();
+    new ConfigAgent(agentDir).serve(someAppId, someCluster, Collections.singletonList(otherNamespace));
+
+    List<AgentConfigRepository> readers = Lists.newArrayList();
+    List<SettableFuture<Properties>> changes = Lists.newArrayList();
+    for (int i = 0; i < 3; i++) {
+      AgentConfigRepository reader = new AgentConfigRepository(otherNamespace, agentDir, someAppId, someCluster);
+      final SettableFuture<Properties> change = SettableFuture.create();
+      reader.addChangeListener(new RepositoryChangeListener() {
+        @Override
+        public void onRepositoryChange(String namespace, Properties newProperties) {
+          change.set(newProperties);
+        }
+      });
+      readers.add(reader);
+      changes.add(change);
+
+      assertEquals("otherValue1", reader.getConfig().getProperty("key1"));
+      assertEquals("otherValue2", reader.getConfig().getProperty("key2"));
+    }
+
+    embeddedApollo.addOrModifyProperty(otherNamespace, "key1", "someNewValue");
+
+    for (int i = 0; i < readers.size(); i++) {
+      Properties newProperties = changes.get(i).get(5, TimeUnit.SECONDS);
+
+      assertEquals("someNewValue", newProperties.getProperty("key1"));
+      assertEquals("someNewValue", readers.get(i).getConfig().getProperty("key1"));
+      assertEquals("otherValue2", readers.get(i).getConfig().getProperty("key2"));
+    }
+  }
+}